@@ -7,6 +7,7 @@ import com.hydra.studios.App;
 import com.hydra.studios.controller.response.ResponseModal;
 import com.hydra.studios.model.account.personal.address.country.AccountPersonalCountry;
 import com.hydra.studios.model.account.personal.gender.AccountPersonalGender;
+import com.hydra.studios.model.account.wallet.WalletDelta;
 import com.hydra.studios.model.affiliate.AffiliateLog;
 import com.hydra.studios.model.affiliate.revenue.AffiliateRevenueType;
 import com.hydra.studios.model.affiliate.type.AffiliateType;
@@ -18,8 +19,10 @@ import com.hydra.studios.service.affiliate.AffiliateService;
 import com.hydra.studios.service.bet.BetService;
 import com.hydra.studios.service.system.SystemService;
 import com.hydra.studios.service.transaction.TransactionService;
+import com.hydra.studios.service.wallet.WalletLedgerService;
 import com.hydra.studios.ws.controller.AccController;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
@@ -52,6 +55,9 @@ public class AccountController {
     @Autowired
     private SystemService systemService;
 
+    @Autowired
+    private WalletLedgerService walletLedgerService;
+
     @GetMapping
     public String find(@AuthenticationPrincipal UserDetails userDetails) {
         var account = accountService.getAccount(userDetails.getUsername());
@@ -136,9 +142,8 @@ public class AccountController {
         }
 
         if (account.getAffiliate().getAffiliateId() == null) {
-            account.getAffiliate().setAffiliateId(UUID.randomUUID().toString());
+            account = accountService.assignAffiliateId(account.getId(), UUID.randomUUID().toString());
             accController.publish(account.getId(), account);
-            accountService.save(account);
         }
 
         var config = systemService.getSystem();
@@ -180,6 +185,7 @@ public class AccountController {
         var account = accountService.getAccount(userDetails.getUsername());
 
         var changedFields = new JsonObject();
+        var update = new Update();
 
         if (account == null) {
             return App.getGson().toJson(ResponseModal.builder().status(false).message("Account not found").build());
@@ -195,21 +201,21 @@ public class AccountController {
             changedFields.addProperty("previous_cpf", account.getPersonalInfo().getCpf());
             changedFields.addProperty("new_cpf", body.get("cpf").getAsString());
 
-            account.getPersonalInfo().setCpf(body.get("cpf").getAsString());
+            update.set("personalInfo.cpf", body.get("cpf").getAsString());
         }
 
         if (body.has("phone")) {
             changedFields.addProperty("previous_phone", account.getPersonalInfo().getPhone());
             changedFields.addProperty("new_phone", body.get("phone").getAsString());
 
-            account.getPersonalInfo().setPhone(body.get("phone").getAsString());
+            update.set("personalInfo.phone", body.get("phone").getAsString());
         }
 
         if (body.has("dateOfBirth")) {
             changedFields.addProperty("previous_dateOfBirth", account.getPersonalInfo().getDateOfBirth());
             changedFields.addProperty("new_dateOfBirth", body.get("dateOfBirth").getAsString());
 
-            account.getPersonalInfo().setDateOfBirth(body.get("dateOfBirth").getAsString());
+            update.set("personalInfo.dateOfBirth", body.get("dateOfBirth").getAsString());
         }
 
         if (body.has("gender")) {
@@ -218,7 +224,7 @@ public class AccountController {
             changedFields.addProperty("previous_gender", account.getPersonalInfo().getGender().getText());
             changedFields.addProperty("new_gender", AccountPersonalGender.valueOf(gender).getText());
 
-            account.getPersonalInfo().setGender(AccountPersonalGender.valueOf(gender));
+            update.set("personalInfo.gender", AccountPersonalGender.valueOf(gender));
         }
 
         if (body.has("address")) {
@@ -230,7 +236,7 @@ public class AccountController {
                         account.getPersonalInfo().getAddress().getCountry().name());
                 changedFields.addProperty("new_country", AccountPersonalCountry.valueOf(country).name());
 
-                account.getPersonalInfo().getAddress().setCountry(AccountPersonalCountry.valueOf(country));
+                update.set("personalInfo.address.country", AccountPersonalCountry.valueOf(country));
             }
 
             if (address.has("city")) {
@@ -238,34 +244,41 @@ public class AccountController {
                 changedFields.addProperty("previous_city", account.getPersonalInfo().getAddress().getCity());
                 changedFields.addProperty("new_city", address.get("city").getAsString());
 
-                account.getPersonalInfo().getAddress().setCity(address.get("city").getAsString());
+                update.set("personalInfo.address.city", address.get("city").getAsString());
             }
 
             if (address.has("state")) {
                 changedFields.addProperty("previous_state", account.getPersonalInfo().getAddress().getState());
                 changedFields.addProperty("new_state", address.get("state").getAsString());
 
-                account.getPersonalInfo().getAddress().setState(address.get("state").getAsString());
+                update.set("personalInfo.address.state", address.get("state").getAsString());
             }
 
             if (address.has("zipCode")) {
                 changedFields.addProperty("previous_zipCode", account.getPersonalInfo().getAddress().getZipCode());
                 changedFields.addProperty("new_zipCode", address.get("zipCode").getAsString());
 
-                account.getPersonalInfo().getAddress().setZipCode(address.get("zipCode").getAsString());
+                update.set("personalInfo.address.zipCode", address.get("zipCode").getAsString());
             }
 
             if (address.has("street")) {
                 changedFields.addProperty("previous_street", account.getPersonalInfo().getAddress().getStreet());
                 changedFields.addProperty("new_street", address.get("street").getAsString());
 
-                account.getPersonalInfo().getAddress().setStreet(address.get("street").getAsString());
+                update.set("personalInfo.address.street", address.get("street").getAsString());
+            }
+        }
+
+        if (!update.getUpdateObject().isEmpty()) {
+            // $set só nos campos alterados: nunca regrava a carteira
+            account = accountService.update(account.getId(), update);
+            if (account == null) {
+                return App.getGson().toJson(ResponseModal.builder().status(false).message("Account not found").build());
             }
         }
 
         activityService.createActivityLog(account.getId(), "UPDATE_PROFILE", changedFields.toString());
         accController.publish(account.getId(), account);
-        accountService.save(account);
 
         return App.getGson().toJson(ResponseModal.builder().status(true).message("Account updated").build());
     }
@@ -352,6 +365,13 @@ public class AccountController {
         }
 
         if (isApproved) {
+            // Só o callback que tira a transação de PENDING credita; repetidos e concorrentes param aqui
+            if (transactionService.transition(transactionId, TransactionStatus.PENDING,
+                    TransactionStatus.APPROVED) == null) {
+                return App.getGson()
+                        .toJson(ResponseModal.builder().status(false).message("Transaction already verified").build());
+            }
+
             var acc = accountService.getAccountById(transaction.getAccountId());
             var transactions = transactionService.getAllTransactionsByAccountId(acc.getId());
 
@@ -362,6 +382,9 @@ public class AccountController {
                     if (aff != null) {
                         var isFirstDeposit = false;
                         for (var tx : transactions) {
+                            if (tx.getId().equals(transactionId)) {
+                                continue;
+                            }
                             if (tx.getType().equals(TransactionType.CREDIT)
                                     && tx.getStatus().equals(TransactionStatus.APPROVED)) {
                                 isFirstDeposit = false;
@@ -372,8 +395,9 @@ public class AccountController {
                         }
 
                         if (isFirstDeposit) {
-                            aff.getWallet()
-                                    .setAffiliate(aff.getWallet().getAffiliate() + aff.getAffiliate().getCpa());
+                            var affWallet = walletLedgerService.apply(aff.getId(),
+                                    new WalletDelta().addAffiliate(aff.getAffiliate().getCpa())
+                                            .addOperation(transactionId + ":affiliate"));
 
                             var afflog = AffiliateLog.builder().id(UUID.randomUUID().toString())
                                     .affiliateId(aff.getId())
@@ -386,12 +410,12 @@ public class AccountController {
 
                             affiliateService.create(afflog);
 
-                            accController.publish(aff.getId(), aff);
-                            accountService.save(aff);
+                            accController.publishWallet(aff.getId(), affWallet);
                         } else {
                             var percent = aff.getAffiliate().getPercentPerDeposit();
                             var value = (transaction.getAmount() / 100) * percent;
-                            aff.getWallet().setAffiliate(aff.getWallet().getAffiliate() + (value));
+                            var affWallet = walletLedgerService.apply(aff.getId(),
+                                    new WalletDelta().addAffiliate(value).addOperation(transactionId + ":affiliate"));
 
                             var afflog = AffiliateLog.builder().id(UUID.randomUUID().toString())
                                     .affiliateId(aff.getId())
@@ -403,21 +427,16 @@ public class AccountController {
 
                             affiliateService.create(afflog);
 
-                            accController.publish(aff.getId(), aff);
-                            accountService.save(aff);
+                            accController.publishWallet(aff.getId(), affWallet);
                         }
                     }
                 }
             }
 
-            transaction.setStatus(TransactionStatus.APPROVED);
-            transaction.setUpdateAt(System.currentTimeMillis());
-            acc.getWallet().setBalance(acc.getWallet().getBalance() + (transaction.getAmount()));
-            acc.getWallet().setBonus(transaction.getBonus());
+            var wallet = walletLedgerService.deposit(acc.getId(), transaction.getAmount(), transaction.getBonus(),
+                    transactionId);
 
-            accController.publish(acc.getId(), acc);
-            accountService.save(acc);
-            transactionService.save(transaction);
+            accController.publishWallet(acc.getId(), wallet);
         }
 
         return App.getGson()
@@ -442,20 +461,22 @@ public class AccountController {
         }
 
         if (body.has("status") && body.get("status").getAsString().equalsIgnoreCase("COMPLETED")) {
-            transaction.setStatus(TransactionStatus.APPROVED);
-            transaction.setUpdateAt(System.currentTimeMillis());
-            transactionService.save(transaction);
+            transactionService.transition(transactionId, TransactionStatus.PENDING, TransactionStatus.APPROVED);
 
             System.out.println("[VeoPag] Saque " + transactionId + " confirmado como COMPLETED.");
         } else if (body.has("status") && body.get("status").getAsString().equalsIgnoreCase("FAILED")) {
-            // Devolve o saldo ao usuário em caso de falha
-            var acc = accountService.getAccountById(transaction.getAccountId());
-            acc.getWallet().setBalance(acc.getWallet().getBalance() + transaction.getAmount());
-            transaction.setStatus(TransactionStatus.REJECTED);
-            transaction.setUpdateAt(System.currentTimeMillis());
-            transactionService.save(transaction);
-            accountService.save(acc);
-            accController.publish(acc.getId(), acc);
+            // Devolve o saldo ao usuário em caso de falha, uma vez só mesmo com callbacks repetidos
+            if (transactionService.transition(transactionId, TransactionStatus.PENDING,
+                    TransactionStatus.REJECTED) == null) {
+                return App.getGson()
+                        .toJson(ResponseModal.builder().status(false).message("Transaction already processed").build());
+            }
+
+            var wallet = walletLedgerService.apply(transaction.getAccountId(),
+                    new WalletDelta().addBalance(transaction.getAmount()).addOperation(transactionId));
+            if (wallet != null) {
+                accController.publishWallet(transaction.getAccountId(), wallet);
+            }
 
             System.out.println("[VeoPag] Saque " + transactionId + " falhou. Saldo devolvido.");
         }
@@ -503,16 +524,21 @@ public class AccountController {
             return App.getGson().toJson(ResponseModal.builder().status(false).message("Insufficient balance").build());
         }
 
-        var response = transactionService.createTransaction(account, amount);
+        var updated = account.getWallet();
 
         if (wallet.equals("balance")) {
-            account.getWallet().setBalance(account.getWallet().getBalance() - amount);
+            updated = walletLedgerService.debit(account.getId(), "balance", amount);
         } else if (wallet.equals("affiliate")) {
-            account.getWallet().setAffiliate(account.getWallet().getAffiliate() + amount);
+            updated = walletLedgerService.apply(account.getId(), new WalletDelta().addAffiliate(amount));
         }
 
-        accController.publish(account.getId(), account);
-        accountService.save(account);
+        if (updated == null) {
+            return App.getGson().toJson(ResponseModal.builder().status(false).message("Insufficient balance").build());
+        }
+
+        var response = transactionService.createTransaction(account, amount);
+
+        accController.publishWallet(account.getId(), updated);
 
         return App.getGson().toJson(response);
     }
@@ -1,16 +1,21 @@
 package com.hydra.studios.controller.admin;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.hydra.studios.App;
 import com.hydra.studios.component.gateway.VeoPayGateway;
 import com.hydra.studios.controller.response.ResponseModal;
 import com.hydra.studios.model.account.role.AccountRole;
+import com.hydra.studios.model.account.wallet.WalletDelta;
 import com.hydra.studios.model.transaction.status.TransactionStatus;
 import com.hydra.studios.model.transaction.type.TransactionType;
 import com.hydra.studios.service.account.AccountService;
+import com.hydra.studios.service.metrics.MetricsService;
+import com.hydra.studios.service.price.archive.TickArchive;
 import com.hydra.studios.service.system.SystemService;
 import com.hydra.studios.service.transaction.TransactionService;
+import com.hydra.studios.service.wallet.WalletLedgerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -29,6 +34,15 @@ public class AdminController {
     @Autowired
     private VeoPayGateway veoPayGateway;
 
+    @Autowired
+    private MetricsService metricsService;
+
+    @Autowired
+    private WalletLedgerService walletLedgerService;
+
+    @Autowired
+    private TickArchive tickArchive;
+
     @GetMapping("/info")
     public String info() {
         var system = systemService.getSystem();
@@ -61,6 +75,49 @@ public class AdminController {
         return App.getGson().toJson(ResponseModal.builder().status(true).data(summary).build());
     }
 
+    @GetMapping("/metrics")
+    public String metrics(@AuthenticationPrincipal UserDetails userDetails) {
+        var account = accountService.getAccount(userDetails.getUsername());
+
+        if (account == null) {
+            return App.getGson().toJson(ResponseModal.builder().status(false).message("Account not found").build());
+        }
+        if (account.getRole() != AccountRole.ADMIN) {
+            return App.getGson().toJson(ResponseModal.builder().status(false).message("Access denied").build());
+        }
+
+        var metrics = metricsService.getMetrics();
+
+        return App.getGson().toJson(ResponseModal.builder().status(true).data(metrics).build());
+    }
+
+    @GetMapping("/ticks/{pair}")
+    public String ticks(@AuthenticationPrincipal UserDetails userDetails, @PathVariable String pair,
+            @RequestParam long from, @RequestParam long to, @RequestParam(defaultValue = "1000") int limit) {
+        var account = accountService.getAccount(userDetails.getUsername());
+
+        if (account == null) {
+            return App.getGson().toJson(ResponseModal.builder().status(false).message("Account not found").build());
+        }
+        if (account.getRole() != AccountRole.ADMIN) {
+            return App.getGson().toJson(ResponseModal.builder().status(false).message("Access denied").build());
+        }
+
+        // Ticks brutos recebidos da Binance, para auditoria de liquidações
+        var max = Math.max(1, Math.min(limit, 10000));
+        var ticks = new JsonArray();
+        tickArchive.scan(from, to, pair.toUpperCase(), (symbol, eventTime, price, volume) -> {
+            var tick = new JsonObject();
+            tick.addProperty("eventTime", eventTime);
+            tick.addProperty("price", price);
+            tick.addProperty("volume", volume);
+            ticks.add(tick);
+            return ticks.size() < max;
+        });
+
+        return App.getGson().toJson(ResponseModal.builder().status(true).data(ticks).build());
+    }
+
     @GetMapping("/transactions")
     public String transactions(@AuthenticationPrincipal UserDetails userDetails) {
         var account = accountService.getAccount(userDetails.getUsername());
@@ -177,13 +234,11 @@ public class AdminController {
             transaction.setUpdateAt(System.currentTimeMillis());
             systemService.saveTransaction(transaction);
         } else {
-            var acc = accountService.getAccountById(transaction.getAccountId());
-            acc.getWallet().setBalance(acc.getWallet().getBalance() + transaction.getAmount());
+            walletLedgerService.apply(transaction.getAccountId(), new WalletDelta().addBalance(transaction.getAmount()));
 
             transaction.setStatus(TransactionStatus.REJECTED);
             transaction.setUpdateAt(System.currentTimeMillis());
             systemService.saveTransaction(transaction);
-            accountService.save(acc);
         }
 
         return App.getGson().toJson(
@@ -225,9 +280,9 @@ public class AdminController {
         var body = JsonParser.parseString(requestBody).getAsJsonObject();
         var acc = accountService.getAccountById(id);
 
-        accountService.edit(acc, body);
+        var edited = accountService.edit(acc, body);
 
-        var rs = JsonParser.parseString(App.getGson().toJson(acc)).getAsJsonObject();
+        var rs = JsonParser.parseString(App.getGson().toJson(edited)).getAsJsonObject();
 
         rs.remove("password");
 
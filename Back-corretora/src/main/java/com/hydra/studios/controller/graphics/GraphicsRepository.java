@@ -2,37 +2,64 @@ package com.hydra.studios.controller.graphics;
 
 import com.hydra.studios.App;
 import com.hydra.studios.controller.response.ResponseModal;
-import com.hydra.studios.repository.klines.KlineRepository;
 import com.hydra.studios.service.account.AccountService;
-import com.hydra.studios.service.binance.BinanceKlineService;
+import com.hydra.studios.service.klines.KlineHistoryService;
+import com.hydra.studios.service.klines.codec.KlineBinaryCodec;
+import com.hydra.studios.service.klines.codec.KlineFormat;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
 
 @RestController
 @RequestMapping("/v1/graphics")
 public class GraphicsRepository {
 
     @Autowired
-    private KlineRepository klineRepository;
+    private KlineHistoryService klineHistoryService;
 
     @Autowired
     private AccountService accountService;
 
-    @GetMapping("/klines/{pair}/{interval}")
-    public String history(@AuthenticationPrincipal UserDetails userDetails, @PathVariable String pair, @PathVariable String interval) {
+    @GetMapping(value = "/klines/{pair}/{interval}",
+            produces = { MediaType.APPLICATION_JSON_VALUE, KlineBinaryCodec.MEDIA_TYPE })
+    public ResponseEntity<byte[]> history(@AuthenticationPrincipal UserDetails userDetails, @PathVariable String pair,
+            @PathVariable String interval, @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to, @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept, WebRequest request) {
         var account = accountService.getAccount(userDetails.getUsername());
 
         if (account == null) {
-            return App.getGson().toJson(ResponseModal.builder().status(false).message("Account not found").build());
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(App.getGson()
+                    .toJson(ResponseModal.builder().status(false).message("Account not found").build())
+                    .getBytes(StandardCharsets.UTF_8));
         }
 
-        var klines = klineRepository.findTop500ByPairAndIntervalOrderByOpenTimeDesc(pair, interval);
+        var format = KlineFormat.fromAccept(accept);
+        var history = from == null && to == null && limit == null
+                ? klineHistoryService.latest(pair, interval, format)
+                : klineHistoryService.range(pair, interval, from, to, limit, format);
+
+        // Histórico inalterado: o navegador reaproveita o que já tem
+        if (request.checkNotModified(history.getEtag())) {
+            return null;
+        }
 
-        return App.getGson().toJson(ResponseModal.builder().status(true).data(klines).build());
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .eTag(history.getEtag())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .body(history.getBody());
     }
 }
@@ -1,13 +1,22 @@
 package com.hydra.studios.event.exchange;
 
-import com.hydra.studios.service.binance.BinanceKlineService;
+import com.hydra.studios.service.binance.source.MarketDataSource;
+import com.hydra.studios.service.binance.stream.KlineAggregator;
 import com.hydra.studios.service.exchange.ExchangeService;
+import com.hydra.studios.service.klines.KlineCache;
+import com.hydra.studios.service.price.PriceBook;
+import com.hydra.studios.service.price.PriceHistory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Component
 public class ExchangeEvent {
@@ -16,10 +25,89 @@ public class ExchangeEvent {
     private ExchangeService exchangeService;
 
     @Autowired
-    private BinanceKlineService binanceKlineService;
+    private MarketDataSource marketDataSource;
+
+    @Autowired
+    private PriceBook priceBook;
+
+    @Autowired
+    private PriceHistory priceHistory;
+
+    @Autowired
+    private KlineCache klineCache;
+
+    @Autowired
+    private KlineAggregator klineAggregator;
+
+    // Pares (minúsculos) entregues à fonte de mercado
+    private final Set<String> active = new LinkedHashSet<>();
 
     @EventListener(ApplicationReadyEvent.class)
-    public void syncExchangeRates() {
+    public synchronized void syncExchangeRates() {
+        syncBinancePairs();
+
+        String[] pr = currentPairs().toArray(String[]::new);
+
+        priceBook.init(Arrays.asList(pr));
+        priceHistory.init();
+
+        // Os klines usam o símbolo em maiúsculas, como vem da Binance
+        var symbols = Arrays.stream(pr).map(String::toUpperCase).toList();
+        klineCache.warm(symbols, klineAggregator.getIntervals());
+        klineAggregator.warm(symbols);
+
+        System.out.println("Starting " + marketDataSource.getName() + " market data for pairs: " + pr.length
+                + " in 1m interval, aggregating " + klineAggregator.getIntervals() + ".");
+
+        // Um único stream 1m por par; os demais intervalos são agregados em memória
+        marketDataSource.connect(pr);
+        active.addAll(Arrays.asList(pr));
+    }
+
+    /**
+     * Picks up pairs listed or removed since startup and changes the market data subscriptions
+     * in place, without reconnecting the pairs that did not change.
+     */
+    @Scheduled(fixedDelayString = "${exchange.sync-ms:3600000}", initialDelayString = "${exchange.sync-ms:3600000}")
+    public synchronized void resyncExchangeRates() {
+        if (active.isEmpty()) {
+            return;
+        }
+
+        try {
+            syncBinancePairs();
+        } catch (Exception e) {
+            System.out.println("Failed to sync exchange rates: " + e.getMessage());
+            return;
+        }
+
+        var pairs = currentPairs();
+        var added = pairs.stream().filter(pair -> !active.contains(pair)).toArray(String[]::new);
+        var removed = active.stream().filter(pair -> !pairs.contains(pair)).toArray(String[]::new);
+
+        if (added.length > 0) {
+            priceBook.init(Arrays.asList(added));
+            priceHistory.init();
+
+            var symbols = Arrays.stream(added).map(String::toUpperCase).toList();
+            klineCache.warm(symbols, klineAggregator.getIntervals());
+            klineAggregator.warm(symbols);
+
+            marketDataSource.subscribe(added);
+            active.addAll(Arrays.asList(added));
+        }
+        if (removed.length > 0) {
+            marketDataSource.unsubscribe(removed);
+            Arrays.asList(removed).forEach(active::remove);
+        }
+
+        if (added.length > 0 || removed.length > 0) {
+            System.out.println("Market data pairs changed: +" + added.length + " -" + removed.length + ", now "
+                    + active.size());
+        }
+    }
+
+    private void syncBinancePairs() {
         System.out.println("Starting exchange rates sync...");
         var pairs = exchangeService.getBinancePairs();
 
@@ -36,17 +124,11 @@ public class ExchangeEvent {
         }
 
         System.out.println("Exchange rates sync completed. Founded: " + founded + ", New added: " + size);
+    }
 
-        var allPairs = exchangeService.getAllPairs();
-
-        String[] pr = allPairs.stream()
+    private Set<String> currentPairs() {
+        return exchangeService.getAllPairs().stream()
                 .map(pair -> pair.getSymbol().toLowerCase().replace("/", ""))
-                .toArray(String[]::new);
-
-        System.out.println("Starting Binance Kline Service for pairs: " + pr.length + " in 1m interval.");
-
-        binanceKlineService.connectMultiplePairs(pr, "1m");
-        binanceKlineService.connectMultiplePairs(pr, "5m");
-        binanceKlineService.connectMultiplePairs(pr, "10m");
+                .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 }
@@ -1,5 +1,6 @@
 package com.hydra.studios.event.ready;
 
+import com.hydra.studios.service.bet.BetService;
 import com.hydra.studios.service.system.SystemService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
@@ -12,8 +13,12 @@ public class ReadyEvent {
     @Autowired
     private SystemService systemService;
 
+    @Autowired
+    private BetService betService;
+
     @EventListener(ApplicationReadyEvent.class)
     public void onReady() {
         systemService.getSystem();
+        betService.scheduleOpenBets();
     }
 }
@@ -0,0 +1,71 @@
+package com.hydra.studios.model.account.wallet;
+
+import lombok.Getter;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Change to apply on the {@code wallet.*} fields of an account, accumulated in memory
+ * and written as a single atomic {@code $inc}.
+ */
+@Getter
+public class WalletDelta {
+
+    private double demo;
+
+    private double deposit;
+    private double balance;
+
+    private double affiliate;
+
+    private double bonus;
+
+    /**
+     * Ids of the operations (bets) behind this change. When present the ledger applies the change
+     * only once per id, so a retried settlement cannot credit the same bet twice.
+     */
+    private final Set<String> operations = new LinkedHashSet<>();
+
+    public WalletDelta addDemo(double amount) {
+        this.demo += amount;
+        return this;
+    }
+
+    public WalletDelta addDeposit(double amount) {
+        this.deposit += amount;
+        return this;
+    }
+
+    public WalletDelta addBalance(double amount) {
+        this.balance += amount;
+        return this;
+    }
+
+    public WalletDelta addAffiliate(double amount) {
+        this.affiliate += amount;
+        return this;
+    }
+
+    public WalletDelta addBonus(double amount) {
+        this.bonus += amount;
+        return this;
+    }
+
+    public WalletDelta addOperation(String operationId) {
+        this.operations.add(operationId);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return demo == 0 && deposit == 0 && balance == 0 && affiliate == 0 && bonus == 0;
+    }
+
+    public void applyTo(AccountWallet wallet) {
+        wallet.setDemo(wallet.getDemo() + demo);
+        wallet.setDeposit(wallet.getDeposit() + deposit);
+        wallet.setBalance(wallet.getBalance() + balance);
+        wallet.setAffiliate(wallet.getAffiliate() + affiliate);
+        wallet.setBonus(wallet.getBonus() + bonus);
+    }
+}
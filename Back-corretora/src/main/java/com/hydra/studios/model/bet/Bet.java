@@ -23,9 +23,16 @@ public class Bet {
     private double bet;
     private double result;
 
+    // Parte da aposta tirada do bônus e do depósito, para devolver exatamente ao anular
+    private double stakeBonus;
+    private double stakeDeposit;
+
     private double starredPrice;
     private double finishedPrice;
 
+    private long starredPriceTime;
+    private long finishedPriceTime;
+
     private BetStatus status;
 
     private long createdAt;
@@ -34,4 +41,7 @@ public class Bet {
     private boolean demo;
     private boolean finished;
 
+    // Lote de liquidação que finalizou o bet (identifica quais updates realmente casaram)
+    private String settlementId;
+
 }
@@ -3,5 +3,7 @@ package com.hydra.studios.model.bet.status;
 public enum BetStatus {
 
     LOSE,
-    WIN
+    WIN,
+    // Anulado sem preço confiável de fechamento: a aposta volta para a carteira
+    VOID
 }
@@ -3,15 +3,15 @@ package com.hydra.studios.model.klines;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
-import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.Document;
 
+/**
+ * Candle of one pair and interval. Stored through {@code KlineStore} in the time-series
+ * tiers; {@code id} is derived from the series and open time.
+ */
 @Builder
 @Getter @Setter
-@Document(collection = "klines")
 public class Kline {
 
-    @Id
     private String id;
     private String pair;
     private String interval;
@@ -21,4 +21,8 @@ public class Kline {
     private double low;
     private double close;
     private long closeTime;
+
+    public static String idOf(String pair, String interval, long openTime) {
+        return pair + "-" + interval + "-" + openTime;
+    }
 }
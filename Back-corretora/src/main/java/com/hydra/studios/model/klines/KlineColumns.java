@@ -0,0 +1,67 @@
+package com.hydra.studios.model.klines;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * A run of candles of one (pair, interval) stored column by column, in the order they
+ * were added. Used as the common input of the history response encoders.
+ */
+@Getter
+public class KlineColumns {
+
+    private final String pair;
+    private final String interval;
+
+    private long[] openTime;
+    private long[] closeTime;
+    private double[] open;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+
+    private int size;
+
+    public KlineColumns(String pair, String interval, int capacity) {
+        this.pair = pair;
+        this.interval = interval;
+
+        var initial = Math.max(1, capacity);
+        this.openTime = new long[initial];
+        this.closeTime = new long[initial];
+        this.open = new double[initial];
+        this.high = new double[initial];
+        this.low = new double[initial];
+        this.close = new double[initial];
+    }
+
+    public void add(long openTime, long closeTime, double open, double high, double low, double close) {
+        if (size == this.openTime.length) {
+            grow();
+        }
+
+        this.openTime[size] = openTime;
+        this.closeTime[size] = closeTime;
+        this.open[size] = open;
+        this.high[size] = high;
+        this.low[size] = low;
+        this.close[size] = close;
+        size++;
+    }
+
+    public void add(Kline kline) {
+        add(kline.getOpenTime(), kline.getCloseTime(), kline.getOpen(), kline.getHigh(), kline.getLow(),
+                kline.getClose());
+    }
+
+    private void grow() {
+        var length = openTime.length * 2;
+        openTime = Arrays.copyOf(openTime, length);
+        closeTime = Arrays.copyOf(closeTime, length);
+        open = Arrays.copyOf(open, length);
+        high = Arrays.copyOf(high, length);
+        low = Arrays.copyOf(low, length);
+        close = Arrays.copyOf(close, length);
+    }
+}
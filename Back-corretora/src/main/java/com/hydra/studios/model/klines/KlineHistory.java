@@ -0,0 +1,20 @@
+package com.hydra.studios.model.klines;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Rendered response body of a candle history request together with its {@code ETag}.
+ */
+@Getter
+@AllArgsConstructor
+public class KlineHistory {
+
+    private final byte[] body;
+    private final String etag;
+
+    public static KlineHistory of(byte[] body) {
+        return new KlineHistory(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+    }
+}
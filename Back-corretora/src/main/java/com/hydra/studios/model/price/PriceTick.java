@@ -0,0 +1,18 @@
+package com.hydra.studios.model.price;
+
+import lombok.*;
+
+/**
+ * Price read from the {@code PriceBook}: the last close, the exchange event time that
+ * produced it and how many updates the symbol had received at that point.
+ */
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceTick {
+
+    private double price;
+    private long eventTime;
+    private long sequence;
+
+}
@@ -4,6 +4,7 @@ import com.hydra.studios.model.account.Account;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,6 +14,7 @@ public interface AccountRepository extends MongoRepository<Account, String> {
 
     Account findByPersonalInfo_Phone(String phone);
     Account findByAffiliate_AffiliateId(String affiliateId);
+    List<Account> findAllByAffiliate_AffiliateIdIn(Collection<String> affiliateIds);
 
     List<Account> findAllByReferralCode(String referralCode);
     int countByFirstLoginBefore(long date);
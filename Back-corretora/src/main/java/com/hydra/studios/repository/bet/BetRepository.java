@@ -17,6 +17,8 @@ public interface BetRepository extends MongoRepository<Bet, String> {
 
     List<Bet> findAllByFinishInBeforeAndFinished(long finishInBefore, boolean finished);
 
+    List<Bet> findAllByFinished(boolean finished);
+
     List<Bet> findAllByAccountIdAndFinished(String accountId, boolean finished);
 
     int countByCreatedAtBefore(long createdAt);
@@ -1,11 +1,24 @@
 package com.hydra.studios.schedule;
 
+import com.hydra.studios.model.bet.Bet;
+import com.hydra.studios.model.price.PriceTick;
 import com.hydra.studios.service.bet.BetService;
-import com.hydra.studios.service.binance.BinanceKlineService;
+import com.hydra.studios.service.bet.settlement.BetSettlementService;
+import com.hydra.studios.service.binance.source.MarketClock;
+import com.hydra.studios.service.cluster.ClusterLease;
+import com.hydra.studios.service.price.PriceBook;
+import com.hydra.studios.service.price.PriceHistory;
+import com.hydra.studios.service.price.PriceStaleness;
+import com.hydra.studios.service.price.archive.TickArchive;
+import com.hydra.studios.ws.broker.BrokerStatus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+
 @Component
 public class KlineSchedule {
 
@@ -13,31 +26,146 @@ public class KlineSchedule {
     private BetService betService;
 
     @Autowired
-    private BinanceKlineService binanceKlineService;
+    private PriceBook priceBook;
+
+    @Autowired
+    private PriceHistory priceHistory;
+
+    @Autowired
+    private BetSettlementService betSettlementService;
+
+    @Autowired
+    private TickArchive tickArchive;
+
+    @Autowired
+    private PriceStaleness priceStaleness;
+
+    @Autowired
+    private ClusterLease clusterLease;
 
-    @Scheduled(fixedRate = 1000)
-    public void fetchKlines() {
-        // No longer needed to cleanup since we only keep the latest per pair in the Map
+    @Autowired
+    private MarketClock marketClock;
+
+    @Autowired
+    private BrokerStatus brokerStatus;
+
+    @Value("${bet.settlement.grace-ms:2000}")
+    private long graceMillis;
+
+    @Value("${bet.settlement.stale-wait-ms:60000}")
+    private long staleWaitMillis;
+
+    @Value("${bet.settlement.max-tick-gap-ms:5000}")
+    private long maxTickGapMillis;
+
+    @Value("${bet.settlement.retry-ms:1000}")
+    private long retryMillis;
+
+    @Value("${bet.settlement.void-after-ms:600000}")
+    private long voidAfterMillis;
+
+    @Value("${bet.expiry.sync-horizon-ms:60000}")
+    private long syncHorizonMillis;
+
+    /**
+     * In relay mode bets are created on every node but settled only by the lease owner, which
+     * pulls the bets about to expire from Mongo into its wheel.
+     */
+    @Scheduled(fixedDelayString = "${bet.expiry.sync-ms:1000}")
+    public void syncOpenBets() {
+        if (!brokerStatus.isRelay() || !clusterLease.isOwner()) {
+            return;
+        }
+
+        try {
+            var added = betService.scheduleDueBets(marketClock.now() + syncHorizonMillis);
+            if (added > 0) {
+                System.out.println("Scheduled " + added + " open bets from other nodes");
+            }
+        } catch (Exception e) {
+            System.out.println("Failed to sync open bets: " + e.getMessage());
+        }
     }
 
-    @Scheduled(fixedRate = 1000)
+    @Scheduled(fixedRateString = "${bet.expiry.tick-ms:100}")
     public void closeBets() {
-        var klines = binanceKlineService.getKlines();
-        var bets = betService.getBetsByFinishIn(System.currentTimeMillis());
+        if (!clusterLease.isOwner()) {
+            return;
+        }
+
+        var now = marketClock.now();
+        var bets = betService.getBetsByFinishIn(now);
+
+        if (bets.isEmpty()) {
+            return;
+        }
+
+        var due = new ArrayList<Bet>();
+        var voided = new ArrayList<Bet>();
+        var prices = new HashMap<String, PriceTick>();
+        var scratch = new PriceTick();
 
         for (var bet : bets) {
-            var kline = klines.get(bet.getPair());
-            if (kline == null) {
+            var index = priceBook.indexOf(bet.getPair());
+
+            // Aguarda um tick posterior ao vencimento, para que o preço em finishIn seja definitivo.
+            // Com o feed parado espera mais, dando tempo para a reconexão e o backfill
+            var latest = priceHistory.latestTime(index);
+            var wait = priceStaleness.isStale(index, scratch) ? Math.max(graceMillis, staleWaitMillis) : graceMillis;
+            if (latest < bet.getFinishIn() && now - bet.getFinishIn() < wait) {
+                betService.reschedule(bet);
                 continue;
             }
 
-            betService.closeBet(bet, kline.getValue());
-            System.out.println("Closed bet: " + bet.getId() + " with price: " + kline.getValue());
+            // Só vale um tick (ao vivo ou do backfill) próximo do vencimento; o último antes de uma queda não serve
+            var tick = new PriceTick();
+            if (!priceHistory.priceAt(index, bet.getFinishIn(), tick) || !closeTo(tick, bet)) {
+                // Fora da janela em memória (liquidação muito atrasada): busca no arquivo de ticks
+                tick = tickArchive.priceAt(bet.getPair(), bet.getFinishIn());
+                if (tick != null && !closeTo(tick, bet)) {
+                    tick = null;
+                }
+            }
+            if (tick == null) {
+                // Nunca liquida pelo preço ao vivo: segura o bet e o anula se o preço do vencimento não aparecer
+                if (now - bet.getFinishIn() >= voidAfterMillis) {
+                    voided.add(bet);
+                } else {
+                    betService.hold(bet, now + retryMillis);
+                }
+                continue;
+            }
+
+            due.add(bet);
+            prices.put(bet.getId(), tick);
+        }
+
+        if (!voided.isEmpty()) {
+            try {
+                var refunded = betSettlementService.voidBets(voided);
+                System.out.println("Voided " + refunded.size() + " bets without a closing price");
+            } catch (Exception e) {
+                System.out.println("Failed to void " + voided.size() + " bets: " + e.getMessage());
+            }
+            voided.stream().filter(bet -> !bet.isFinished()).forEach(bet -> betService.hold(bet, now + retryMillis));
         }
+
+        if (due.isEmpty()) {
+            return;
+        }
+
+        try {
+            var settled = betSettlementService.settle(due, prices);
+            System.out.println("Closed " + settled.size() + " bets in " + betSettlementService.getLastBatchMillis() + "ms");
+        } catch (Exception e) {
+            System.out.println("Failed to close " + due.size() + " bets: " + e.getMessage());
+        }
+
+        // Bets já gravados como finalizados não voltam para a fila
+        due.stream().filter(bet -> !bet.isFinished()).forEach(betService::reschedule);
     }
 
-    @Scheduled(fixedRate = 5000)
-    public void fetchKline() {
-        var list = binanceKlineService.getKlines();
+    private boolean closeTo(PriceTick tick, Bet bet) {
+        return bet.getFinishIn() - tick.getEventTime() <= maxTickGapMillis;
     }
 }
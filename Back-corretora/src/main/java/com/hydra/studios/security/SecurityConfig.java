@@ -34,7 +34,8 @@ public class SecurityConfig {
         http.csrf(AbstractHttpConfigurer::disable);
         http.cors(cors -> cors.configurationSource(corsConfigurationSource()));
         http.authorizeHttpRequests(authorization -> {
-            authorization.requestMatchers("/auth/**", "/ws", "/ws/**", "/v1/admin/info", "/v1/account/deposit/**")
+            authorization.requestMatchers("/auth/**", "/ws", "/ws/**", "/ws-native", "/v1/admin/info",
+                            "/v1/account/deposit/**")
                     .permitAll()
                     .anyRequest().authenticated();
         });
@@ -7,11 +7,19 @@ import com.hydra.studios.model.account.personal.gender.AccountPersonalGender;
 import com.hydra.studios.model.account.role.AccountRole;
 import com.hydra.studios.repository.account.AccountRepository;
 import com.hydra.studios.service.transaction.TransactionService;
+import com.hydra.studios.service.wallet.WalletLedgerService;
 import com.hydra.studios.ws.controller.AccController;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 
 @Service
@@ -20,6 +28,12 @@ public class AccountService {
     @Autowired
     private AccountRepository accountRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private WalletLedgerService walletLedgerService;
+
     public Account getAccount(String email) {
         return accountRepository.findByEmail(email);
     }
@@ -34,54 +48,83 @@ public class AccountService {
         return accountRepository.findByAffiliate_AffiliateId(affiliateId);
     }
 
+    public List<Account> getAccountsByIds(Collection<String> ids) {
+        return accountRepository.findAllById(ids);
+    }
+
+    public List<Account> getAccountsByAffiliateIds(Collection<String> affiliateIds) {
+        return accountRepository.findAllByAffiliate_AffiliateIdIn(affiliateIds);
+    }
+
     public List<Account> getAllAccountsByReferralCode(String referralCode) {
         return accountRepository.findAllByReferralCode(referralCode);
     }
 
-    public void edit(Account account, JsonObject body) {
+    /**
+     * Admin edit: writes only the fields present in the body with {@code $set} and returns the account as stored.
+     * Wallet values go through the {@link WalletLedgerService}, so the edit never replaces the whole document.
+     */
+    public Account edit(Account account, JsonObject body) {
+        var update = new Update();
+        var wallet = new LinkedHashMap<String, Double>();
+
         if (account.getAffiliate() == null) {
-            account.setAffiliate(new AccountAffiliate());
+            // Conta antiga sem afiliado: cria o subdocumento antes de setar os campos dele
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(account.getId()).and("affiliate").is(null)),
+                    new Update().set("affiliate", new AccountAffiliate()), Account.class);
         }
 
         if (body.has("phone")) {
-            account.getPersonalInfo().setPhone(body.get("phone").getAsString());
+            update.set("personalInfo.phone", body.get("phone").getAsString());
         }
         if (body.has("cpf")) {
-            account.getPersonalInfo().setCpf(body.get("cpf").getAsString());
+            update.set("personalInfo.cpf", body.get("cpf").getAsString());
         }
         if (body.has("dateOfBirth")) {
-            account.getPersonalInfo().setDateOfBirth(body.get("dateOfBirth").getAsString());
+            update.set("personalInfo.dateOfBirth", body.get("dateOfBirth").getAsString());
         }
         if (body.has("gender")) {
-            account.getPersonalInfo().setGender(AccountPersonalGender.valueOf(body.get("gender").getAsString()));
+            update.set("personalInfo.gender", AccountPersonalGender.valueOf(body.get("gender").getAsString()));
         }
         if (body.has("demo")) {
-            account.getWallet().setDemo(body.get("demo").getAsDouble());
+            wallet.put("demo", body.get("demo").getAsDouble());
         }
         if (body.has("deposit")) {
-            account.getWallet().setDeposit(body.get("deposit").getAsDouble());
+            wallet.put("deposit", body.get("deposit").getAsDouble());
         }
         if (body.has("balance")) {
-            account.getWallet().setBalance(body.get("balance").getAsDouble());
+            wallet.put("balance", body.get("balance").getAsDouble());
         }
         if (body.has("bonus")) {
-            account.getWallet().setBonus(body.get("bonus").getAsDouble());
+            wallet.put("bonus", body.get("bonus").getAsDouble());
         }
         if (body.has("cpa")) {
-            account.getAffiliate().setCpa(body.get("cpa").getAsDouble());
+            update.set("affiliate.cpa", body.get("cpa").getAsDouble());
         }
         if (body.has("revshare")) {
-            account.getAffiliate().setRevenueShare(body.get("revshare").getAsInt());
+            update.set("affiliate.revenueShare", body.get("revshare").getAsInt());
         }
         if (body.has("percentPerDeposit")) {
-            account.getAffiliate().setPercentPerDeposit(body.get("percentPerDeposit").getAsInt());
+            update.set("affiliate.percentPerDeposit", body.get("percentPerDeposit").getAsInt());
         }
         if (body.has("role")) {
-            account.setRole(AccountRole.valueOf(body.get("role").getAsString()));
+            update.set("role", AccountRole.valueOf(body.get("role").getAsString()));
         }
 
-        accountRepository.save(account);
+        if (!wallet.isEmpty()) {
+            walletLedgerService.set(account.getId(), wallet);
+        }
+        if (!update.getUpdateObject().isEmpty()) {
+            var updated = update(account.getId(), update);
+            if (updated != null) {
+                return updated;
+            }
+        }
+
+        var stored = getAccountById(account.getId());
+        return stored != null ? stored : account;
     }
+
     public void delete(Account account) {
         accountRepository.delete(account);
     }
@@ -89,4 +132,23 @@ public class AccountService {
     public void save(Account account) {
         accountRepository.save(account);
     }
+
+    /**
+     * Writes only the given fields with {@code $set}, so a concurrent wallet {@code $inc} is never overwritten.
+     */
+    public Account update(String accountId, Update update) {
+        return mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(accountId)), update,
+                FindAndModifyOptions.options().returnNew(true), Account.class);
+    }
+
+    /**
+     * Sets the affiliate id only while the account still has none and returns the account as stored.
+     */
+    public Account assignAffiliateId(String accountId, String affiliateId) {
+        var query = Query.query(Criteria.where("_id").is(accountId).and("affiliate.affiliateId").is(null));
+        var account = mongoTemplate.findAndModify(query, new Update().set("affiliate.affiliateId", affiliateId),
+                FindAndModifyOptions.options().returnNew(true), Account.class);
+
+        return account != null ? account : getAccountById(accountId);
+    }
 }
@@ -0,0 +1,154 @@
+package com.hydra.studios.service.account.mailbox;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serial mailbox per account. Commands for the same account run one at a time and in
+ * submission order, while different accounts are drained in parallel on a shared pool.
+ */
+@Component
+public class AccountMailbox {
+
+    private final ExecutorService executor;
+
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final Map<String, CommandStats> stats = new ConcurrentHashMap<>();
+
+    public AccountMailbox(@Value("${account.mailbox.threads:0}") int threads) {
+        var size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        var counter = new AtomicInteger();
+
+        this.executor = Executors.newFixedThreadPool(size, runnable -> {
+            var thread = new Thread(runnable, "account-mailbox-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void submit(String accountId, String command, Runnable task) {
+        var entry = new Command(command, task, System.nanoTime());
+
+        var mailbox = mailboxes.compute(accountId, (id, current) -> {
+            var box = current != null ? current : new Mailbox(id);
+            box.queue.add(entry);
+            box.depth.incrementAndGet();
+            return box;
+        });
+
+        if (mailbox.scheduled.compareAndSet(false, true)) {
+            executor.execute(() -> drain(mailbox));
+        }
+    }
+
+    private void drain(Mailbox mailbox) {
+        Command command;
+        while ((command = mailbox.queue.poll()) != null) {
+            mailbox.depth.decrementAndGet();
+            try {
+                command.task.run();
+            } catch (Exception e) {
+                System.out.println("Mailbox command " + command.name + " failed for account " + mailbox.accountId
+                        + ": " + e.getMessage());
+            } finally {
+                stats.computeIfAbsent(command.name, name -> new CommandStats())
+                        .record(System.nanoTime() - command.enqueuedAt);
+            }
+        }
+
+        mailbox.scheduled.set(false);
+
+        if (!mailbox.queue.isEmpty() && mailbox.scheduled.compareAndSet(false, true)) {
+            executor.execute(() -> drain(mailbox));
+            return;
+        }
+
+        // Descarta a mailbox ociosa; só remove se ainda for a instância registrada
+        mailboxes.computeIfPresent(mailbox.accountId, (id, current) ->
+                current == mailbox && current.queue.isEmpty() && !current.scheduled.get() ? null : current);
+    }
+
+    public JsonObject getStats() {
+        var json = new JsonObject();
+
+        json.addProperty("activeMailboxes", mailboxes.size());
+        json.addProperty("pendingCommands", mailboxes.values().stream().mapToInt(box -> box.depth.get()).sum());
+
+        var hot = new JsonArray();
+        mailboxes.values().stream()
+                .sorted(Comparator.comparingInt((Mailbox box) -> box.depth.get()).reversed())
+                .limit(5)
+                .forEach(box -> {
+                    var obj = new JsonObject();
+                    obj.addProperty("accountId", box.accountId);
+                    obj.addProperty("depth", box.depth.get());
+                    hot.add(obj);
+                });
+        json.add("hotAccounts", hot);
+
+        var commands = new JsonObject();
+        stats.forEach((name, stat) -> commands.add(name, stat.toJson()));
+        json.add("commands", commands);
+
+        return json;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private record Command(String name, Runnable task, long enqueuedAt) {
+    }
+
+    private static class Mailbox {
+
+        private final String accountId;
+        private final Queue<Command> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Mailbox(String accountId) {
+            this.accountId = accountId;
+        }
+    }
+
+    private static class CommandStats {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        private JsonObject toJson() {
+            var json = new JsonObject();
+            var total = count.sum();
+            json.addProperty("count", total);
+            json.addProperty("avgMillis", total > 0 ? totalNanos.sum() / total / 1_000_000.0 : 0);
+            json.addProperty("maxMillis", maxNanos.get() / 1_000_000.0);
+            return json;
+        }
+    }
+}
@@ -15,6 +15,7 @@ import com.hydra.studios.service.account.AccountService;
 import com.hydra.studios.service.activity.ActivityService;
 import com.hydra.studios.ws.controller.AccController;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -67,11 +68,10 @@ public class AuthService {
 
         var token = jwt.generateToken(userDetails.getUsername());
 
-        account.setLastLogin(System.currentTimeMillis());
+        // Só o lastLogin: salvar a conta inteira apagaria créditos e walletOperations concorrentes
+        var updated = accountService.update(account.getId(), new Update().set("lastLogin", System.currentTimeMillis()));
 
-
-        accController.publish(account.getId(), account);
-        accountService.save(account);
+        accController.publish(account.getId(), updated != null ? updated : account);
 
         return token;
     }
@@ -1,20 +1,26 @@
 package com.hydra.studios.service.bet;
 
-import com.hydra.studios.model.account.Account;
-import com.hydra.studios.model.affiliate.AffiliateLog;
-import com.hydra.studios.model.affiliate.revenue.AffiliateRevenueType;
-import com.hydra.studios.model.affiliate.type.AffiliateType;
+import com.hydra.studios.model.account.wallet.WalletDelta;
 import com.hydra.studios.model.bet.Bet;
 import com.hydra.studios.model.bet.arrow.BetArrow;
 import com.hydra.studios.model.bet.status.BetStatus;
+import com.hydra.studios.model.price.PriceTick;
 import com.hydra.studios.repository.bet.BetRepository;
-import com.hydra.studios.service.account.AccountService;
 import com.hydra.studios.service.activity.ActivityService;
-import com.hydra.studios.service.affiliate.AffiliateService;
-import com.hydra.studios.service.binance.BinanceKlineService;
+import com.hydra.studios.service.bet.expiry.BetExpiryWheel;
+import com.hydra.studios.service.binance.source.MarketClock;
+import com.hydra.studios.service.cluster.ClusterLease;
+import com.hydra.studios.service.price.PriceBook;
+import com.hydra.studios.service.price.PriceHistory;
+import com.hydra.studios.service.price.PriceStaleness;
 import com.hydra.studios.service.system.SystemService;
+import com.hydra.studios.service.wallet.WalletLedgerService;
 import com.hydra.studios.ws.controller.AccController;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -28,10 +34,13 @@ public class BetService {
     private BetRepository betRepository;
 
     @Autowired
-    private BinanceKlineService binanceKlineService;
+    private PriceBook priceBook;
 
     @Autowired
-    private AccountService accountService;
+    private PriceHistory priceHistory;
+
+    @Autowired
+    private PriceStaleness priceStaleness;
 
     @Autowired
     private AccController accController;
@@ -40,73 +49,102 @@ public class BetService {
     private SystemService systemService;
 
     @Autowired
-    private AffiliateService affiliateService;
+    private ActivityService activityService;
 
     @Autowired
-    private ActivityService activityService;
+    private BetExpiryWheel betExpiryWheel;
 
-    public Bet createBet(Account account, String pair, double amount, String interval, BetArrow betArrow,
-            boolean demo) {
-        var starredKline = binanceKlineService.getKlines().get(pair);
+    @Autowired
+    private WalletLedgerService walletLedgerService;
+
+    @Autowired
+    private ClusterLease clusterLease;
+
+    @Autowired
+    private MarketClock marketClock;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
 
-        if (starredKline == null) {
+    public Bet createBet(String accountId, String pair, double amount, String interval, BetArrow betArrow,
+            boolean demo) {
+        var starredTick = new PriceTick();
+        if (!priceBook.read(priceBook.indexOf(pair), starredTick)) {
             return null;
         }
 
+        // Horário do mercado: numa reprodução acelerada o vencimento acompanha os preços reproduzidos
+        var now = marketClock.now();
         var bet = Bet.builder()
                 .id(UUID.randomUUID().toString())
-                .accountId(account.getId())
+                .accountId(accountId)
                 .pair(pair)
                 .interval(interval)
                 .arrow(betArrow)
                 .bet(amount)
                 .result(0)
-                .starredPrice(starredKline.getValue())
-                .createdAt(System.currentTimeMillis())
+                .starredPrice(starredTick.getPrice())
+                .starredPriceTime(starredTick.getEventTime())
+                .createdAt(now)
                 .demo(demo)
                 .finished(false)
-                .finishIn(System.currentTimeMillis()
-                        + TimeUnit.MINUTES.toMillis(Integer.parseInt(interval.replace("m", ""))))
+                .finishIn(now + TimeUnit.MINUTES.toMillis(Integer.parseInt(interval.replace("m", ""))))
                 .build();
 
-        if (demo) {
-            account.getWallet().setDemo(account.getWallet().getDemo() - amount);
-        } else {
-            var restant = amount;
-
-            var bonusUsed = Math.min(restant, account.getWallet().getBonus());
-            account.getWallet().setBonus(account.getWallet().getBonus() - bonusUsed);
-            restant -= bonusUsed;
+        var taken = new WalletDelta();
+        var wallet = walletLedgerService.debitBet(accountId, amount, demo, taken);
+        if (wallet == null) {
+            return null;
+        }
+        bet.setStakeBonus(taken.getBonus());
+        bet.setStakeDeposit(taken.getDeposit());
+
+        // O bet só é anunciado depois de gravado; se a gravação falhar a aposta é devolvida
+        Bet saved;
+        try {
+            saved = betRepository.save(bet);
+        } catch (Exception e) {
+            wallet = walletLedgerService.apply(accountId, taken.addOperation(bet.getId() + ":refund"));
+            if (wallet != null) {
+                accController.publishWallet(accountId, wallet);
+            }
 
-            var depositUsed = Math.min(restant, account.getWallet().getDeposit());
-            account.getWallet().setDeposit(account.getWallet().getDeposit() - depositUsed);
-            restant -= depositUsed;
+            System.out.println("Failed to save bet " + bet.getId() + ", stake refunded: " + e.getMessage());
+            return null;
+        }
 
-            var balanceUsed = Math.min(restant, account.getWallet().getBalance());
-            account.getWallet().setBalance(account.getWallet().getBalance() - balanceUsed);
+        // Só o dono da concessão liquida; nos demais nós o bet chega à fila dele pela sincronização
+        if (clusterLease.isOwner()) {
+            betExpiryWheel.schedule(saved);
         }
 
-        activityService.createActivityLog(account.getId(), "TRADE_CREATE", "{\"pair\":\"" + pair + "\",\"amount\":"
+        activityService.createActivityLog(accountId, "TRADE_CREATE", "{\"pair\":\"" + pair + "\",\"amount\":"
                 + amount + ",\"interval\":\"" + interval + "\",\"arrow\":\"" + betArrow + "\",\"demo\":" + demo + "}");
 
-        accController.publish(account.getId(), account);
-        accountService.save(account);
-        return betRepository.save(bet);
+        accController.publishWallet(accountId, wallet);
+        return saved;
     }
 
-    public Bet closeBetCashout(String betId) {
+    public Bet closeBetCashout(String accountId, String betId) {
         var bet = betRepository.findById(betId).orElse(null);
-        if (bet == null || bet.isFinished()) {
+        if (bet == null || bet.isFinished() || !bet.getAccountId().equals(accountId)) {
             return null;
         }
 
-        var kline = binanceKlineService.getKlines().get(bet.getPair());
+        // Índice resolvido uma vez; o mesmo tick serve à checagem de atraso e ao preço
+        var index = priceBook.indexOf(bet.getPair());
+        var tick = new PriceTick();
+
+        // Sem feed ao vivo o preço de cashout seria o congelado
+        if (priceStaleness.isStale(index, tick)) {
+            return null;
+        }
 
-        if (kline == null) {
+        if (!priceHistory.priceAt(index, marketClock.now(), tick) && !priceBook.read(index, tick)) {
             return null;
         }
 
-        var closingPrice = kline.getValue();
+        var closingPrice = tick.getPrice();
         var upOrDown = closingPrice > bet.getStarredPrice() ? BetArrow.UP
                 : closingPrice < bet.getStarredPrice() ? BetArrow.DOWN : null;
 
@@ -126,7 +164,7 @@ public class BetService {
         double payout;
 
         long totalTime = bet.getFinishIn() - bet.getCreatedAt();
-        long remainingTime = bet.getFinishIn() - System.currentTimeMillis();
+        long remainingTime = bet.getFinishIn() - marketClock.now();
         double timeProgress = totalTime > 0
                 ? Math.min(1.0, Math.max(0.0, 1.0 - ((double) remainingTime / totalTime)))
                 : 1.0;
@@ -161,17 +199,20 @@ public class BetService {
 
         bet.setResult(payout);
         bet.setFinishedPrice(closingPrice);
-        bet.setFinished(true);
+        bet.setFinishedPriceTime(tick.getEventTime());
 
-        var account = accountService.getAccountById(bet.getAccountId());
-        if (bet.isDemo()) {
-            account.getWallet().setDemo(account.getWallet().getDemo() + payout);
-        } else {
-            account.getWallet().setBalance(account.getWallet().getBalance() + payout);
+        // Finaliza só se o bet ainda estiver aberto; vale em qualquer nó, esteja o bet na fila local ou não
+        if (!finishOpenBet(bet)) {
+            return null;
         }
+        bet.setFinished(true);
+        betExpiryWheel.cancel(betId);
 
-        accountService.save(account);
-        accController.publish(account.getId(), account);
+        var delta = bet.isDemo() ? new WalletDelta().addDemo(payout) : new WalletDelta().addBalance(payout);
+        var wallet = walletLedgerService.apply(bet.getAccountId(), delta.addOperation(bet.getId()));
+        if (wallet != null) {
+            accController.publishWallet(bet.getAccountId(), wallet);
+        }
 
         // Publica o resultado do bet manualmente (Gson nao serializa campos Lombok no
         // Java 9+)
@@ -187,159 +228,76 @@ public class BetService {
         betJson.addProperty("status", bet.getStatus() != null ? bet.getStatus().name() : "");
         betJson.addProperty("finished", bet.isFinished());
         betJson.addProperty("profit", payout - bet.getBet()); // Lucro real (payout - investimento)
-        accController.publishBet(account.getId(), betJson.toString());
+        accController.publishBet(bet.getAccountId(), betJson.toString());
 
-        activityService.createActivityLog(account.getId(), "TRADE_CASHOUT",
+        activityService.createActivityLog(bet.getAccountId(), "TRADE_CASHOUT",
                 "{\"pair\":\"" + bet.getPair() + "\",\"amount\":" + bet.getBet() + ",\"payout\":" + payout
                         + ",\"status\":\"" + bet.getStatus() + "\"}");
 
-        return betRepository.save(bet);
+        return bet;
     }
 
-    public Bet closeBet(Bet bet, double closingPrice) {
-        if (bet.getStatus() != null) {
-            return null;
-        }
+    private boolean finishOpenBet(Bet bet) {
+        var result = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(bet.getId()).and("finished").is(false)),
+                new Update()
+                        .set("status", bet.getStatus())
+                        .set("result", bet.getResult())
+                        .set("finishedPrice", bet.getFinishedPrice())
+                        .set("finishedPriceTime", bet.getFinishedPriceTime())
+                        .set("finished", true),
+                Bet.class);
+        return result.getModifiedCount() > 0;
+    }
 
-        var config = systemService.getSystem();
-        double winPercent = config != null ? config.getWinPercent() : 0;
-        if (winPercent <= 0) winPercent = 80;
+    public List<Bet> getBetsByAccountIdAndNotFinished(String accountId) {
+        return betRepository.findAllByAccountIdAndFinished(accountId, false);
+    }
 
-        bet.setFinishedPrice(closingPrice);
+    public List<Bet> getBetsByAccountId(String accountId) {
+        return betRepository.findALlByAccountId(accountId);
+    }
 
-        var account = accountService.getAccountById(bet.getAccountId());
+    public List<Bet> getBetsByFinishIn(long timestamp) {
+        return betExpiryWheel.pollDue(timestamp);
+    }
 
-        var upOrDown = closingPrice > bet.getStarredPrice() ? BetArrow.UP
-                : closingPrice < bet.getStarredPrice() ? BetArrow.DOWN : null;
+    public void reschedule(Bet bet) {
+        betExpiryWheel.schedule(bet);
+    }
 
-        if (upOrDown == null) {
-            bet.setStatus(BetStatus.LOSE);
-        }
+    /**
+     * Keeps a due bet out of settlement until {@code retryAt}, without touching its {@code finishIn}.
+     */
+    public void hold(Bet bet, long retryAt) {
+        betExpiryWheel.schedule(bet, retryAt);
+    }
 
-        if (upOrDown == BetArrow.UP && bet.getArrow() == BetArrow.UP) {
-            bet.setStatus(BetStatus.WIN);
-            bet.setResult(bet.getBet() + (bet.getBet() * (winPercent / 100)));
-        } else if (upOrDown == BetArrow.DOWN && bet.getArrow() == BetArrow.DOWN) {
-            bet.setStatus(BetStatus.WIN);
-            bet.setResult(bet.getBet() + (bet.getBet() * (winPercent / 100)));
-        } else {
-            bet.setStatus(BetStatus.LOSE);
+    public void scheduleOpenBets() {
+        if (!clusterLease.isOwner()) {
+            System.out.println("Open bets are settled by the cluster lease owner, expiry wheel left empty.");
+            return;
         }
 
-        bet.setFinished(true);
+        var bets = betRepository.findAllByFinished(false);
+        bets.forEach(betExpiryWheel::schedule);
 
-        if (bet.getStatus() == BetStatus.WIN) {
-            if (bet.isDemo()) {
-                account.getWallet().setDemo(account.getWallet().getDemo() + bet.getResult());
-            } else {
-                account.getWallet().setBalance(account.getWallet().getBalance() + bet.getResult());
-            }
-            accController.publish(account.getId(), account);
-            accountService.save(account);
-        }
+        System.out.println("Loaded " + bets.size() + " open bets into the expiry wheel.");
+    }
 
-        if (bet.getStatus() == BetStatus.LOSE && !bet.isDemo()) {
-            if (account.getReferralCode() != null && !account.getReferralCode().isEmpty()) {
-                var aff = accountService.getAccountByAffiliateId(account.getReferralCode());
-                if (aff != null && aff.getAffiliate() != null && aff.getWallet() != null) {
-                    var revenue = bet.getBet() * ((double) aff.getAffiliate().getRevenueShare() / 100);
-                    aff.getWallet().setAffiliate(aff.getWallet().getAffiliate() + revenue);
-
-                    var affLog = AffiliateLog.builder().id(UUID.randomUUID().toString()).affiliateId(aff.getId())
-                            .userId(account.getId()).userName(account.getFirstName() + " " + account.getLastName())
-                            .affiliateType(AffiliateType.LOSS).revenueType(AffiliateRevenueType.REVSHARE)
-                            .amountBase(bet.getBet()).totalWin(revenue).operationId(bet.getId())
-                            .createdAt(System.currentTimeMillis()).build();
-
-                    affiliateService.create(affLog);
-
-                    if (aff.getReferralCode() != null && !aff.getReferralCode().isEmpty()) {
-                        var superAff = accountService.getAccountByAffiliateId(aff.getReferralCode());
-                        if (superAff != null) {
-                            var superRevenue = revenue * ((double) 8 / 100);
-                            superAff.getWallet().setAffiliate(superAff.getWallet().getAffiliate() + superRevenue);
-
-                            var superAffLog = AffiliateLog.builder().id(UUID.randomUUID().toString())
-                                    .affiliateId(superAff.getId()).userId(account.getId())
-                                    .userName(account.getFirstName() + " " + account.getLastName())
-                                    .affiliateType(AffiliateType.LOSS).revenueType(AffiliateRevenueType.SUB_AFFILIATE)
-                                    .amountBase(bet.getBet()).totalWin(superRevenue).operationId(bet.getId())
-                                    .createdAt(System.currentTimeMillis()).build();
-
-                            affiliateService.create(superAffLog);
-                            accController.publish(superAff.getId(), superAff);
-                            accountService.save(superAff);
-                        }
-                    }
-
-                    accController.publish(aff.getId(), aff);
-                    accountService.save(aff);
-                }
-            }
-        }
-        if (bet.getStatus() == BetStatus.WIN && !bet.isDemo()) {
-            if (account.getReferralCode() != null && !account.getReferralCode().isEmpty()) {
-                var aff = accountService.getAccountByAffiliateId(account.getReferralCode());
-                if (aff != null && aff.getAffiliate() != null && aff.getWallet() != null) {
-                    var revenue = bet.getBet();
-
-                    aff.getWallet().setAffiliate(aff.getWallet().getAffiliate() - revenue);
-
-                    var affLog = AffiliateLog.builder()
-                            .id(UUID.randomUUID().toString())
-                            .affiliateId(aff.getId())
-                            .userId(account.getId())
-                            .userName(account.getFirstName() + " " + account.getLastName())
-                            .affiliateType(AffiliateType.WIN)
-                            .revenueType(AffiliateRevenueType.REVSHARE)
-                            .amountBase(bet.getBet())
-                            .totalWin(-revenue)
-                            .operationId(bet.getId())
-                            .createdAt(System.currentTimeMillis())
-                            .build();
-
-                    affiliateService.create(affLog);
-                    accController.publish(aff.getId(), aff);
-                    accountService.save(aff);
-                }
+    /**
+     * Adds to the wheel the open bets due before {@code until} that it does not hold yet, such as
+     * bets created on other nodes. Bets already in the wheel keep their schedule.
+     *
+     * @return how many bets were added
+     */
+    public int scheduleDueBets(long until) {
+        var added = 0;
+        for (var bet : betRepository.findAllByFinishInBeforeAndFinished(until, false)) {
+            if (betExpiryWheel.scheduleIfAbsent(bet)) {
+                added++;
             }
         }
-
-        // Publica o resultado do bet manualmente (Gson pode falhar em serializar campos
-        // Lombok)
-        var betResultJson = new com.google.gson.JsonObject();
-        betResultJson.addProperty("id", bet.getId());
-        betResultJson.addProperty("pair", bet.getPair());
-        betResultJson.addProperty("interval", bet.getInterval());
-        betResultJson.addProperty("arrow", bet.getArrow() != null ? bet.getArrow().name() : "");
-        betResultJson.addProperty("bet", bet.getBet());
-        betResultJson.addProperty("result", bet.getResult());
-        betResultJson.addProperty("starredPrice", bet.getStarredPrice());
-        betResultJson.addProperty("finishedPrice", bet.getFinishedPrice());
-        betResultJson.addProperty("status", bet.getStatus() != null ? bet.getStatus().name() : "");
-        betResultJson.addProperty("finished", bet.isFinished());
-        betResultJson.addProperty("profit", (bet.getResult() != 0 ? bet.getResult() : 0.0) - bet.getBet()); // Lucro
-                                                                                                            // real
-        accController.publishBet(account.getId(), betResultJson.toString());
-
-        activityService.createActivityLog(account.getId(), "TRADE_CLOSE",
-                "{\"pair\":\"" + bet.getPair() + "\",\"amount\":" + bet.getBet() + ",\"interval\":\""
-                        + bet.getInterval() + "\",\"arrow\":\"" + bet.getArrow() + "\",\"demo\":" + bet.isDemo()
-                        + ",\"status\":\"" + bet.getStatus() + "\",\"result\":" + bet.getResult() + ",\"starredPrice\":"
-                        + bet.getStarredPrice() + ",\"finishedPrice\":" + bet.getFinishedPrice() + "}");
-
-        return betRepository.save(bet);
-    }
-
-    public List<Bet> getBetsByAccountIdAndNotFinished(String accountId) {
-        return betRepository.findAllByAccountIdAndFinished(accountId, false);
-    }
-
-    public List<Bet> getBetsByAccountId(String accountId) {
-        return betRepository.findALlByAccountId(accountId);
-    }
-
-    public List<Bet> getBetsByFinishIn(long timestamp) {
-        return betRepository.findAllByFinishInBeforeAndFinished(timestamp, false);
+        return added;
     }
 }
@@ -0,0 +1,123 @@
+package com.hydra.studios.service.bet.expiry;
+
+import com.hydra.studios.model.bet.Bet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-memory index of open bets bucketed by their {@code finishIn}, so settlement
+ * only touches the bets that are actually due instead of querying Mongo every tick.
+ */
+@Component
+public class BetExpiryWheel {
+
+    private final long tickMillis;
+
+    private final TreeMap<Long, Map<String, Bet>> buckets = new TreeMap<>();
+    // Horário em que cada bet sai da fila: o finishIn ou o de uma nova tentativa
+    private final Map<String, Long> index = new HashMap<>();
+
+    public BetExpiryWheel(@Value("${bet.expiry.tick-ms:100}") long tickMillis) {
+        this.tickMillis = Math.max(1, tickMillis);
+    }
+
+    public void schedule(Bet bet) {
+        schedule(bet, bet.getFinishIn());
+    }
+
+    /**
+     * Schedules the bet to be polled at {@code dueAt} instead of its {@code finishIn}; used to retry
+     * bets that are already past due.
+     */
+    public synchronized void schedule(Bet bet, long dueAt) {
+        cancel(bet.getId());
+
+        var due = Math.max(dueAt, bet.getFinishIn());
+        buckets.computeIfAbsent(bucketOf(due), k -> new LinkedHashMap<>()).put(bet.getId(), bet);
+        index.put(bet.getId(), due);
+    }
+
+    /**
+     * Schedules the bet only if the wheel does not hold it yet.
+     *
+     * @return {@code false} when the bet was already scheduled
+     */
+    public synchronized boolean scheduleIfAbsent(Bet bet) {
+        if (index.containsKey(bet.getId())) {
+            return false;
+        }
+
+        schedule(bet, bet.getFinishIn());
+        return true;
+    }
+
+    public synchronized boolean cancel(String betId) {
+        var due = index.remove(betId);
+        if (due == null) {
+            return false;
+        }
+
+        var bucket = bucketOf(due);
+        var bets = buckets.get(bucket);
+        if (bets != null) {
+            bets.remove(betId);
+            if (bets.isEmpty()) {
+                buckets.remove(bucket);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes and returns every bet whose due time ({@code finishIn}, or the retry time it was
+     * held until) is at or before {@code now}.
+     */
+    public synchronized List<Bet> pollDue(long now) {
+        var due = new ArrayList<Bet>();
+        var current = bucketOf(now);
+
+        while (!buckets.isEmpty() && buckets.firstKey() <= current) {
+            var bucket = buckets.firstKey();
+            var bets = buckets.get(bucket);
+
+            if (bucket < current) {
+                buckets.pollFirstEntry();
+                due.addAll(bets.values());
+                bets.keySet().forEach(index::remove);
+                continue;
+            }
+
+            // Bucket atual: apenas os bets que já venceram, inclusive os segurados para nova tentativa
+            var iterator = bets.values().iterator();
+            while (iterator.hasNext()) {
+                var bet = iterator.next();
+                if (index.get(bet.getId()) <= now) {
+                    iterator.remove();
+                    index.remove(bet.getId());
+                    due.add(bet);
+                }
+            }
+            if (bets.isEmpty()) {
+                buckets.remove(bucket);
+            }
+            break;
+        }
+
+        return due;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    private long bucketOf(long timestamp) {
+        return Math.floorDiv(timestamp, tickMillis);
+    }
+}
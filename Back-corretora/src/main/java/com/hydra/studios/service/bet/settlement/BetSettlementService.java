@@ -0,0 +1,522 @@
+package com.hydra.studios.service.bet.settlement;
+
+import com.google.gson.JsonObject;
+import com.hydra.studios.model.account.Account;
+import com.hydra.studios.model.account.wallet.AccountWallet;
+import com.hydra.studios.model.account.wallet.WalletDelta;
+import com.hydra.studios.model.activity.ActivityLog;
+import com.hydra.studios.model.activity.type.ActivityLogType;
+import com.hydra.studios.model.affiliate.AffiliateLog;
+import com.hydra.studios.model.affiliate.revenue.AffiliateRevenueType;
+import com.hydra.studios.model.affiliate.type.AffiliateType;
+import com.hydra.studios.model.bet.Bet;
+import com.hydra.studios.model.bet.arrow.BetArrow;
+import com.hydra.studios.model.bet.status.BetStatus;
+import com.hydra.studios.model.price.PriceTick;
+import com.hydra.studios.service.account.AccountService;
+import com.hydra.studios.service.system.SystemService;
+import com.hydra.studios.service.wallet.WalletLedgerService;
+import com.hydra.studios.ws.controller.AccController;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Settles every bet due in a tick as one batch: accounts are loaded with a single
+ * {@code $in} query, bets are finished with one guarded bulk write and only the bets
+ * that write actually finished are credited, once per bet id.
+ */
+@Service
+public class BetSettlementService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private SystemService systemService;
+
+    @Autowired
+    private WalletLedgerService walletLedgerService;
+
+    @Autowired
+    private AccController accController;
+
+    private final AtomicLong window = new AtomicLong();
+
+    @Getter
+    private final AtomicLong settledTotal = new AtomicLong();
+
+    @Getter
+    private volatile long betsPerSecond;
+
+    @Getter
+    private volatile int lastBatchSize;
+
+    @Getter
+    private volatile long lastBatchMillis;
+
+    private final Queue<Map.Entry<String, WalletDelta>> pendingCredits = new ConcurrentLinkedQueue<>();
+
+    // Lotes cujo resultado da escrita não pôde ser lido de volta
+    private final Queue<Unconfirmed> unconfirmed = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param bets   bets due in this tick
+     * @param prices closing price tick per bet id
+     * @return the bets settled by this call; due bets left unfinished (account not found) must be rescheduled
+     */
+    public List<Bet> settle(List<Bet> bets, Map<String, PriceTick> prices) {
+        var start = System.currentTimeMillis();
+
+        var pending = bets.stream()
+                .filter(bet -> !bet.isFinished() && prices.containsKey(bet.getId()))
+                .toList();
+        if (pending.isEmpty()) {
+            return pending;
+        }
+
+        var config = systemService.getSystem();
+        double winPercent = config != null ? config.getWinPercent() : 0;
+        if (winPercent <= 0) winPercent = 80;
+
+        var accounts = new HashMap<String, Account>();
+        accountService.getAccountsByIds(pending.stream().map(Bet::getAccountId).collect(Collectors.toSet()))
+                .forEach(acc -> accounts.put(acc.getId(), acc));
+
+        var affiliates = loadAffiliates(pending, accounts);
+
+        var resolved = new ArrayList<Bet>();
+        for (var bet : pending) {
+            // Sem a conta o bet fica em aberto e o chamador o reagenda
+            if (!accounts.containsKey(bet.getAccountId())) {
+                continue;
+            }
+
+            resolve(bet, prices.get(bet.getId()), winPercent);
+            resolved.add(bet);
+        }
+
+        // Só credita os bets cujo update condicional casou; os demais já foram liquidados em outro lugar
+        var settlementId = UUID.randomUUID().toString();
+        resolved.forEach(bet -> bet.setFinished(true));
+
+        var matched = finish(resolved, settlementId, ids -> pay(resolved, ids, accounts, affiliates, start));
+        return matched != null ? pay(resolved, matched, accounts, affiliates, start) : List.of();
+    }
+
+    private List<Bet> pay(List<Bet> resolved, Set<String> matched, Map<String, Account> accounts,
+            Map<String, Account> affiliates, long start) {
+        var deltas = new LinkedHashMap<String, WalletDelta>();
+        var affiliateLogs = new ArrayList<AffiliateLog>();
+        var activityLogs = new ArrayList<ActivityLog>();
+        var settled = new ArrayList<Bet>();
+
+        for (var bet : resolved) {
+            if (!matched.contains(bet.getId())) {
+                continue;
+            }
+
+            var account = accounts.get(bet.getAccountId());
+            settled.add(bet);
+
+            if (bet.getStatus() == BetStatus.WIN) {
+                var delta = deltas.computeIfAbsent(account.getId(), id -> new WalletDelta()).addOperation(bet.getId());
+                if (bet.isDemo()) {
+                    delta.addDemo(bet.getResult());
+                } else {
+                    delta.addBalance(bet.getResult());
+                }
+            }
+
+            if (!bet.isDemo()) {
+                applyAffiliate(bet, account, affiliates, deltas, affiliateLogs);
+            }
+
+            activityLogs.add(closeLog(bet));
+        }
+
+        // Daqui em diante os bets já estão gravados: falhas não podem devolvê-los à fila
+        var wallets = credit(deltas);
+        insertLogs(affiliateLogs, activityLogs);
+
+        wallets.forEach(accController::publishWallet);
+
+        for (var bet : settled) {
+            accController.publishBet(bet.getAccountId(), resultJson(bet).toString());
+        }
+
+        settledTotal.addAndGet(settled.size());
+        window.addAndGet(settled.size());
+        lastBatchSize = settled.size();
+        lastBatchMillis = System.currentTimeMillis() - start;
+
+        return settled;
+    }
+
+    /**
+     * Voids bets that have no trustworthy closing price: each bet is finished as {@link BetStatus#VOID}
+     * and its stake goes back to the wallet fields it was taken from.
+     *
+     * @return the bets voided by this call
+     */
+    public List<Bet> voidBets(List<Bet> bets) {
+        var pending = bets.stream().filter(bet -> !bet.isFinished()).toList();
+        if (pending.isEmpty()) {
+            return pending;
+        }
+
+        for (var bet : pending) {
+            bet.setStatus(BetStatus.VOID);
+            bet.setResult(bet.getBet());
+            bet.setFinishedPrice(bet.getStarredPrice());
+            bet.setFinishedPriceTime(0);
+        }
+
+        var settlementId = UUID.randomUUID().toString();
+        pending.forEach(bet -> bet.setFinished(true));
+
+        var matched = finish(pending, settlementId, ids -> refund(pending, ids));
+        return matched != null ? refund(pending, matched) : List.of();
+    }
+
+    private List<Bet> refund(List<Bet> pending, Set<String> matched) {
+        var deltas = new LinkedHashMap<String, WalletDelta>();
+        var activityLogs = new ArrayList<ActivityLog>();
+        var voided = new ArrayList<Bet>();
+
+        for (var bet : pending) {
+            if (!matched.contains(bet.getId())) {
+                continue;
+            }
+
+            voided.add(bet);
+            var delta = deltas.computeIfAbsent(bet.getAccountId(), id -> new WalletDelta()).addOperation(bet.getId());
+            if (bet.isDemo()) {
+                delta.addDemo(bet.getBet());
+            } else {
+                delta.addBonus(bet.getStakeBonus()).addDeposit(bet.getStakeDeposit())
+                        .addBalance(bet.getBet() - bet.getStakeBonus() - bet.getStakeDeposit());
+            }
+            activityLogs.add(closeLog(bet));
+        }
+
+        var wallets = credit(deltas);
+        insertLogs(List.of(), activityLogs);
+
+        wallets.forEach(accController::publishWallet);
+
+        for (var bet : voided) {
+            accController.publishBet(bet.getAccountId(), resultJson(bet).toString());
+        }
+
+        return voided;
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void rollThroughput() {
+        betsPerSecond = window.getAndSet(0);
+    }
+
+    /**
+     * Retries wallet credits that failed after their bets were already finished. Credits carry the
+     * bet ids, so a retry of a credit that did land is a no-op.
+     */
+    @Scheduled(fixedDelayString = "${bet.settlement.credit-retry-ms:1000}")
+    public void retryCredits() {
+        for (int i = pendingCredits.size(); i > 0; i--) {
+            var credit = pendingCredits.poll();
+            if (credit == null) {
+                return;
+            }
+
+            try {
+                var wallet = walletLedgerService.apply(credit.getKey(), credit.getValue());
+                if (wallet != null) {
+                    accController.publishWallet(credit.getKey(), wallet);
+                }
+            } catch (Exception e) {
+                pendingCredits.add(credit);
+                System.out.println("Failed to retry wallet credit for " + credit.getKey() + ": " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Pays the batches whose finishing write had an unknown outcome: the bets tagged with the batch
+     * settlement id were finished and are credited now; untagged ones are still open and get picked up again.
+     */
+    @Scheduled(fixedDelayString = "${bet.settlement.credit-retry-ms:1000}")
+    public void retryUnconfirmed() {
+        for (int i = unconfirmed.size(); i > 0; i--) {
+            var batch = unconfirmed.poll();
+            if (batch == null) {
+                return;
+            }
+
+            try {
+                batch.pay().accept(tagged(batch.settlementId()));
+            } catch (Exception e) {
+                unconfirmed.add(batch);
+                System.out.println("Failed to confirm settlement " + batch.settlementId() + ": " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    public int getPendingCredits() {
+        return pendingCredits.size();
+    }
+
+    public int getUnconfirmedBatches() {
+        return unconfirmed.size();
+    }
+
+    private void resolve(Bet bet, PriceTick tick, double winPercent) {
+        var closingPrice = tick.getPrice();
+        bet.setFinishedPrice(closingPrice);
+        bet.setFinishedPriceTime(tick.getEventTime());
+
+        var upOrDown = closingPrice > bet.getStarredPrice() ? BetArrow.UP
+                : closingPrice < bet.getStarredPrice() ? BetArrow.DOWN : null;
+
+        if (upOrDown != null && upOrDown == bet.getArrow()) {
+            bet.setStatus(BetStatus.WIN);
+            bet.setResult(bet.getBet() + (bet.getBet() * (winPercent / 100)));
+        } else {
+            bet.setStatus(BetStatus.LOSE);
+            bet.setResult(0);
+        }
+    }
+
+    /**
+     * Loads the affiliates and sub-affiliates of the accounts in this batch, keyed by affiliate id.
+     * Accounts already loaded are reused so every wallet change lands on the same instance.
+     */
+    private Map<String, Account> loadAffiliates(List<Bet> bets, Map<String, Account> accounts) {
+        var byAffiliateId = new HashMap<String, Account>();
+
+        var codes = bets.stream().filter(bet -> !bet.isDemo())
+                .map(bet -> accounts.get(bet.getAccountId()))
+                .filter(acc -> acc != null && acc.getReferralCode() != null && !acc.getReferralCode().isEmpty())
+                .map(Account::getReferralCode)
+                .collect(Collectors.toSet());
+
+        for (var depth = 0; depth < 2 && !codes.isEmpty(); depth++) {
+            for (var aff : accountService.getAccountsByAffiliateIds(codes)) {
+                var shared = accounts.computeIfAbsent(aff.getId(), id -> aff);
+                if (shared.getAffiliate() != null) {
+                    byAffiliateId.put(shared.getAffiliate().getAffiliateId(), shared);
+                }
+            }
+
+            codes = codes.stream().map(byAffiliateId::get)
+                    .filter(aff -> aff != null && aff.getReferralCode() != null && !aff.getReferralCode().isEmpty())
+                    .map(Account::getReferralCode)
+                    .filter(code -> !byAffiliateId.containsKey(code))
+                    .collect(Collectors.toSet());
+        }
+
+        return byAffiliateId;
+    }
+
+    private void applyAffiliate(Bet bet, Account account, Map<String, Account> affiliates,
+            Map<String, WalletDelta> deltas, List<AffiliateLog> logs) {
+        if (account.getReferralCode() == null || account.getReferralCode().isEmpty()) {
+            return;
+        }
+
+        var aff = affiliates.get(account.getReferralCode());
+        if (aff == null || aff.getAffiliate() == null || aff.getWallet() == null) {
+            return;
+        }
+
+        var userName = account.getFirstName() + " " + account.getLastName();
+
+        if (bet.getStatus() == BetStatus.WIN) {
+            var revenue = bet.getBet();
+            deltas.computeIfAbsent(aff.getId(), id -> new WalletDelta()).addAffiliate(-revenue)
+                    .addOperation(bet.getId());
+
+            logs.add(affiliateLog(aff, account, userName, bet, AffiliateType.WIN, AffiliateRevenueType.REVSHARE,
+                    -revenue));
+            return;
+        }
+
+        var revenue = bet.getBet() * ((double) aff.getAffiliate().getRevenueShare() / 100);
+        deltas.computeIfAbsent(aff.getId(), id -> new WalletDelta()).addAffiliate(revenue)
+                .addOperation(bet.getId());
+
+        logs.add(affiliateLog(aff, account, userName, bet, AffiliateType.LOSS, AffiliateRevenueType.REVSHARE,
+                revenue));
+
+        if (aff.getReferralCode() != null && !aff.getReferralCode().isEmpty()) {
+            var superAff = affiliates.get(aff.getReferralCode());
+            if (superAff != null) {
+                var superRevenue = revenue * ((double) 8 / 100);
+                deltas.computeIfAbsent(superAff.getId(), id -> new WalletDelta()).addAffiliate(superRevenue)
+                        .addOperation(bet.getId());
+
+                logs.add(affiliateLog(superAff, account, userName, bet, AffiliateType.LOSS,
+                        AffiliateRevenueType.SUB_AFFILIATE, superRevenue));
+            }
+        }
+    }
+
+    private AffiliateLog affiliateLog(Account aff, Account account, String userName, Bet bet, AffiliateType type,
+            AffiliateRevenueType revenueType, double totalWin) {
+        return AffiliateLog.builder()
+                .id(UUID.randomUUID().toString())
+                .affiliateId(aff.getId())
+                .userId(account.getId())
+                .userName(userName)
+                .affiliateType(type)
+                .revenueType(revenueType)
+                .amountBase(bet.getBet())
+                .totalWin(totalWin)
+                .operationId(bet.getId())
+                .createdAt(System.currentTimeMillis())
+                .build();
+    }
+
+    /**
+     * Finishes the bets with one unordered bulk write guarded by {@code finished: false}, tagging
+     * them with {@code settlementId}, and returns the ids whose update actually matched.
+     * <p>
+     * A failed or partial write may still have finished some bets, so the ids are always read back by
+     * the tag. When even that read fails the batch is queued and {@code pay} runs later on the tagged ids;
+     * {@code null} is returned and nothing must be paid now.
+     */
+    private Set<String> finish(List<Bet> bets, String settlementId, Consumer<Set<String>> pay) {
+        if (bets.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        var ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Bet.class);
+        for (var bet : bets) {
+            ops.updateOne(Query.query(Criteria.where("_id").is(bet.getId()).and("finished").is(false)),
+                    new Update()
+                            .set("status", bet.getStatus())
+                            .set("result", bet.getResult())
+                            .set("finishedPrice", bet.getFinishedPrice())
+                            .set("finishedPriceTime", bet.getFinishedPriceTime())
+                            .set("settlementId", settlementId)
+                            .set("finished", true));
+        }
+
+        try {
+            ops.execute();
+        } catch (BulkOperationException e) {
+            // Escrita parcial: os bets que já receberam o settlementId precisam ser pagos mesmo assim
+            System.out.println("Partial settlement " + settlementId + ": " + e.getErrors().size() + " of "
+                    + bets.size() + " bets not written");
+        } catch (Exception e) {
+            System.out.println("Settlement " + settlementId + " write failed, checking what landed: " + e.getMessage());
+        }
+
+        try {
+            return tagged(settlementId);
+        } catch (Exception e) {
+            unconfirmed.add(new Unconfirmed(settlementId, pay));
+            System.out.println("Settlement " + settlementId + " unconfirmed, paying later: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Set<String> tagged(String settlementId) {
+        var query = Query.query(Criteria.where("settlementId").is(settlementId));
+        query.fields().include("_id");
+
+        var ids = new HashSet<String>();
+        mongoTemplate.find(query, Bet.class).forEach(bet -> ids.add(bet.getId()));
+        return ids;
+    }
+
+    private Map<String, AccountWallet> credit(Map<String, WalletDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return Map.of();
+        }
+
+        try {
+            return walletLedgerService.applyAll(deltas);
+        } catch (Exception e) {
+            System.out.println("Failed to credit " + deltas.size() + " wallets, retrying later: " + e.getMessage());
+            pendingCredits.addAll(deltas.entrySet());
+            return Map.of();
+        }
+    }
+
+    private void insertLogs(List<AffiliateLog> affiliateLogs, List<ActivityLog> activityLogs) {
+        try {
+            if (!affiliateLogs.isEmpty()) {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AffiliateLog.class)
+                        .insert(affiliateLogs).execute();
+            }
+
+            if (!activityLogs.isEmpty()) {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ActivityLog.class)
+                        .insert(activityLogs).execute();
+            }
+        } catch (Exception e) {
+            System.out.println("Failed to write settlement logs: " + e.getMessage());
+        }
+    }
+
+    private ActivityLog closeLog(Bet bet) {
+        return ActivityLog.builder()
+                .accountId(bet.getAccountId())
+                .type(ActivityLogType.TRADE_CLOSE)
+                .body("{\"pair\":\"" + bet.getPair() + "\",\"amount\":" + bet.getBet() + ",\"interval\":\""
+                        + bet.getInterval() + "\",\"arrow\":\"" + bet.getArrow() + "\",\"demo\":" + bet.isDemo()
+                        + ",\"status\":\"" + bet.getStatus() + "\",\"result\":" + bet.getResult()
+                        + ",\"starredPrice\":" + bet.getStarredPrice() + ",\"finishedPrice\":"
+                        + bet.getFinishedPrice() + ",\"finishedPriceTime\":" + bet.getFinishedPriceTime() + "}")
+                .occurredAt(System.currentTimeMillis())
+                .build();
+    }
+
+    private JsonObject resultJson(Bet bet) {
+        // Publica o resultado do bet manualmente (Gson pode falhar em serializar campos
+        // Lombok)
+        var json = new JsonObject();
+        json.addProperty("id", bet.getId());
+        json.addProperty("pair", bet.getPair());
+        json.addProperty("interval", bet.getInterval());
+        json.addProperty("arrow", bet.getArrow() != null ? bet.getArrow().name() : "");
+        json.addProperty("bet", bet.getBet());
+        json.addProperty("result", bet.getResult());
+        json.addProperty("starredPrice", bet.getStarredPrice());
+        json.addProperty("finishedPrice", bet.getFinishedPrice());
+        json.addProperty("status", bet.getStatus() != null ? bet.getStatus().name() : "");
+        json.addProperty("finished", bet.isFinished());
+        json.addProperty("profit", bet.getResult() - bet.getBet()); // Lucro real
+        return json;
+    }
+
+    private record Unconfirmed(String settlementId, Consumer<Set<String>> pay) {
+    }
+}
@@ -1,77 +1,539 @@
 package com.hydra.studios.service.binance;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import com.hydra.studios.model.exchange.kline.Kline;
-import com.hydra.studios.repository.klines.KlineRepository;
-import com.hydra.studios.ws.controller.KlineController;
-import lombok.Getter;
+import com.hydra.studios.service.binance.source.FrameRecorder;
+import com.hydra.studios.service.binance.source.MarketDataIngest;
+import com.hydra.studios.service.binance.source.MarketDataSource;
+import com.hydra.studios.service.binance.stream.KlineAggregator;
+import com.hydra.studios.service.binance.stream.KlineFrame;
+import com.hydra.studios.service.binance.stream.KlineFrameDecoder;
+import jakarta.annotation.PreDestroy;
 import okhttp3.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Live market data from the Binance combined kline stream.
+ * <p>
+ * Pairs are spread over several sockets of at most {@code binance.ws.streams-per-socket}
+ * streams each, so the URL and per-connection stream limits are never hit and a slow socket
+ * only delays its own pairs. Each socket has its own OkHttp reader thread. Pairs added or
+ * removed later are sent as {@code SUBSCRIBE}/{@code UNSUBSCRIBE} requests on the open socket
+ * instead of reconnecting.
+ * <p>
+ * Every connection is supervised: OkHttp pings the server to detect dead sockets, a watchdog
+ * cancels sockets that stopped delivering frames, and closed or failed sockets reconnect with
+ * exponential backoff. After a reconnect the candles missed while offline are fetched over REST
+ * and ingested before the first live frame, so price history and aggregates have no holes.
+ */
 @Service
-public class BinanceKlineService {
+@ConditionalOnProperty(name = "market.source", havingValue = "binance", matchIfMissing = true)
+public class BinanceKlineService implements MarketDataSource {
 
-    private final KlineController klineController;
-    private final OkHttpClient client = new OkHttpClient();
+    private static final String STREAM_URL = "wss://stream.binance.com:9443/stream?streams=";
+    private static final String KLINES_URL = "https://api.binance.com/api/v3/klines";
+    private static final String INTERVAL = KlineAggregator.BASE_INTERVAL;
+
+    private final OkHttpClient client;
+
+    @Autowired
+    private MarketDataIngest marketDataIngest;
 
     @Autowired
-    private KlineRepository klineRepository;
+    private FrameRecorder frameRecorder;
+
+    @Value("${binance.ws.streams-per-socket:200}")
+    private int streamsPerSocket;
+
+    @Value("${binance.ws.reconnect-base-ms:1000}")
+    private long reconnectBaseMillis;
+
+    @Value("${binance.ws.reconnect-max-ms:60000}")
+    private long reconnectMaxMillis;
+
+    @Value("${binance.ws.idle-timeout-ms:30000}")
+    private long idleTimeoutMillis;
+
+    @Value("${binance.backfill.limit:1000}")
+    private int backfillLimit;
+
+    @Value("${binance.backfill.timeout-ms:10000}")
+    private long backfillTimeoutMillis;
+
+    private final ScheduledExecutorService reconnector = Executors.newSingleThreadScheduledExecutor(r -> {
+        var thread = new Thread(r, "binance-reconnect");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+    private final AtomicInteger connectionIds = new AtomicInteger();
+    private final AtomicLong requestIds = new AtomicLong();
+    private volatile boolean stopping;
+
+    public BinanceKlineService(@Value("${binance.ws.ping-interval-ms:20000}") long pingIntervalMillis) {
+        this.client = new OkHttpClient.Builder()
+                .pingInterval(pingIntervalMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return "binance";
+    }
+
+    @Override
+    public synchronized void connect(String[] pairs) {
+        // Abre de antemão as conexões necessárias, para que os pares fiquem distribuídos por igual
+        var shards = (pairs.length + perSocket() - 1) / perSocket();
+        while (connections.size() < shards) {
+            connections.add(new Connection(connectionIds.incrementAndGet()));
+        }
+
+        subscribe(pairs);
+    }
+
+    @Override
+    public synchronized void subscribe(String[] pairs) {
+        var touched = new LinkedHashSet<Connection>();
+
+        for (var pair : pairs) {
+            var stream = pair.toLowerCase();
+            if (owner(stream) != null) {
+                continue;
+            }
+
+            var target = connections.stream()
+                    .filter(c -> c.size() < perSocket())
+                    .min(Comparator.comparingInt(Connection::size))
+                    .orElse(null);
+            if (target == null) {
+                target = new Connection(connectionIds.incrementAndGet());
+                connections.add(target);
+            }
 
-    @Getter
-    private Map<String, Kline> klines = new ConcurrentHashMap<>();
+            target.add(stream);
+            touched.add(target);
+        }
 
-    public BinanceKlineService(KlineController klineController) {
-        this.klineController = klineController;
+        touched.forEach(Connection::apply);
     }
 
-    public void connectMultiplePairs(String[] pairs, String interval) {
-        StringBuilder url = new StringBuilder("wss://stream.binance.com:9443/stream?streams=");
+    @Override
+    public synchronized void unsubscribe(String[] pairs) {
+        var touched = new LinkedHashSet<Connection>();
 
-        for (int i = 0; i < pairs.length; i++) {
-            if (i > 0)
-                url.append("/");
-            url.append(pairs[i].toLowerCase()).append("@kline_").append(interval);
+        for (var pair : pairs) {
+            var stream = pair.toLowerCase();
+            var owner = owner(stream);
+            if (owner != null) {
+                owner.remove(stream);
+                touched.add(owner);
+            }
         }
 
-        Request request = new Request.Builder().url(url.toString()).build();
+        touched.forEach(Connection::apply);
+        connections.removeIf(Connection::isRetired);
+    }
+
+    @Scheduled(fixedRateString = "${binance.ws.watchdog-ms:5000}")
+    public void watchdog() {
+        var now = System.currentTimeMillis();
+        connections.forEach(c -> c.checkIdle(now));
+    }
 
-        client.newWebSocket(request, new WebSocketListener() {
-            @Override
-            public void onMessage(WebSocket webSocket, String text) {
-                JsonObject json = JsonParser.parseString(text).getAsJsonObject();
-                var data = json.getAsJsonObject("data");
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        reconnector.shutdownNow();
+        connections.forEach(Connection::close);
+    }
 
-                String pair = data.get("s").getAsString();
-                var klineData = data.getAsJsonObject("k");
+    @Override
+    public JsonObject getStats() {
+        var now = System.currentTimeMillis();
+        var shards = new JsonArray();
+        long frames = 0, reconnects = 0, idleTimeouts = 0, backfilled = 0, backfillErrors = 0, connected = 0;
 
-                var kl = com.hydra.studios.model.klines.Kline.builder()
-                        .pair(pair)
-                        .interval(interval)
-                        .openTime(klineData.get("t").getAsLong())
-                        .open(klineData.get("o").getAsDouble())
-                        .high(klineData.get("h").getAsDouble())
-                        .low(klineData.get("l").getAsDouble())
-                        .close(klineData.get("c").getAsDouble())
-                        .closeTime(klineData.get("T").getAsLong())
-                        .build();
+        for (var connection : connections) {
+            shards.add(connection.getStats(now));
+            frames += connection.frames.get();
+            reconnects += connection.reconnects.get();
+            idleTimeouts += connection.idleTimeouts.get();
+            backfilled += connection.backfilled.get();
+            backfillErrors += connection.backfillErrors.get();
+            if (connection.connected) {
+                connected++;
+            }
+        }
 
-                var simpleKline = Kline.builder()
-                        .pair(pair)
-                        .value(kl.getClose())
-                        .delete(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(31))
-                        .build();
+        var json = new JsonObject();
+        json.addProperty("source", getName());
+        json.addProperty("streamsPerSocket", perSocket());
+        json.addProperty("connections", connections.size());
+        json.addProperty("connected", connected);
+        json.addProperty("frames", frames);
+        json.addProperty("reconnects", reconnects);
+        json.addProperty("idleTimeouts", idleTimeouts);
+        json.addProperty("backfilled", backfilled);
+        json.addProperty("backfillErrors", backfillErrors);
+        json.addProperty("recording", frameRecorder.isEnabled());
+        json.addProperty("recorded", frameRecorder.getRecorded());
+        json.add("shards", shards);
+        return json;
+    }
 
-                klines.put(pair, simpleKline);
+    private int perSocket() {
+        // A Binance aceita até 1024 streams por conexão
+        return Math.max(1, Math.min(streamsPerSocket, 1024));
+    }
 
-                klineController.publishKline(pair, interval, kl);
+    private Connection owner(String pair) {
+        for (var connection : connections) {
+            if (connection.contains(pair)) {
+                return connection;
             }
-        });
+        }
+        return null;
+    }
+
+    private long backoff(int attempt) {
+        var delay = reconnectBaseMillis << Math.min(attempt - 1, 16);
+        delay = Math.min(delay, reconnectMaxMillis);
+        // Jitter para que várias conexões não reconectem no mesmo instante
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    private static String stream(String pair) {
+        return pair + "@kline_" + INTERVAL;
     }
 
+    private class Connection extends WebSocketListener {
+
+        private final int id;
+
+        private final KlineFrame frame = new KlineFrame();
+        private final KlineFrame rolled = new KlineFrame();
+
+        // Pares que a conexão deve ter, e os que o servidor já conhece (pela URL ou por SUBSCRIBE)
+        private final Set<String> pairs = new LinkedHashSet<>();
+        private final Set<String> live = new HashSet<>();
+
+        // openTime do último candle recebido por par, ponto de partida do backfill
+        private final Map<String, Long> lastOpenTime = new ConcurrentHashMap<>();
+
+        private WebSocket socket;
+        private int attempts;
+        private boolean started;
+        private volatile boolean retired;
+        private volatile boolean connected;
+        private volatile long lastMessageAt;
+
+        private final AtomicLong frames = new AtomicLong();
+        private final AtomicLong reconnects = new AtomicLong();
+        private final AtomicLong idleTimeouts = new AtomicLong();
+        private final AtomicLong backfilled = new AtomicLong();
+        private final AtomicLong backfillErrors = new AtomicLong();
+
+        private Connection(int id) {
+            this.id = id;
+        }
+
+        private synchronized int size() {
+            return pairs.size();
+        }
+
+        private synchronized boolean contains(String pair) {
+            return pairs.contains(pair);
+        }
+
+        private synchronized void add(String pair) {
+            pairs.add(pair);
+        }
+
+        private synchronized void remove(String pair) {
+            pairs.remove(pair);
+            lastOpenTime.remove(pair.toUpperCase());
+        }
+
+        private boolean isRetired() {
+            return retired;
+        }
+
+        /**
+         * Brings the socket in line with {@link #pairs}: opens it the first time, sends the
+         * subscription changes when connected, and closes it once it has no pairs left. While
+         * connecting or waiting to reconnect nothing is sent; {@link #onOpen} catches up.
+         */
+        private synchronized void apply() {
+            if (pairs.isEmpty()) {
+                retired = true;
+                close();
+                return;
+            }
+
+            if (!started) {
+                started = true;
+                open();
+            } else if (connected) {
+                sync();
+            }
+        }
+
+        private synchronized void open() {
+            if (stopping || retired) {
+                return;
+            }
+
+            var url = new StringBuilder(STREAM_URL);
+            for (var pair : pairs) {
+                if (url.length() > STREAM_URL.length())
+                    url.append("/");
+                url.append(stream(pair));
+            }
+
+            live.clear();
+            live.addAll(pairs);
+            lastMessageAt = System.currentTimeMillis();
+            socket = client.newWebSocket(new Request.Builder().url(url.toString()).build(), this);
+        }
+
+        private synchronized void close() {
+            if (socket != null) {
+                socket.close(1000, "shutdown");
+                socket = null;
+            }
+            connected = false;
+        }
+
+        private synchronized void sync() {
+            var added = new ArrayList<String>();
+            for (var pair : pairs) {
+                if (!live.contains(pair)) {
+                    added.add(pair);
+                }
+            }
+
+            var removed = new ArrayList<String>();
+            for (var pair : live) {
+                if (!pairs.contains(pair)) {
+                    removed.add(pair);
+                }
+            }
+
+            send("SUBSCRIBE", added);
+            send("UNSUBSCRIBE", removed);
+        }
+
+        private void send(String method, List<String> changed) {
+            if (changed.isEmpty()) {
+                return;
+            }
+
+            var params = new JsonArray();
+            changed.forEach(pair -> params.add(stream(pair)));
+
+            var request = new JsonObject();
+            request.addProperty("method", method);
+            request.add("params", params);
+            request.addProperty("id", requestIds.incrementAndGet());
+
+            if (socket != null && socket.send(request.toString())) {
+                if (method.equals("SUBSCRIBE")) {
+                    live.addAll(changed);
+                } else {
+                    changed.forEach(live::remove);
+                }
+                System.out.println("Binance stream #" + id + " " + method + " " + changed.size() + " pairs");
+            }
+        }
+
+        private void checkIdle(long now) {
+            WebSocket current;
+            synchronized (this) {
+                current = socket;
+            }
+            if (current != null && now - lastMessageAt > idleTimeoutMillis) {
+                System.out.println("Binance stream #" + id + " idle for " + (now - lastMessageAt) + "ms, reconnecting");
+                idleTimeouts.incrementAndGet();
+                // cancel() dispara onFailure, que agenda a reconexão
+                current.cancel();
+            }
+        }
+
+        private void reconnect(WebSocket webSocket, String reason) {
+            long delay;
+            synchronized (this) {
+                // Callbacks de um socket já substituído não devem gerar outra reconexão
+                if (webSocket != socket || stopping || retired) {
+                    return;
+                }
+                socket = null;
+                connected = false;
+                attempts++;
+                delay = backoff(attempts);
+            }
+
+            reconnects.incrementAndGet();
+            System.out.println("Binance stream #" + id + " disconnected (" + reason + "), reconnecting in " + delay + "ms");
+            try {
+                reconnector.schedule(this::open, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ignored) {
+                // encerrando
+            }
+        }
+
+        private JsonObject getStats(long now) {
+            var json = new JsonObject();
+            json.addProperty("id", id);
+            json.addProperty("streams", size());
+            json.addProperty("connected", connected);
+            json.addProperty("lastMessageAgeMillis", now - lastMessageAt);
+            json.addProperty("frames", frames.get());
+            json.addProperty("reconnects", reconnects.get());
+            json.addProperty("idleTimeouts", idleTimeouts.get());
+            json.addProperty("backfilled", backfilled.get());
+            json.addProperty("backfillErrors", backfillErrors.get());
+            return json;
+        }
+
+        @Override
+        public void onOpen(WebSocket webSocket, Response response) {
+            synchronized (this) {
+                attempts = 0;
+                connected = true;
+                // Pares alterados enquanto o socket conectava
+                sync();
+            }
+            lastMessageAt = System.currentTimeMillis();
+            System.out.println("Binance stream #" + id + " connected (" + size() + " pairs)");
+
+            // Roda na thread de leitura antes da primeira mensagem ao vivo, mantendo a ordem por par
+            if (!lastOpenTime.isEmpty()) {
+                backfill();
+            }
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, String text) {
+            lastMessageAt = System.currentTimeMillis();
+
+            // Respostas de SUBSCRIBE/UNSUBSCRIBE não têm "data" e são descartadas aqui
+            if (!KlineFrameDecoder.decode(text, frame)) {
+                return;
+            }
+
+            frames.incrementAndGet();
+            frameRecorder.record(text);
+            lastOpenTime.put(frame.getSymbol(), frame.getOpenTime());
+            marketDataIngest.ingest(frame, rolled);
+        }
+
+        @Override
+        public void onClosing(WebSocket webSocket, int code, String reason) {
+            webSocket.close(1000, null);
+        }
+
+        @Override
+        public void onClosed(WebSocket webSocket, int code, String reason) {
+            reconnect(webSocket, "closed " + code);
+        }
+
+        @Override
+        public void onFailure(WebSocket webSocket, Throwable t, Response response) {
+            reconnect(webSocket, t.getMessage());
+        }
+
+        /**
+         * Fetches the candles missed since the last frame of each pair, in parallel, and replays
+         * them through the ingest in order. The last candle seen is fetched again so it is
+         * delivered closed.
+         */
+        private void backfill() {
+            var requests = new LinkedHashMap<String, CompletableFuture<String>>();
+            lastOpenTime.forEach((symbol, openTime) -> requests.put(symbol, fetch(symbol, openTime)));
+
+            var now = System.currentTimeMillis();
+            var deadline = now + backfillTimeoutMillis;
+            var count = 0;
+
+            for (var entry : requests.entrySet()) {
+                var symbol = entry.getKey();
+                try {
+                    var body = entry.getValue().get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                    count += ingest(symbol, body, now);
+                } catch (Exception e) {
+                    entry.getValue().cancel(true);
+                    backfillErrors.incrementAndGet();
+                    System.out.println("Failed to backfill " + symbol + " " + INTERVAL + ": " + e.getMessage());
+                }
+            }
+
+            backfilled.addAndGet(count);
+            System.out.println("Backfilled " + count + " " + INTERVAL + " candles for " + requests.size() + " pairs in "
+                    + (System.currentTimeMillis() - now) + "ms");
+        }
+
+        private CompletableFuture<String> fetch(String symbol, long startTime) {
+            var url = HttpUrl.parse(KLINES_URL).newBuilder()
+                    .addQueryParameter("symbol", symbol)
+                    .addQueryParameter("interval", INTERVAL)
+                    .addQueryParameter("startTime", String.valueOf(startTime))
+                    .addQueryParameter("limit", String.valueOf(backfillLimit))
+                    .build();
+
+            var future = new CompletableFuture<String>();
+            client.newCall(new Request.Builder().url(url).build()).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    future.completeExceptionally(e);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) throws IOException {
+                    try (response) {
+                        if (!response.isSuccessful()) {
+                            future.completeExceptionally(new IOException("HTTP " + response.code()));
+                            return;
+                        }
+                        future.complete(response.body().string());
+                    }
+                }
+            });
+            return future;
+        }
+
+        private int ingest(String symbol, String body, long now) {
+            // [openTime, open, high, low, close, volume, closeTime, ...]
+            var rows = JsonParser.parseString(body).getAsJsonArray();
+            var count = 0;
+
+            for (var element : rows) {
+                var row = element.getAsJsonArray();
+                var openTime = row.get(0).getAsLong();
+                var closeTime = row.get(6).getAsLong();
+                var closed = closeTime < now;
+
+                frame.set(symbol, INTERVAL, closed ? closeTime : now, openTime, closeTime,
+                        row.get(1).getAsDouble(), row.get(2).getAsDouble(), row.get(3).getAsDouble(),
+                        row.get(4).getAsDouble(), row.get(5).getAsDouble(), closed);
+
+                lastOpenTime.put(symbol, openTime);
+                marketDataIngest.ingest(frame, rolled);
+                count++;
+            }
+            return count;
+        }
+    }
 }
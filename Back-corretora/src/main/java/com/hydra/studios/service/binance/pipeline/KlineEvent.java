@@ -0,0 +1,58 @@
+package com.hydra.studios.service.binance.pipeline;
+
+import com.hydra.studios.service.binance.stream.KlineFrame;
+import lombok.Getter;
+
+/**
+ * Slot of the {@link MarketDataPipeline} ring. Slots are preallocated and overwritten
+ * in place; handlers must copy whatever they keep beyond {@code onEvent}.
+ */
+@Getter
+public class KlineEvent {
+
+    private long sequence;
+
+    private String symbol;
+    private String interval;
+
+    private long eventTime;
+    private long openTime;
+    private long closeTime;
+
+    private double open;
+    private double high;
+    private double low;
+    private double close;
+    private double volume;
+
+    private boolean closed;
+
+    void copyFrom(KlineFrame frame) {
+        this.symbol = frame.getSymbol();
+        this.interval = frame.getInterval();
+        this.eventTime = frame.getEventTime();
+        this.openTime = frame.getOpenTime();
+        this.closeTime = frame.getCloseTime();
+        this.open = frame.getOpen();
+        this.high = frame.getHigh();
+        this.low = frame.getLow();
+        this.close = frame.getClose();
+        this.volume = frame.getVolume();
+        this.closed = frame.isClosed();
+    }
+
+    void copyFrom(KlineEvent other, long sequence) {
+        this.sequence = sequence;
+        this.symbol = other.symbol;
+        this.interval = other.interval;
+        this.eventTime = other.eventTime;
+        this.openTime = other.openTime;
+        this.closeTime = other.closeTime;
+        this.open = other.open;
+        this.high = other.high;
+        this.low = other.low;
+        this.close = other.close;
+        this.volume = other.volume;
+        this.closed = other.closed;
+    }
+}
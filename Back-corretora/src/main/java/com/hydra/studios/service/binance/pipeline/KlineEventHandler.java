@@ -0,0 +1,12 @@
+package com.hydra.studios.service.binance.pipeline;
+
+/**
+ * Consumer of the market-data ring. Every handler bean runs on its own thread and sees
+ * every event in publish order, independently of the other handlers.
+ */
+public interface KlineEventHandler {
+
+    String getName();
+
+    void onEvent(KlineEvent event);
+}
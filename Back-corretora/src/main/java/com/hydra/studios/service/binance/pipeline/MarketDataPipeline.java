@@ -0,0 +1,174 @@
+package com.hydra.studios.service.binance.pipeline;
+
+import com.google.gson.JsonObject;
+import com.hydra.studios.service.binance.stream.KlineFrame;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ring buffer between the Binance socket listeners and everything downstream of them.
+ * Publishing copies the frame into a preallocated slot and never waits for consumers:
+ * a consumer that falls a full ring behind skips ahead and counts the events it lost.
+ */
+@Component
+public class MarketDataPipeline {
+
+    private final KlineEvent[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+
+    private final AtomicLong cursor = new AtomicLong(-1);
+
+    private final List<KlineEventHandler> handlers;
+    private final List<Consumer> consumers = new ArrayList<>();
+
+    private volatile boolean running;
+
+    public MarketDataPipeline(@Value("${market.pipeline.buffer-size:65536}") int bufferSize,
+            List<KlineEventHandler> handlers) {
+        var size = Integer.highestOneBit(Math.max(1024, bufferSize));
+
+        this.slots = new KlineEvent[size];
+        this.published = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.handlers = handlers;
+
+        for (var i = 0; i < size; i++) {
+            slots[i] = new KlineEvent();
+            published.set(i, -1);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (var handler : handlers) {
+            var consumer = new Consumer(handler);
+            consumers.add(consumer);
+            consumer.thread.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        consumers.forEach(consumer -> LockSupport.unpark(consumer.thread));
+    }
+
+    public void publish(KlineFrame frame) {
+        var sequence = cursor.incrementAndGet();
+        var index = (int) (sequence & mask);
+
+        // Marca o slot como em escrita antes de sobrescrever
+        published.set(index, -1);
+        VarHandle.releaseFence();
+        slots[index].copyFrom(frame);
+        published.set(index, sequence);
+
+        for (var consumer : consumers) {
+            if (consumer.parked) {
+                LockSupport.unpark(consumer.thread);
+            }
+        }
+    }
+
+    public JsonObject getStats() {
+        var json = new JsonObject();
+        var head = cursor.get();
+
+        json.addProperty("published", head + 1);
+        json.addProperty("bufferSize", slots.length);
+
+        var handlersJson = new JsonObject();
+        for (var consumer : consumers) {
+            var stats = new JsonObject();
+            stats.addProperty("lag", head - consumer.sequence);
+            stats.addProperty("processed", consumer.processed.get());
+            stats.addProperty("dropped", consumer.dropped.get());
+            stats.addProperty("errors", consumer.errors.get());
+            handlersJson.add(consumer.handler.getName(), stats);
+        }
+        json.add("handlers", handlersJson);
+
+        return json;
+    }
+
+    private class Consumer implements Runnable {
+
+        private final KlineEventHandler handler;
+        private final Thread thread;
+        private final KlineEvent scratch = new KlineEvent();
+
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+
+        private volatile long sequence = -1;
+        private volatile boolean parked;
+
+        private Consumer(KlineEventHandler handler) {
+            this.handler = handler;
+            this.thread = new Thread(this, "market-data-" + handler.getName());
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                var next = sequence + 1;
+
+                if (cursor.get() - next >= slots.length) {
+                    // Ficou uma volta inteira para trás: pula para o evento mais antigo ainda no anel
+                    var resume = cursor.get() - slots.length + 1;
+                    dropped.addAndGet(resume - next);
+                    sequence = resume - 1;
+                    continue;
+                }
+
+                if (!read(next)) {
+                    if (next > cursor.get()) {
+                        parked = true;
+                        if (next > cursor.get()) {
+                            LockSupport.parkNanos(1_000_000);
+                        }
+                        parked = false;
+                    } else {
+                        // Produtor ainda escrevendo este slot
+                        Thread.onSpinWait();
+                    }
+                    continue;
+                }
+
+                try {
+                    handler.onEvent(scratch);
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                }
+
+                processed.incrementAndGet();
+                sequence = next;
+            }
+        }
+
+        private boolean read(long next) {
+            var index = (int) (next & mask);
+            if (published.get(index) != next) {
+                return false;
+            }
+
+            scratch.copyFrom(slots[index], next);
+            VarHandle.acquireFence();
+
+            return published.get(index) == next;
+        }
+    }
+}
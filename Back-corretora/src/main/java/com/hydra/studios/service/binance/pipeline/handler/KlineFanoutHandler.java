@@ -0,0 +1,36 @@
+package com.hydra.studios.service.binance.pipeline.handler;
+
+import com.hydra.studios.model.klines.Kline;
+import com.hydra.studios.service.binance.pipeline.KlineEvent;
+import com.hydra.studios.service.binance.pipeline.KlineEventHandler;
+import com.hydra.studios.ws.controller.KlineController;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class KlineFanoutHandler implements KlineEventHandler {
+
+    @Autowired
+    private KlineController klineController;
+
+    @Override
+    public String getName() {
+        return "fanout";
+    }
+
+    @Override
+    public void onEvent(KlineEvent event) {
+        var kline = Kline.builder()
+                .pair(event.getSymbol())
+                .interval(event.getInterval())
+                .openTime(event.getOpenTime())
+                .open(event.getOpen())
+                .high(event.getHigh())
+                .low(event.getLow())
+                .close(event.getClose())
+                .closeTime(event.getCloseTime())
+                .build();
+
+        klineController.publishKline(event.getSymbol(), event.getInterval(), kline, event.isClosed());
+    }
+}
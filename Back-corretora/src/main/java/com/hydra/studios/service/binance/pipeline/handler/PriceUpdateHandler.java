@@ -0,0 +1,37 @@
+package com.hydra.studios.service.binance.pipeline.handler;
+
+import com.hydra.studios.service.binance.pipeline.KlineEvent;
+import com.hydra.studios.service.binance.pipeline.KlineEventHandler;
+import com.hydra.studios.service.binance.stream.KlineAggregator;
+import com.hydra.studios.service.price.PriceBook;
+import com.hydra.studios.service.price.PriceHistory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PriceUpdateHandler implements KlineEventHandler {
+
+    @Autowired
+    private PriceBook priceBook;
+
+    @Autowired
+    private PriceHistory priceHistory;
+
+    @Override
+    public String getName() {
+        return "prices";
+    }
+
+    @Override
+    public void onEvent(KlineEvent event) {
+        // Velas agregadas repetem o preço do 1m que as gerou
+        if (!KlineAggregator.BASE_INTERVAL.equals(event.getInterval())) {
+            return;
+        }
+
+        var index = priceBook.indexOf(event.getSymbol());
+
+        priceBook.update(index, event.getClose(), event.getEventTime());
+        priceHistory.record(index, event.getClose(), event.getEventTime());
+    }
+}
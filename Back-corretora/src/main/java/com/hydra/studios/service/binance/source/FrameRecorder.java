@@ -0,0 +1,85 @@
+package com.hydra.studios.service.binance.source;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appends the raw frames received from Binance to {@code market.record.file}, one per
+ * line, in the format {@link ReplayMarketDataSource} reads back. Disabled when no file is set.
+ */
+@Component
+public class FrameRecorder {
+
+    private final Path file;
+
+    private BufferedWriter writer;
+    private boolean failed;
+
+    private final AtomicLong recorded = new AtomicLong();
+
+    public FrameRecorder(@Value("${market.record.file:}") String file) {
+        this.file = file.isBlank() ? null : Path.of(file);
+    }
+
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    public synchronized void record(String frame) {
+        if (file == null || failed) {
+            return;
+        }
+
+        try {
+            if (writer == null) {
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND);
+            }
+
+            writer.write(frame);
+            writer.newLine();
+            recorded.incrementAndGet();
+        } catch (IOException e) {
+            failed = true;
+            System.out.println("Failed to record market data to " + file + ": " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public synchronized void flush() {
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            System.out.println("Failed to flush market data recording: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    public long getRecorded() {
+        return recorded.get();
+    }
+}
@@ -0,0 +1,57 @@
+package com.hydra.studios.service.binance.source;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Time of the market data, used by everything that compares event times with "now": bet
+ * creation and expiry, cashout and price staleness. With a live source it is the wall clock.
+ * While replaying it follows the replayed events, so an accelerated replay also accelerates
+ * settlement instead of leaving bets to expire on the wall clock.
+ */
+@Component
+public class MarketClock {
+
+    private record Anchor(long time, long nanos, double speed) {
+    }
+
+    // Sem âncora o relógio é o de parede (fonte ao vivo)
+    private volatile Anchor anchor;
+
+    // Último evento entregue; é o relógio quando a reprodução roda sem ritmo
+    private volatile long latest = Long.MIN_VALUE;
+
+    public long now() {
+        var current = anchor;
+        if (current == null) {
+            return System.currentTimeMillis();
+        }
+
+        if (current.speed() <= 0) {
+            return latest;
+        }
+
+        return current.time() + (long) ((System.nanoTime() - current.nanos()) * current.speed() / 1_000_000L);
+    }
+
+    /**
+     * Makes the clock read {@code time} at {@code nanos} and advance {@code speed} times as fast
+     * as the wall clock from there. A speed of {@code 0} follows {@link #advance(long)} instead.
+     */
+    public void follow(long time, long nanos, double speed) {
+        latest = time;
+        anchor = new Anchor(time, nanos, speed);
+    }
+
+    /**
+     * Moves an unpaced clock to the time of the event just delivered.
+     */
+    public void advance(long time) {
+        if (time > latest) {
+            latest = time;
+        }
+    }
+
+    public boolean isReplaying() {
+        return anchor != null;
+    }
+}
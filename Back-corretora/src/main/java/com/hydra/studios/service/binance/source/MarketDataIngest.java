@@ -0,0 +1,30 @@
+package com.hydra.studios.service.binance.source;
+
+import com.hydra.studios.service.binance.pipeline.MarketDataPipeline;
+import com.hydra.studios.service.binance.stream.KlineAggregator;
+import com.hydra.studios.service.binance.stream.KlineFrame;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single entry point of market data, shared by the live and replay sources: publishes the
+ * 1m frame and the candles rolled up from it into the {@link MarketDataPipeline}.
+ */
+@Component
+public class MarketDataIngest {
+
+    @Autowired
+    private MarketDataPipeline marketDataPipeline;
+
+    @Autowired
+    private KlineAggregator klineAggregator;
+
+    /**
+     * Frames of a symbol must always be ingested from the same thread, since the
+     * aggregator keeps per-symbol state without locking.
+     */
+    public void ingest(KlineFrame frame, KlineFrame scratch) {
+        marketDataPipeline.publish(frame);
+        klineAggregator.roll(frame, scratch, marketDataPipeline::publish);
+    }
+}
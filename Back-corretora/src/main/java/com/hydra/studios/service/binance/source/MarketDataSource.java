@@ -0,0 +1,31 @@
+package com.hydra.studios.service.binance.source;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Where 1m kline frames come from. Exactly one source is active, picked by
+ * {@code market.source}; every source hands its frames to {@link MarketDataIngest}.
+ */
+public interface MarketDataSource {
+
+    String getName();
+
+    /**
+     * Starts delivering frames for the given pairs (lowercase Binance symbols).
+     */
+    void connect(String[] pairs);
+
+    /**
+     * Adds pairs to a connected source. Sources with a fixed pair set ignore it.
+     */
+    default void subscribe(String[] pairs) {
+    }
+
+    /**
+     * Stops delivering frames for the given pairs. Sources with a fixed pair set ignore it.
+     */
+    default void unsubscribe(String[] pairs) {
+    }
+
+    JsonObject getStats();
+}
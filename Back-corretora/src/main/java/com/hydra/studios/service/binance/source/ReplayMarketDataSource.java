@@ -0,0 +1,281 @@
+package com.hydra.studios.service.binance.source;
+
+import com.google.gson.JsonObject;
+import com.hydra.studios.service.binance.stream.KlineAggregator;
+import com.hydra.studios.service.binance.stream.KlineFrame;
+import com.hydra.studios.service.binance.stream.KlineFrameDecoder;
+import com.hydra.studios.service.price.archive.TickArchive;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Replays recorded market data through the same ingest path as the live source, so
+ * settlement, fan-out and persistence run offline. Reads either a frame recording
+ * ({@code market.replay.file}, one raw Binance frame per line, optionally gzipped) or a
+ * range of the {@link TickArchive} ({@code market.replay.archive-from/to}).
+ * <p>
+ * {@code market.replay.speed} is a multiplier of the recorded pace; {@code 0} replays as
+ * fast as the pipeline takes it. The {@link MarketClock} follows the replayed events, so bet
+ * expiry, cashout and staleness run at the replay speed too.
+ * <p>
+ * With {@code market.replay.rebase-time} timestamps are shifted by whole minutes, keeping
+ * candles aligned, and the seconds the first frame falls behind the current time are replayed
+ * without pacing, so from then on replayed events match the clock. Each loop continues where
+ * the previous ended.
+ * <p>
+ * The {@link TickArchive} does not record while replaying (see {@code tick.archive.enabled}),
+ * so replayed ticks never end up in the real archive.
+ */
+@Component
+@ConditionalOnProperty(name = "market.source", havingValue = "replay")
+public class ReplayMarketDataSource implements MarketDataSource {
+
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    @Autowired
+    private MarketDataIngest marketDataIngest;
+
+    @Autowired
+    private TickArchive tickArchive;
+
+    @Autowired
+    private MarketClock marketClock;
+
+    @Value("${market.replay.file:}")
+    private String file;
+
+    @Value("${market.replay.archive-from:0}")
+    private long archiveFrom;
+
+    @Value("${market.replay.archive-to:0}")
+    private long archiveTo;
+
+    @Value("${market.replay.speed:1}")
+    private double speed;
+
+    @Value("${market.replay.loop:false}")
+    private boolean loop;
+
+    @Value("${market.replay.rebase-time:true}")
+    private boolean rebaseTime;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    private final KlineFrame frame = new KlineFrame();
+    private final KlineFrame rolled = new KlineFrame();
+
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong passes = new AtomicLong();
+
+    // Primeiro e último evento da gravação, e deslocamento aplicado no passe atual
+    private long firstEventTime = Long.MIN_VALUE;
+    private long lastEventTime = Long.MIN_VALUE;
+    private long offset;
+
+    private long pacingStart;
+    private long pacingWallStart;
+
+    @Override
+    public String getName() {
+        return "replay";
+    }
+
+    @Override
+    public synchronized void connect(String[] pairs) {
+        if (running) {
+            return;
+        }
+
+        var symbols = Arrays.stream(pairs).map(String::toUpperCase).collect(Collectors.toUnmodifiableSet());
+
+        running = true;
+        thread = new Thread(() -> run(symbols), "market-replay");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public JsonObject getStats() {
+        var json = new JsonObject();
+        json.addProperty("source", getName());
+        json.addProperty("input", !file.isBlank() ? file : "archive " + archiveFrom + "-" + archiveTo);
+        json.addProperty("speed", speed);
+        json.addProperty("loop", loop);
+        json.addProperty("running", running);
+        json.addProperty("passes", passes.get());
+        json.addProperty("frames", replayed.get());
+        return json;
+    }
+
+    private void run(Set<String> symbols) {
+        System.out.println("Starting market data replay of " + (!file.isBlank() ? file : "tick archive")
+                + " at " + (speed > 0 ? speed + "x" : "max speed") + " for " + symbols.size() + " pairs.");
+
+        try {
+            do {
+                if (passes.get() > 0) {
+                    // Continua o relógio a partir do fim do passe anterior, em minutos inteiros
+                    var span = lastEventTime - firstEventTime + MINUTE_MILLIS;
+                    offset += Math.floorDiv(span + MINUTE_MILLIS - 1, MINUTE_MILLIS) * MINUTE_MILLIS;
+                    pacingStart = Long.MIN_VALUE;
+                }
+
+                if (!file.isBlank()) {
+                    replayFile(Path.of(file), symbols);
+                } else {
+                    replayArchive(symbols);
+                }
+                passes.incrementAndGet();
+            } while (loop && running && replayed.get() > 0);
+        } catch (IOException e) {
+            System.out.println("Market data replay failed: " + e.getMessage());
+        } finally {
+            running = false;
+        }
+
+        System.out.println("Market data replay finished: " + replayed.get() + " frames in " + passes.get()
+                + " passes.");
+    }
+
+    private void replayFile(Path path, Set<String> symbols) throws IOException {
+        var input = Files.newInputStream(path);
+        if (path.toString().endsWith(".gz")) {
+            input = new GZIPInputStream(input, 1 << 16);
+        }
+
+        try (var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16)) {
+            String line;
+            while (running && (line = reader.readLine()) != null) {
+                if (KlineFrameDecoder.decode(line, frame) && symbols.contains(frame.getSymbol())
+                        && KlineAggregator.BASE_INTERVAL.equals(frame.getInterval())) {
+                    emit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuilds 1m frames from archived ticks: each tick updates the minute of its symbol,
+     * and the minute is emitted closed when the next one starts.
+     */
+    private void replayArchive(Set<String> symbols) {
+        var minutes = new HashMap<String, double[]>();
+        var minuteOpen = new HashMap<String, Long>();
+
+        tickArchive.scan(archiveFrom, archiveTo, null, (symbol, eventTime, price, volume) -> {
+            if (symbol == null || !symbols.contains(symbol)) {
+                return running;
+            }
+
+            var openTime = eventTime - Math.floorMod(eventTime, MINUTE_MILLIS);
+            var previousOpen = minuteOpen.get(symbol);
+            // open, high, low, close, volume
+            var ohlcv = minutes.get(symbol);
+
+            if (previousOpen == null || openTime > previousOpen) {
+                if (previousOpen != null) {
+                    frame.set(symbol, KlineAggregator.BASE_INTERVAL, eventTime, previousOpen,
+                            previousOpen + MINUTE_MILLIS - 1, ohlcv[0], ohlcv[1], ohlcv[2], ohlcv[3], ohlcv[4], true);
+                    emit();
+                }
+
+                ohlcv = new double[] { price, price, price, price, volume };
+                minutes.put(symbol, ohlcv);
+                minuteOpen.put(symbol, openTime);
+            } else if (openTime < previousOpen) {
+                return running;
+            }
+
+            ohlcv[1] = Math.max(ohlcv[1], price);
+            ohlcv[2] = Math.min(ohlcv[2], price);
+            ohlcv[3] = price;
+            ohlcv[4] = volume;
+
+            frame.set(symbol, KlineAggregator.BASE_INTERVAL, eventTime, openTime, openTime + MINUTE_MILLIS - 1,
+                    ohlcv[0], ohlcv[1], ohlcv[2], ohlcv[3], ohlcv[4], false);
+            emit();
+            return running;
+        });
+    }
+
+    private void emit() {
+        var eventTime = frame.getEventTime();
+
+        if (firstEventTime == Long.MIN_VALUE) {
+            firstEventTime = eventTime;
+            if (rebaseTime) {
+                // Minutos inteiros mantêm os candles alinhados; o atraso restante é recuperado em pace()
+                var shift = marketClock.now() - eventTime;
+                offset = Math.floorDiv(shift, MINUTE_MILLIS) * MINUTE_MILLIS;
+            }
+            pacingStart = Long.MIN_VALUE;
+        }
+        if (passes.get() == 0) {
+            lastEventTime = Math.max(lastEventTime, eventTime);
+        }
+
+        frame.shift(offset);
+        pace(frame.getEventTime());
+
+        marketDataIngest.ingest(frame, rolled);
+        replayed.incrementAndGet();
+    }
+
+    /**
+     * Holds the replay thread until {@code time} (already shifted) is due on the replay pace and
+     * moves the {@link MarketClock} with it.
+     */
+    private void pace(long time) {
+        if (speed <= 0) {
+            if (pacingStart == Long.MIN_VALUE) {
+                pacingStart = time;
+                marketClock.follow(time, System.nanoTime(), 0);
+            } else {
+                marketClock.advance(time);
+            }
+            return;
+        }
+
+        if (pacingStart == Long.MIN_VALUE) {
+            // Parte do relógio atual: eventos atrás dele passam sem espera até alcançá-lo, e os à frente
+            // (início de um novo passe) esperam. Sem rebase o primeiro passe roda no tempo gravado
+            var from = rebaseTime || passes.get() > 0 ? marketClock.now() : time;
+            pacingStart = time;
+            pacingWallStart = System.nanoTime() + (long) ((time - from) * 1_000_000L / speed);
+            marketClock.follow(time, pacingWallStart, speed);
+        }
+
+        var target = pacingWallStart + (long) ((time - pacingStart) * 1_000_000L / speed);
+        var wait = target - System.nanoTime();
+        if (wait > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.hydra.studios.service.binance.stream;
+
+import com.hydra.studios.model.klines.Kline;
+import com.hydra.studios.service.klines.store.KlineStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Rolls the 1m stream up into higher timeframes in memory. Every 1m frame (open or
+ * closed) updates the current bucket of each configured interval and is re-emitted as
+ * a frame of that interval; a bucket is emitted closed when its last minute closes, or
+ * when the next bucket starts without having seen that minute close.
+ * <p>
+ * Buckets of a symbol are only touched by the socket thread that receives the symbol.
+ */
+@Component
+public class KlineAggregator {
+
+    public static final String BASE_INTERVAL = "1m";
+
+    @Autowired
+    private KlineStore klineStore;
+
+    private final List<String> intervals = new ArrayList<>();
+    private final long[] periods;
+
+    private final Map<String, Bucket[]> buckets = new ConcurrentHashMap<>();
+
+    public KlineAggregator(@Value("${kline.aggregate.intervals:5m,15m,1h,4h,1d}") String intervals) {
+        for (var interval : intervals.split(",")) {
+            var trimmed = interval.trim();
+            if (!trimmed.isEmpty() && !trimmed.equals(BASE_INTERVAL)) {
+                this.intervals.add(trimmed);
+            }
+        }
+
+        this.periods = new long[this.intervals.size()];
+        for (var i = 0; i < periods.length; i++) {
+            periods[i] = periodOf(this.intervals.get(i));
+        }
+    }
+
+    /**
+     * Base interval followed by every rolled-up interval.
+     */
+    public List<String> getIntervals() {
+        var all = new ArrayList<String>(intervals.size() + 1);
+        all.add(BASE_INTERVAL);
+        all.addAll(intervals);
+        return all;
+    }
+
+    /**
+     * Applies a 1m frame to every interval, emitting the updated candles through {@code sink}
+     * using {@code scratch} as the outgoing frame.
+     */
+    public void roll(KlineFrame minute, KlineFrame scratch, Consumer<KlineFrame> sink) {
+        if (!BASE_INTERVAL.equals(minute.interval)) {
+            return;
+        }
+
+        var symbolBuckets = buckets.computeIfAbsent(minute.symbol, s -> newBuckets());
+        for (var i = 0; i < symbolBuckets.length; i++) {
+            symbolBuckets[i].apply(minute, scratch, sink);
+        }
+    }
+
+    /**
+     * Rebuilds the current bucket of every interval from the stored 1m candles, so a
+     * restart does not leave the open of 4h/1d candles at the first minute seen live.
+     */
+    public void warm(Collection<String> pairs) {
+        if (periods.length == 0) {
+            return;
+        }
+
+        var longest = 0L;
+        for (var period : periods) {
+            longest = Math.max(longest, period);
+        }
+
+        var now = System.currentTimeMillis();
+        var from = now - Math.floorMod(now, longest);
+        var start = System.currentTimeMillis();
+        var replayed = 0;
+
+        var minute = new KlineFrame();
+        var scratch = new KlineFrame();
+        for (var pair : pairs) {
+            var klines = klineStore.since(pair, BASE_INTERVAL, from);
+
+            for (var kline : klines) {
+                copy(kline, minute);
+                roll(minute, scratch, frame -> {
+                });
+            }
+            replayed += klines.size();
+        }
+
+        System.out.println("Kline aggregator warmed " + intervals + " from " + replayed + " stored 1m candles in "
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private Bucket[] newBuckets() {
+        var created = new Bucket[periods.length];
+        for (var i = 0; i < created.length; i++) {
+            created[i] = new Bucket(intervals.get(i), periods[i]);
+        }
+        return created;
+    }
+
+    private static void copy(Kline kline, KlineFrame into) {
+        into.reset();
+        into.symbol = kline.getPair();
+        into.interval = kline.getInterval();
+        into.eventTime = kline.getCloseTime();
+        into.openTime = kline.getOpenTime();
+        into.closeTime = kline.getCloseTime();
+        into.open = kline.getOpen();
+        into.high = kline.getHigh();
+        into.low = kline.getLow();
+        into.close = kline.getClose();
+        into.closed = true;
+    }
+
+    public static long periodOf(String interval) {
+        var amount = Long.parseLong(interval.substring(0, interval.length() - 1));
+
+        return switch (interval.charAt(interval.length() - 1)) {
+            case 'm' -> TimeUnit.MINUTES.toMillis(amount);
+            case 'h' -> TimeUnit.HOURS.toMillis(amount);
+            case 'd' -> TimeUnit.DAYS.toMillis(amount);
+            default -> throw new IllegalArgumentException("Unsupported kline interval: " + interval);
+        };
+    }
+
+    private static class Bucket {
+
+        private final String interval;
+        private final long period;
+
+        private long openTime = Long.MIN_VALUE;
+        private double open;
+        private double high;
+        private double low;
+        private double close;
+        private long eventTime;
+        private boolean closed;
+
+        // Volume dos minutos já encerrados do bucket e do minuto em andamento
+        private double completedVolume;
+        private long minuteOpenTime;
+        private double minuteVolume;
+
+        private Bucket(String interval, long period) {
+            this.interval = interval;
+            this.period = period;
+        }
+
+        private void apply(KlineFrame minute, KlineFrame scratch, Consumer<KlineFrame> sink) {
+            var start = minute.openTime - Math.floorMod(minute.openTime, period);
+
+            if (start < openTime) {
+                return;
+            }
+
+            if (start > openTime) {
+                // Bucket anterior não viu o fechamento do último minuto: fecha agora
+                if (openTime != Long.MIN_VALUE && !closed) {
+                    closed = true;
+                    emit(minute.symbol, scratch, sink);
+                }
+
+                openTime = start;
+                open = minute.open;
+                high = minute.high;
+                low = minute.low;
+                closed = false;
+                completedVolume = 0;
+                minuteOpenTime = minute.openTime;
+                minuteVolume = 0;
+            } else if (closed) {
+                return;
+            }
+
+            // Máxima e mínima do minuto são acumuladas, então basta comparar
+            high = Math.max(high, minute.high);
+            low = Math.min(low, minute.low);
+            close = minute.close;
+            eventTime = minute.eventTime;
+
+            if (minute.openTime > minuteOpenTime) {
+                completedVolume += minuteVolume;
+                minuteOpenTime = minute.openTime;
+            }
+            minuteVolume = minute.volume;
+            closed = minute.closed && minute.closeTime >= openTime + period - 1;
+
+            emit(minute.symbol, scratch, sink);
+        }
+
+        private void emit(String symbol, KlineFrame scratch, Consumer<KlineFrame> sink) {
+            scratch.symbol = symbol;
+            scratch.interval = interval;
+            scratch.eventTime = eventTime;
+            scratch.openTime = openTime;
+            scratch.closeTime = openTime + period - 1;
+            scratch.open = open;
+            scratch.high = high;
+            scratch.low = low;
+            scratch.close = close;
+            scratch.volume = completedVolume + minuteVolume;
+            scratch.closed = closed;
+
+            sink.accept(scratch);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.hydra.studios.service.binance.stream;
+
+import lombok.Getter;
+
+/**
+ * Fields of a Binance combined-stream kline frame, decoded into primitives.
+ * Instances are reused by the reader thread that owns them.
+ */
+@Getter
+public class KlineFrame {
+
+    String symbol;
+    String interval;
+
+    long eventTime;
+    long openTime;
+    long closeTime;
+
+    double open;
+    double high;
+    double low;
+    double close;
+    double volume;
+
+    boolean closed;
+
+    public void set(String symbol, String interval, long eventTime, long openTime, long closeTime, double open,
+            double high, double low, double close, double volume, boolean closed) {
+        this.symbol = symbol;
+        this.interval = interval;
+        this.eventTime = eventTime;
+        this.openTime = openTime;
+        this.closeTime = closeTime;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+        this.closed = closed;
+    }
+
+    /**
+     * Moves every timestamp of the frame by {@code millis}.
+     */
+    public void shift(long millis) {
+        eventTime += millis;
+        openTime += millis;
+        closeTime += millis;
+    }
+
+    void reset() {
+        symbol = null;
+        interval = null;
+        eventTime = 0;
+        openTime = 0;
+        closeTime = 0;
+        open = 0;
+        high = 0;
+        low = 0;
+        close = 0;
+        volume = 0;
+        closed = false;
+    }
+}
@@ -0,0 +1,73 @@
+package com.hydra.studios.service.binance.stream;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Streaming decoder for {@code /stream?streams=...@kline_...} frames. Reads only
+ * {@code data.E}, {@code data.s} and {@code k.t,T,i,o,h,l,c,v,x}, skipping everything
+ * else without building a {@code JsonObject} tree.
+ */
+public final class KlineFrameDecoder {
+
+    private KlineFrameDecoder() {
+    }
+
+    /**
+     * @return {@code false} when the frame is not a kline event
+     */
+    public static boolean decode(String text, KlineFrame into) {
+        into.reset();
+
+        try (var reader = new JsonReader(new StringReader(text))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("data") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    readData(reader, into);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            return false;
+        }
+
+        return into.symbol != null && into.openTime != 0;
+    }
+
+    private static void readData(JsonReader reader, KlineFrame into) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "E" -> into.eventTime = reader.nextLong();
+                case "s" -> into.symbol = reader.nextString();
+                case "k" -> readKline(reader, into);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static void readKline(JsonReader reader, KlineFrame into) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "t" -> into.openTime = reader.nextLong();
+                case "T" -> into.closeTime = reader.nextLong();
+                case "i" -> into.interval = reader.nextString();
+                case "o" -> into.open = reader.nextDouble();
+                case "h" -> into.high = reader.nextDouble();
+                case "l" -> into.low = reader.nextDouble();
+                case "c" -> into.close = reader.nextDouble();
+                case "v" -> into.volume = reader.nextDouble();
+                case "x" -> into.closed = reader.nextBoolean();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+}
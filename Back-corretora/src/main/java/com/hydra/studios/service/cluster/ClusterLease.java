@@ -0,0 +1,120 @@
+package com.hydra.studios.service.cluster;
+
+import com.google.gson.JsonObject;
+import com.hydra.studios.ws.broker.BrokerStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-owner lease kept in Mongo. In relay mode several nodes run side by side, and only the
+ * owner settles bets, persists candles and migrates legacy data. The lease is renewed every
+ * {@code cluster.lease.renew-ms} and taken over by another node once it is
+ * {@code cluster.lease.ttl-ms} old. In simple mode there is a single node and it always owns.
+ */
+@Component
+public class ClusterLease {
+
+    private static final String COLLECTION = "cluster_leases";
+    private static final String NAME = "primary";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private BrokerStatus brokerStatus;
+
+    @Value("${cluster.lease.ttl-ms:15000}")
+    private long ttlMillis;
+
+    @Getter
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // Até quando este nó se considera dono; metade do TTL, para parar antes de outro nó assumir
+    private volatile long ownedUntil;
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong lost = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        renew();
+    }
+
+    @Scheduled(fixedDelayString = "${cluster.lease.renew-ms:5000}")
+    public void renew() {
+        if (!brokerStatus.isRelay()) {
+            return;
+        }
+
+        var now = System.currentTimeMillis();
+        var query = Query.query(Criteria.where("_id").is(NAME)
+                .orOperator(Criteria.where("owner").is(nodeId), Criteria.where("expiresAt").lt(now)));
+        var update = new Update().set("owner", nodeId).set("expiresAt", now + ttlMillis);
+
+        boolean owner;
+        try {
+            owner = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), Document.class, COLLECTION) != null;
+        } catch (DuplicateKeyException e) {
+            // Outro nó detém a concessão e ela ainda não venceu
+            owner = false;
+        } catch (Exception e) {
+            System.out.println("Failed to renew cluster lease: " + e.getMessage());
+            owner = false;
+        }
+
+        var wasOwner = isOwner();
+        ownedUntil = owner ? now + ttlMillis / 2 : 0;
+
+        if (owner && !wasOwner) {
+            acquired.incrementAndGet();
+            System.out.println("Cluster lease acquired by node " + nodeId + ": settling bets and persisting candles");
+        } else if (!owner && wasOwner) {
+            lost.incrementAndGet();
+            System.out.println("Cluster lease lost by node " + nodeId);
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        if (!brokerStatus.isRelay() || ownedUntil == 0) {
+            return;
+        }
+
+        ownedUntil = 0;
+        try {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(NAME).and("owner").is(nodeId)),
+                    new Update().set("expiresAt", 0L), COLLECTION);
+        } catch (Exception e) {
+            System.out.println("Failed to release cluster lease: " + e.getMessage());
+        }
+    }
+
+    public boolean isOwner() {
+        return !brokerStatus.isRelay() || System.currentTimeMillis() < ownedUntil;
+    }
+
+    public JsonObject getStats() {
+        var json = new JsonObject();
+        json.addProperty("nodeId", nodeId);
+        json.addProperty("owner", isOwner());
+        json.addProperty("acquired", acquired.get());
+        json.addProperty("lost", lost.get());
+        return json;
+    }
+}
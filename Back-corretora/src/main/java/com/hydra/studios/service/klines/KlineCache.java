@@ -0,0 +1,322 @@
+package com.hydra.studios.service.klines;
+
+import com.google.gson.JsonObject;
+import com.hydra.studios.model.klines.Kline;
+import com.hydra.studios.model.klines.KlineColumns;
+import com.hydra.studios.model.klines.KlineHistory;
+import com.hydra.studios.service.binance.pipeline.KlineEvent;
+import com.hydra.studios.service.binance.pipeline.KlineEventHandler;
+import com.hydra.studios.service.binance.stream.KlineAggregator;
+import com.hydra.studios.service.klines.codec.KlineFormat;
+import com.hydra.studios.service.klines.store.KlineStore;
+import com.hydra.studios.service.price.PriceBook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Most recent closed candles per (pair, interval), kept in rings of primitive columns.
+ * Series are warmed from Mongo and appended from the live stream; each one keeps a
+ * pre-rendered response body per {@link KlineFormat} that is only rebuilt after a candle closes.
+ * <p>
+ * A series holds a contiguous run of the newest candles, so a range is answered from
+ * memory whenever it does not reach past the oldest cached candle.
+ */
+@Service
+public class KlineCache implements KlineEventHandler {
+
+    @Autowired
+    private KlineStore klineStore;
+
+    @Autowired
+    private PriceBook priceBook;
+
+    @Autowired
+    private KlineAggregator klineAggregator;
+
+    private final int capacity;
+
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong renders = new AtomicLong();
+    private final AtomicLong rangeHits = new AtomicLong();
+    private final AtomicLong rangeMisses = new AtomicLong();
+
+    public KlineCache(@Value("${kline.cache.capacity:500}") int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    @Override
+    public String getName() {
+        return "cache";
+    }
+
+    @Override
+    public void onEvent(KlineEvent event) {
+        if (!event.isClosed()) {
+            return;
+        }
+
+        series.computeIfAbsent(key(event.getSymbol(), event.getInterval()),
+                        k -> new Series(event.getSymbol(), event.getInterval(), capacity))
+                .append(event.getOpenTime(), event.getCloseTime(), event.getOpen(), event.getHigh(),
+                        event.getLow(), event.getClose());
+    }
+
+    /**
+     * Loads the stored candles of each pair and interval, keeping candles already received live.
+     */
+    public void warm(Collection<String> pairs, Collection<String> intervals) {
+        var start = System.currentTimeMillis();
+        for (var pair : pairs) {
+            for (var interval : intervals) {
+                load(pair, interval);
+            }
+        }
+
+        System.out.println("Kline cache warmed with " + series.size() + " series in "
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * Response body for {@code /v1/graphics/klines/{pair}/{interval}}, newest candle first.
+     * A series not yet cached is loaded from Mongo on first access. Pairs outside the
+     * {@link PriceBook} or intervals not produced by the {@link KlineAggregator} are never
+     * cached and are served straight from the store.
+     */
+    public KlineHistory snapshot(String pair, String interval, KlineFormat format) {
+        var s = series.get(key(pair, interval));
+        if (s == null) {
+            misses.incrementAndGet();
+            if (!cacheable(pair, interval)) {
+                var stored = klineStore.latest(pair, interval, capacity);
+                return KlineHistory.of(format.encode(columns(pair, interval, stored)));
+            }
+            s = load(pair, interval);
+        } else {
+            hits.incrementAndGet();
+        }
+
+        return s.snapshot(format);
+    }
+
+    /**
+     * Candles with {@code from <= openTime <= to}, newest first, at most {@code limit}.
+     *
+     * @return {@code null} when part of the range is older than what the cache holds
+     */
+    public KlineHistory range(String pair, String interval, long from, long to, int limit, KlineFormat format) {
+        var s = series.get(key(pair, interval));
+        var columns = s != null ? s.range(from, to, limit) : null;
+
+        if (columns == null) {
+            rangeMisses.incrementAndGet();
+            return null;
+        }
+
+        rangeHits.incrementAndGet();
+        return KlineHistory.of(format.encode(columns));
+    }
+
+    public JsonObject getStats() {
+        var json = new JsonObject();
+        json.addProperty("series", series.size());
+        json.addProperty("capacity", capacity);
+        json.addProperty("hits", hits.get());
+        json.addProperty("misses", misses.get());
+        json.addProperty("renders", renders.get());
+        json.addProperty("rangeHits", rangeHits.get());
+        json.addProperty("rangeMisses", rangeMisses.get());
+        return json;
+    }
+
+    private Series load(String pair, String interval) {
+        var s = series.computeIfAbsent(key(pair, interval), k -> new Series(pair, interval, capacity));
+        var stored = klineStore.latest(pair, interval, capacity);
+        // Menos velas no banco que a capacidade: o anel contém todo o histórico da série
+        s.load(stored, stored.size() < capacity);
+        return s;
+    }
+
+    // Só séries alimentadas pelo stream ficam em memória; qualquer outro par/intervalo vindo do cliente
+    // criaria uma série permanente
+    private boolean cacheable(String pair, String interval) {
+        return priceBook.indexOf(pair) >= 0 && klineAggregator.getIntervals().contains(interval);
+    }
+
+    private static KlineColumns columns(String pair, String interval, List<Kline> klines) {
+        var columns = new KlineColumns(pair, interval, klines.size());
+        for (var k : klines) {
+            columns.add(k.getOpenTime(), k.getCloseTime(), k.getOpen(), k.getHigh(), k.getLow(), k.getClose());
+        }
+        return columns;
+    }
+
+    private static String key(String pair, String interval) {
+        return pair + "/" + interval;
+    }
+
+    private class Series {
+
+        private final String pair;
+        private final String interval;
+
+        private final long[] openTime;
+        private final long[] closeTime;
+        private final double[] open;
+        private final double[] high;
+        private final double[] low;
+        private final double[] close;
+
+        // Próxima posição de escrita e quantidade de velas válidas no anel
+        private int head;
+        private int count;
+
+        // Nada mais antigo que a vela mais antiga do anel existe no banco
+        private boolean complete;
+
+        private final AtomicReferenceArray<KlineHistory> snapshots =
+                new AtomicReferenceArray<>(KlineFormat.values().length);
+
+        Series(String pair, String interval, int capacity) {
+            this.pair = pair;
+            this.interval = interval;
+            this.openTime = new long[capacity];
+            this.closeTime = new long[capacity];
+            this.open = new double[capacity];
+            this.high = new double[capacity];
+            this.low = new double[capacity];
+            this.close = new double[capacity];
+        }
+
+        synchronized void append(long ot, long ct, double o, double h, double l, double c) {
+            if (count > 0) {
+                var last = (head - 1 + openTime.length) % openTime.length;
+                if (ot < openTime[last]) {
+                    return;
+                }
+                if (ot == openTime[last]) {
+                    head = last;
+                    count--;
+                }
+            }
+
+            if (count == openTime.length) {
+                // A vela mais antiga sai do anel e passa a existir só no banco
+                complete = false;
+            }
+
+            openTime[head] = ot;
+            closeTime[head] = ct;
+            open[head] = o;
+            high[head] = h;
+            low[head] = l;
+            close[head] = c;
+
+            head = (head + 1) % openTime.length;
+            count = Math.min(count + 1, openTime.length);
+            invalidate();
+        }
+
+        /**
+         * Replaces the ring with {@code stored} (newest first) and re-appends live candles newer than it.
+         */
+        synchronized void load(List<Kline> stored, boolean complete) {
+            var newestStored = stored.isEmpty() ? Long.MIN_VALUE : stored.get(0).getOpenTime();
+
+            var liveCount = 0;
+            for (var i = 0; i < count && openTime[index(i)] > newestStored; i++) {
+                liveCount++;
+            }
+
+            var live = new long[liveCount][];
+            var livePrices = new double[liveCount][];
+            for (var i = 0; i < liveCount; i++) {
+                var idx = index(i);
+                live[i] = new long[] { openTime[idx], closeTime[idx] };
+                livePrices[i] = new double[] { open[idx], high[idx], low[idx], close[idx] };
+            }
+
+            head = 0;
+            count = 0;
+            for (var i = Math.min(stored.size(), openTime.length) - 1; i >= 0; i--) {
+                var k = stored.get(i);
+                append(k.getOpenTime(), k.getCloseTime(), k.getOpen(), k.getHigh(), k.getLow(), k.getClose());
+            }
+            for (var i = liveCount - 1; i >= 0; i--) {
+                append(live[i][0], live[i][1], livePrices[i][0], livePrices[i][1], livePrices[i][2],
+                        livePrices[i][3]);
+            }
+            this.complete = complete && stored.size() <= openTime.length;
+            invalidate();
+        }
+
+        KlineHistory snapshot(KlineFormat format) {
+            var current = snapshots.get(format.ordinal());
+            if (current != null) {
+                return current;
+            }
+
+            synchronized (this) {
+                current = snapshots.get(format.ordinal());
+                if (current == null) {
+                    current = KlineHistory.of(format.encode(columns(Long.MIN_VALUE, Long.MAX_VALUE, count)));
+                    snapshots.set(format.ordinal(), current);
+                    renders.incrementAndGet();
+                }
+                return current;
+            }
+        }
+
+        synchronized KlineColumns range(long from, long to, int limit) {
+            var skipped = 0;
+            while (skipped < count && openTime[index(skipped)] > to) {
+                skipped++;
+            }
+
+            var taken = 0;
+            while (skipped + taken < count && taken < limit && openTime[index(skipped + taken)] >= from) {
+                taken++;
+            }
+
+            var covered = complete || taken == limit || skipped + taken < count;
+            return covered ? columns(from, to, limit) : null;
+        }
+
+        // Copia as velas do intervalo, da mais recente para a mais antiga
+        private KlineColumns columns(long from, long to, int limit) {
+            var columns = new KlineColumns(pair, interval, Math.min(count, limit));
+            for (var i = 0; i < count && columns.getSize() < limit; i++) {
+                var idx = index(i);
+                if (openTime[idx] > to) {
+                    continue;
+                }
+                if (openTime[idx] < from) {
+                    break;
+                }
+                columns.add(openTime[idx], closeTime[idx], open[idx], high[idx], low[idx], close[idx]);
+            }
+            return columns;
+        }
+
+        private void invalidate() {
+            for (var i = 0; i < snapshots.length(); i++) {
+                snapshots.set(i, null);
+            }
+        }
+
+        // i-ésima vela a partir da mais recente
+        private int index(int i) {
+            return (head - 1 - i + 2 * openTime.length) % openTime.length;
+        }
+    }
+}
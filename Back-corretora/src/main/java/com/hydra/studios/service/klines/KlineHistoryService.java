@@ -0,0 +1,57 @@
+package com.hydra.studios.service.klines;
+
+import com.hydra.studios.model.klines.KlineColumns;
+import com.hydra.studios.model.klines.KlineHistory;
+import com.hydra.studios.service.klines.codec.KlineFormat;
+import com.hydra.studios.service.klines.store.KlineStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Candle history by range. Recent ranges come from the {@link KlineCache}; anything older
+ * is read from the {@link KlineStore} time-series tier of the interval into columns and
+ * encoded in the requested {@link KlineFormat}.
+ */
+@Service
+public class KlineHistoryService {
+
+    @Autowired
+    private KlineCache klineCache;
+
+    @Autowired
+    private KlineStore klineStore;
+
+    @Value("${kline.history.max-limit:1000}")
+    private int maxLimit;
+
+    private final AtomicLong storeReads = new AtomicLong();
+
+    public KlineHistory latest(String pair, String interval, KlineFormat format) {
+        return klineCache.snapshot(pair, interval, format);
+    }
+
+    public KlineHistory range(String pair, String interval, Long from, Long to, Integer limit, KlineFormat format) {
+        var lower = from != null ? from : Long.MIN_VALUE;
+        var upper = to != null ? to : Long.MAX_VALUE;
+        var max = Math.max(1, Math.min(limit != null ? limit : 500, maxLimit));
+
+        var cached = klineCache.range(pair, interval, lower, upper, max, format);
+        if (cached != null) {
+            return cached;
+        }
+
+        storeReads.incrementAndGet();
+
+        var columns = new KlineColumns(pair, interval, max);
+        klineStore.range(pair, interval, lower, upper, max, columns::add);
+
+        return KlineHistory.of(format.encode(columns));
+    }
+
+    public long getStoreReads() {
+        return storeReads.get();
+    }
+}
@@ -0,0 +1,143 @@
+package com.hydra.studios.service.klines;
+
+import com.google.gson.JsonObject;
+import com.hydra.studios.model.klines.Kline;
+import com.hydra.studios.service.binance.pipeline.KlineEvent;
+import com.hydra.studios.service.binance.pipeline.KlineEventHandler;
+import com.hydra.studios.service.cluster.ClusterLease;
+import com.hydra.studios.service.klines.store.KlineStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind persister for closed candles ({@code k.x == true}). Candles are buffered
+ * and inserted into the {@link KlineStore} tiers in unordered bulk writes, every
+ * {@code kline.writer.flush-ms} or as soon as {@code kline.writer.batch-size} are waiting.
+ */
+@Service
+public class KlineWriter implements KlineEventHandler {
+
+    @Autowired
+    private KlineStore klineStore;
+
+    @Autowired
+    private ClusterLease clusterLease;
+
+    private final int batchSize;
+    private final long flushMillis;
+
+    private final BlockingQueue<Kline> queue;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "kline-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile long lastFlushMillis;
+
+    public KlineWriter(@Value("${kline.writer.batch-size:500}") int batchSize,
+            @Value("${kline.writer.flush-ms:1000}") long flushMillis,
+            @Value("${kline.writer.capacity:100000}") int capacity) {
+        this.batchSize = Math.max(1, batchSize);
+        this.flushMillis = Math.max(10, flushMillis);
+        this.queue = new ArrayBlockingQueue<>(Math.max(this.batchSize, capacity));
+    }
+
+    @PostConstruct
+    public void start() {
+        executor.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+
+    @Override
+    public String getName() {
+        return "persistence";
+    }
+
+    @Override
+    public void onEvent(KlineEvent event) {
+        // Com vários nós só o dono da concessão grava, para não inserir cada vela N vezes
+        if (event.isClosed() && clusterLease.isOwner()) {
+            write(Kline.builder()
+                    .pair(event.getSymbol())
+                    .interval(event.getInterval())
+                    .openTime(event.getOpenTime())
+                    .open(event.getOpen())
+                    .high(event.getHigh())
+                    .low(event.getLow())
+                    .close(event.getClose())
+                    .closeTime(event.getCloseTime())
+                    .build());
+        }
+    }
+
+    /**
+     * Queues a candle without blocking; when the buffer is full the candle is dropped and counted.
+     */
+    public void write(Kline kline) {
+        if (!queue.offer(kline)) {
+            dropped.incrementAndGet();
+            return;
+        }
+
+        if (queue.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            executor.execute(this::flush);
+        }
+    }
+
+    private synchronized void flush() {
+        flushRequested.set(false);
+
+        var batch = new ArrayList<Kline>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            var start = System.currentTimeMillis();
+            try {
+                var failed = klineStore.insert(batch);
+                written.addAndGet(batch.size() - failed.size());
+
+                if (!failed.isEmpty()) {
+                    failures.incrementAndGet();
+                    System.out.println("Failed to write " + failed.size() + " of " + batch.size() + " klines");
+                    // Devolve ao buffer só o que falhou, para a próxima tentativa
+                    failed.forEach(queue::offer);
+                    return;
+                }
+            } finally {
+                lastFlushMillis = System.currentTimeMillis() - start;
+            }
+            batch.clear();
+        }
+    }
+
+    public JsonObject getStats() {
+        var json = new JsonObject();
+        json.addProperty("queueDepth", queue.size());
+        json.addProperty("written", written.get());
+        json.addProperty("dropped", dropped.get());
+        json.addProperty("failures", failures.get());
+        json.addProperty("lastFlushMillis", lastFlushMillis);
+        return json;
+    }
+}
@@ -0,0 +1,262 @@
+package com.hydra.studios.service.klines.codec;
+
+import com.hydra.studios.model.klines.KlineColumns;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Columnar binary encoding of a series, served as {@code application/x-candles}.
+ * <pre>
+ * 'K' 'C' version(1)
+ * pair, interval       varint length + UTF-8
+ * count                varint
+ * scale                byte, prices are sent as round(price * 10^scale)
+ * openTime             zigzag varints: first value, first delta, then delta-of-delta
+ * closeTime - openTime zigzag varints: first value, then deltas
+ * open, high, low, close
+ *                      one column each, zigzag varints: first scaled value, then deltas
+ * </pre>
+ * Candles keep the order of the {@link KlineColumns}. Prices are exact up to
+ * {@link #MAX_SCALE} decimal places, which covers every Binance tick size.
+ */
+public final class KlineBinaryCodec {
+
+    public static final String MEDIA_TYPE = "application/x-candles";
+
+    public static final int MAX_SCALE = 8;
+
+    private static final byte VERSION = 1;
+
+    private static final long[] POWERS = new long[MAX_SCALE + 1];
+
+    static {
+        POWERS[0] = 1;
+        for (var i = 1; i < POWERS.length; i++) {
+            POWERS[i] = POWERS[i - 1] * 10;
+        }
+    }
+
+    private KlineBinaryCodec() {
+    }
+
+    public static byte[] encode(KlineColumns columns) {
+        var size = columns.getSize();
+        var out = new Output(32 + size * 12);
+
+        out.writeByte('K');
+        out.writeByte('C');
+        out.writeByte(VERSION);
+        out.writeString(columns.getPair());
+        out.writeString(columns.getInterval());
+        out.writeVarLong(size);
+
+        var scale = scaleOf(columns);
+        out.writeByte(scale);
+
+        if (size == 0) {
+            return out.toByteArray();
+        }
+
+        var openTime = columns.getOpenTime();
+        out.writeSigned(openTime[0]);
+        var previousDelta = 0L;
+        for (var i = 1; i < size; i++) {
+            var delta = openTime[i] - openTime[i - 1];
+            out.writeSigned(delta - previousDelta);
+            previousDelta = delta;
+        }
+
+        var closeTime = columns.getCloseTime();
+        var previousDuration = 0L;
+        for (var i = 0; i < size; i++) {
+            var duration = closeTime[i] - openTime[i];
+            out.writeSigned(duration - previousDuration);
+            previousDuration = duration;
+        }
+
+        writePrices(out, columns.getOpen(), size, scale);
+        writePrices(out, columns.getHigh(), size, scale);
+        writePrices(out, columns.getLow(), size, scale);
+        writePrices(out, columns.getClose(), size, scale);
+
+        return out.toByteArray();
+    }
+
+    public static KlineColumns decode(byte[] data) {
+        var in = new Input(data);
+
+        if (in.readByte() != 'K' || in.readByte() != 'C') {
+            throw new IllegalArgumentException("Not a candles payload");
+        }
+        var version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported candles version: " + version);
+        }
+
+        var pair = in.readString();
+        var interval = in.readString();
+        var size = (int) in.readVarLong();
+        var scale = in.readByte();
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Invalid candles scale: " + scale);
+        }
+
+        var columns = new KlineColumns(pair, interval, size);
+        if (size == 0) {
+            return columns;
+        }
+
+        var openTime = new long[size];
+        openTime[0] = in.readSigned();
+        var delta = 0L;
+        for (var i = 1; i < size; i++) {
+            delta += in.readSigned();
+            openTime[i] = openTime[i - 1] + delta;
+        }
+
+        var closeTime = new long[size];
+        var duration = 0L;
+        for (var i = 0; i < size; i++) {
+            duration += in.readSigned();
+            closeTime[i] = openTime[i] + duration;
+        }
+
+        var open = readPrices(in, size, scale);
+        var high = readPrices(in, size, scale);
+        var low = readPrices(in, size, scale);
+        var close = readPrices(in, size, scale);
+
+        for (var i = 0; i < size; i++) {
+            columns.add(openTime[i], closeTime[i], open[i], high[i], low[i], close[i]);
+        }
+        return columns;
+    }
+
+    /**
+     * Smallest number of decimal places that represents every price of the series exactly.
+     */
+    static int scaleOf(KlineColumns columns) {
+        var scale = 0;
+        for (var i = 0; i < columns.getSize() && scale < MAX_SCALE; i++) {
+            scale = Math.max(scale, scaleOf(columns.getOpen()[i], scale));
+            scale = Math.max(scale, scaleOf(columns.getHigh()[i], scale));
+            scale = Math.max(scale, scaleOf(columns.getLow()[i], scale));
+            scale = Math.max(scale, scaleOf(columns.getClose()[i], scale));
+        }
+        return scale;
+    }
+
+    private static int scaleOf(double price, int from) {
+        for (var scale = from; scale < MAX_SCALE; scale++) {
+            if (Math.round(price * POWERS[scale]) / (double) POWERS[scale] == price) {
+                return scale;
+            }
+        }
+        return MAX_SCALE;
+    }
+
+    private static void writePrices(Output out, double[] prices, int size, int scale) {
+        var previous = 0L;
+        for (var i = 0; i < size; i++) {
+            var scaled = Math.round(prices[i] * POWERS[scale]);
+            out.writeSigned(scaled - previous);
+            previous = scaled;
+        }
+    }
+
+    private static double[] readPrices(Input in, int size, int scale) {
+        var prices = new double[size];
+        var scaled = 0L;
+        for (var i = 0; i < size; i++) {
+            scaled += in.readSigned();
+            prices[i] = scaled / (double) POWERS[scale];
+        }
+        return prices;
+    }
+
+    private static final class Output {
+
+        private byte[] buffer;
+        private int position;
+
+        private Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void writeByte(int value) {
+            if (position == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        private void writeSigned(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        private void writeString(String value) {
+            var bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            for (var b : bytes) {
+                writeByte(b);
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] data;
+        private int position;
+
+        private Input(byte[] data) {
+            this.data = data;
+        }
+
+        private int readByte() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Truncated candles payload");
+            }
+            return data[position++];
+        }
+
+        private long readVarLong() {
+            var value = 0L;
+            for (var shift = 0; shift < 64; shift += 7) {
+                var b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in candles payload");
+        }
+
+        private long readSigned() {
+            var value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private String readString() {
+            var length = (int) readVarLong();
+            if (length < 0 || position + length > data.length) {
+                throw new IllegalArgumentException("Truncated candles payload");
+            }
+            var value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.hydra.studios.service.klines.codec;
+
+import com.hydra.studios.model.klines.KlineColumns;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+/**
+ * Response formats of the candle history endpoint, picked from the {@code Accept} header.
+ */
+@Getter
+public enum KlineFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    CANDLES(MediaType.parseMediaType(KlineBinaryCodec.MEDIA_TYPE));
+
+    private final MediaType mediaType;
+
+    KlineFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public byte[] encode(KlineColumns columns) {
+        return this == CANDLES ? KlineBinaryCodec.encode(columns) : KlineJsonEncoder.encode(columns);
+    }
+
+    public static KlineFormat fromAccept(String accept) {
+        return accept != null && accept.contains(KlineBinaryCodec.MEDIA_TYPE) ? CANDLES : JSON;
+    }
+}
@@ -0,0 +1,41 @@
+package com.hydra.studios.service.klines.codec;
+
+import com.hydra.studios.model.klines.Kline;
+import com.hydra.studios.model.klines.KlineColumns;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Renders a series as the JSON Gson produced for {@code ResponseModal} with a list of
+ * {@link Kline}, without building the entities.
+ */
+public final class KlineJsonEncoder {
+
+    private KlineJsonEncoder() {
+    }
+
+    public static byte[] encode(KlineColumns columns) {
+        var pair = columns.getPair();
+        var interval = columns.getInterval();
+        var size = columns.getSize();
+
+        var json = new StringBuilder(64 + size * 160).append("{\"status\":true,\"data\":[");
+        for (var i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"").append(Kline.idOf(pair, interval, columns.getOpenTime()[i]))
+                    .append("\",\"pair\":\"").append(pair)
+                    .append("\",\"interval\":\"").append(interval)
+                    .append("\",\"openTime\":").append(columns.getOpenTime()[i])
+                    .append(",\"open\":").append(columns.getOpen()[i])
+                    .append(",\"high\":").append(columns.getHigh()[i])
+                    .append(",\"low\":").append(columns.getLow()[i])
+                    .append(",\"close\":").append(columns.getClose()[i])
+                    .append(",\"closeTime\":").append(columns.getCloseTime()[i])
+                    .append('}');
+        }
+
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,143 @@
+package com.hydra.studios.service.klines.store;
+
+import com.hydra.studios.model.klines.Kline;
+import com.hydra.studios.service.cluster.ClusterLease;
+import com.mongodb.MongoNamespace;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves candles from the old plain {@code klines} collection into the time-series tiers
+ * and renames it to {@code klines_legacy} once done. Runs before the exchange sync so the
+ * candle caches are warmed from the migrated data.
+ * <p>
+ * Candles are read in {@code _id} order and the last migrated id is checkpointed after every
+ * batch, so an interrupted migration resumes where it stopped instead of writing candles twice.
+ */
+@Component
+public class KlineMigrationJob {
+
+    private static final String LEGACY_COLLECTION = "klines";
+    private static final String MIGRATED_COLLECTION = "klines_legacy";
+    private static final String CHECKPOINT_COLLECTION = "kline_migrations";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private KlineStore klineStore;
+
+    @Autowired
+    private ClusterLease clusterLease;
+
+    @Value("${kline.storage.migrate-legacy:true}")
+    private boolean enabled;
+
+    @Value("${kline.storage.migration-batch-size:1000}")
+    private int batchSize;
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!enabled || !mongoTemplate.collectionExists(LEGACY_COLLECTION)) {
+            return;
+        }
+
+        if (!clusterLease.isOwner()) {
+            System.out.println("Legacy klines migration left to the cluster lease owner.");
+            return;
+        }
+
+        // Retoma depois do último lote gravado, para que uma nova execução não duplique velas
+        var query = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(batchSize);
+        var checkpoint = mongoTemplate.findById(LEGACY_COLLECTION, Document.class, CHECKPOINT_COLLECTION);
+        if (checkpoint != null) {
+            query.addCriteria(Criteria.where("_id").gt(checkpoint.get("lastId")));
+            System.out.println("Resuming legacy klines migration after " + checkpoint.get("lastId") + "...");
+        } else {
+            System.out.println("Migrating legacy klines collection to time-series tiers...");
+        }
+
+        var start = System.currentTimeMillis();
+        var migrated = 0L;
+
+        var batch = new ArrayList<Kline>(batchSize);
+        Object lastId = null;
+        try (var stream = mongoTemplate.stream(query, Document.class, LEGACY_COLLECTION)) {
+            for (var it = stream.iterator(); it.hasNext(); ) {
+                var document = it.next();
+                batch.add(toKline(document));
+                lastId = document.get("_id");
+
+                if (batch.size() >= batchSize) {
+                    if (!flush(batch, lastId)) {
+                        return;
+                    }
+                    migrated += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            if (!flush(batch, lastId)) {
+                return;
+            }
+            migrated += batch.size();
+        }
+
+        mongoTemplate.getCollection(LEGACY_COLLECTION).renameCollection(
+                new MongoNamespace(mongoTemplate.getDb().getName(), MIGRATED_COLLECTION));
+
+        System.out.println("Kline migration completed: " + migrated + " candles in "
+                + (System.currentTimeMillis() - start) + "ms, legacy collection renamed to " + MIGRATED_COLLECTION);
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(LEGACY_COLLECTION)), CHECKPOINT_COLLECTION);
+    }
+
+    /**
+     * Writes one batch and advances the checkpoint past it.
+     *
+     * @return {@code false} when part of the batch failed; the checkpoint stays before it
+     */
+    private boolean flush(List<Kline> batch, Object lastId) {
+        var failed = klineStore.insert(batch).size();
+        if (failed > 0) {
+            // Mantém a coleção antiga e o checkpoint; a próxima execução retoma deste lote
+            System.out.println("Kline migration incomplete: " + failed + " of " + batch.size()
+                    + " candles failed, legacy collection kept.");
+            return false;
+        }
+
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(LEGACY_COLLECTION)),
+                new Update().set("lastId", lastId).set("updatedAt", System.currentTimeMillis()),
+                CHECKPOINT_COLLECTION);
+        return true;
+    }
+
+    private static Kline toKline(Document document) {
+        return Kline.builder()
+                .pair(document.getString("pair"))
+                .interval(document.getString("interval"))
+                .openTime(document.get("openTime", Number.class).longValue())
+                .open(document.get("open", Number.class).doubleValue())
+                .high(document.get("high", Number.class).doubleValue())
+                .low(document.get("low", Number.class).doubleValue())
+                .close(document.get("close", Number.class).doubleValue())
+                .closeTime(document.get("closeTime", Number.class).longValue())
+                .build();
+    }
+}
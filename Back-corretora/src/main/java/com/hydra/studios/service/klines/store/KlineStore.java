@@ -0,0 +1,233 @@
+package com.hydra.studios.service.klines.store;
+
+import com.hydra.studios.model.klines.Kline;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Closed candles stored in Mongo time-series collections, one per {@link KlineTier}.
+ * Documents are {@code {openTime: Date, meta: {pair, interval}, open, high, low, close, closeTime}},
+ * so a chart range is a scan of one meta series in time order.
+ * <p>
+ * Time-series collections have no unique indexes, so {@link #insert} skips candles whose
+ * (pair, interval, openTime) is already stored, and reads still drop any duplicate that slipped
+ * through two concurrent writers.
+ */
+@Service
+public class KlineStore {
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Map<KlineTier, Long> retentionDays = new EnumMap<>(KlineTier.class);
+
+    public KlineStore(MongoTemplate mongoTemplate,
+            @Value("${kline.storage.retention-days.minute:30}") long minuteRetention,
+            @Value("${kline.storage.retention-days.intraday:365}") long intradayRetention,
+            @Value("${kline.storage.retention-days.history:0}") long historyRetention) {
+        this.mongoTemplate = mongoTemplate;
+        this.retentionDays.put(KlineTier.MINUTE, minuteRetention);
+        this.retentionDays.put(KlineTier.INTRADAY, intradayRetention);
+        this.retentionDays.put(KlineTier.HISTORY, historyRetention);
+    }
+
+    /**
+     * Creates the tier collections, or brings the TTL of existing ones in line with the configuration.
+     */
+    @PostConstruct
+    public void init() {
+        for (var tier : KlineTier.values()) {
+            var days = retentionDays.get(tier);
+
+            if (!mongoTemplate.collectionExists(tier.getCollection())) {
+                mongoTemplate.createCollection(tier.getCollection(), CollectionOptions.timeSeries("openTime",
+                        options -> {
+                            var configured = options.metaField("meta").granularity(tier.getGranularity());
+                            return days > 0 ? configured.expireAfter(Duration.ofDays(days)) : configured;
+                        }));
+                continue;
+            }
+
+            mongoTemplate.executeCommand(new Document("collMod", tier.getCollection())
+                    .append("expireAfterSeconds", days > 0 ? Duration.ofDays(days).toSeconds() : "off"));
+        }
+    }
+
+    /**
+     * Inserts the candles into their tiers, skipping the ones already stored.
+     *
+     * @return the candles that could not be written
+     */
+    public List<Kline> insert(Collection<Kline> klines) {
+        var byTier = new EnumMap<KlineTier, List<Kline>>(KlineTier.class);
+        for (var kline : klines) {
+            byTier.computeIfAbsent(KlineTier.of(kline.getInterval()), t -> new ArrayList<>()).add(kline);
+        }
+
+        var failed = new ArrayList<Kline>();
+        for (var entry : byTier.entrySet()) {
+            List<Kline> tierKlines;
+            try {
+                tierKlines = missing(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                failed.addAll(entry.getValue());
+                continue;
+            }
+            if (tierKlines.isEmpty()) {
+                continue;
+            }
+
+            var documents = new ArrayList<Document>(tierKlines.size());
+            tierKlines.forEach(kline -> documents.add(toDocument(kline)));
+
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entry.getKey().getCollection())
+                        .insert(documents)
+                        .execute();
+            } catch (BulkOperationException e) {
+                e.getErrors().forEach(error -> failed.add(tierKlines.get(error.getIndex())));
+            } catch (Exception e) {
+                failed.addAll(tierKlines);
+            }
+        }
+
+        return failed;
+    }
+
+    /**
+     * Up to {@code limit} candles with {@code from <= openTime <= to}, newest first.
+     */
+    public void range(String pair, String interval, long from, long to, int limit, Consumer<Kline> consumer) {
+        var criteria = Criteria.where("meta.pair").is(pair).and("meta.interval").is(interval);
+        if (from != Long.MIN_VALUE || to != Long.MAX_VALUE) {
+            criteria = criteria.and("openTime").gte(new Date(Math.max(0, from))).lte(new Date(to));
+        }
+
+        // Sem limite no cursor: a leitura segue até juntar limit openTimes distintos
+        var query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "openTime"))
+                .cursorBatchSize(Math.min(limit, 500));
+
+        stream(query, interval, limit, consumer);
+    }
+
+    public List<Kline> latest(String pair, String interval, int limit) {
+        var klines = new ArrayList<Kline>(limit);
+        range(pair, interval, Long.MIN_VALUE, Long.MAX_VALUE, limit, klines::add);
+        return klines;
+    }
+
+    /**
+     * Every candle with {@code openTime >= from}, oldest first.
+     */
+    public List<Kline> since(String pair, String interval, long from) {
+        var query = Query.query(Criteria.where("meta.pair").is(pair).and("meta.interval").is(interval)
+                        .and("openTime").gte(new Date(from)))
+                .with(Sort.by(Sort.Direction.ASC, "openTime"));
+
+        var klines = new ArrayList<Kline>();
+        stream(query, interval, Integer.MAX_VALUE, klines::add);
+        return klines;
+    }
+
+    private void stream(Query query, String interval, int limit, Consumer<Kline> consumer) {
+        try (var stream = mongoTemplate.stream(query, Document.class, KlineTier.of(interval).getCollection())) {
+            var iterator = stream.iterator();
+            var previous = Long.MIN_VALUE;
+            var count = 0;
+
+            while (count < limit && iterator.hasNext()) {
+                var kline = fromDocument(iterator.next());
+                if (kline.getOpenTime() == previous) {
+                    continue;
+                }
+
+                previous = kline.getOpenTime();
+                consumer.accept(kline);
+                count++;
+            }
+        }
+    }
+
+    /**
+     * Drops the candles whose (pair, interval, openTime) is already in the tier, or repeated in the batch.
+     */
+    private List<Kline> missing(KlineTier tier, List<Kline> klines) {
+        var pairs = new HashSet<String>();
+        var intervals = new HashSet<String>();
+        var from = Long.MAX_VALUE;
+        var to = Long.MIN_VALUE;
+        for (var kline : klines) {
+            pairs.add(kline.getPair());
+            intervals.add(kline.getInterval());
+            from = Math.min(from, kline.getOpenTime());
+            to = Math.max(to, kline.getOpenTime());
+        }
+
+        var query = Query.query(Criteria.where("meta.pair").in(pairs).and("meta.interval").in(intervals)
+                .and("openTime").gte(new Date(from)).lte(new Date(to)));
+        query.fields().include("openTime").include("meta");
+
+        var seen = new HashSet<String>();
+        for (var document : mongoTemplate.find(query, Document.class, tier.getCollection())) {
+            var meta = document.get("meta", Document.class);
+            seen.add(Kline.idOf(meta.getString("pair"), meta.getString("interval"),
+                    document.getDate("openTime").getTime()));
+        }
+
+        var missing = new ArrayList<Kline>(klines.size());
+        for (var kline : klines) {
+            if (seen.add(Kline.idOf(kline.getPair(), kline.getInterval(), kline.getOpenTime()))) {
+                missing.add(kline);
+            }
+        }
+        return missing;
+    }
+
+    static Document toDocument(Kline kline) {
+        return new Document("openTime", new Date(kline.getOpenTime()))
+                .append("meta", new Document("pair", kline.getPair()).append("interval", kline.getInterval()))
+                .append("open", kline.getOpen())
+                .append("high", kline.getHigh())
+                .append("low", kline.getLow())
+                .append("close", kline.getClose())
+                .append("closeTime", kline.getCloseTime());
+    }
+
+    private static Kline fromDocument(Document document) {
+        var meta = document.get("meta", Document.class);
+        var pair = meta.getString("pair");
+        var interval = meta.getString("interval");
+        var openTime = document.getDate("openTime").getTime();
+
+        return Kline.builder()
+                .id(Kline.idOf(pair, interval, openTime))
+                .pair(pair)
+                .interval(interval)
+                .openTime(openTime)
+                .open(document.getDouble("open"))
+                .high(document.getDouble("high"))
+                .low(document.getDouble("low"))
+                .close(document.getDouble("close"))
+                .closeTime(document.get("closeTime", Number.class).longValue())
+                .build();
+    }
+}
@@ -0,0 +1,41 @@
+package com.hydra.studios.service.klines.store;
+
+import com.hydra.studios.service.binance.stream.KlineAggregator;
+import lombok.Getter;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Storage tiers of closed candles. Each tier is its own time-series collection, so each
+ * can have its own retention: raw 1m data expires quickly, rolled-up intervals are kept
+ * longer, and hourly and above are kept for good by default.
+ */
+@Getter
+public enum KlineTier {
+
+    MINUTE("klines_1m", Granularity.MINUTES),
+    INTRADAY("klines_intraday", Granularity.MINUTES),
+    HISTORY("klines_history", Granularity.HOURS);
+
+    private final String collection;
+    private final Granularity granularity;
+
+    KlineTier(String collection, Granularity granularity) {
+        this.collection = collection;
+        this.granularity = granularity;
+    }
+
+    public static KlineTier of(String interval) {
+        if (KlineAggregator.BASE_INTERVAL.equals(interval)) {
+            return MINUTE;
+        }
+
+        try {
+            return KlineAggregator.periodOf(interval) < TimeUnit.HOURS.toMillis(1) ? INTRADAY : HISTORY;
+        } catch (RuntimeException e) {
+            // Intervalo desconhecido: nada foi gravado para ele, qualquer tier responde vazio
+            return HISTORY;
+        }
+    }
+}
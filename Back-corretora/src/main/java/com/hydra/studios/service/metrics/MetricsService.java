@@ -0,0 +1,105 @@
+package com.hydra.studios.service.metrics;
+
+import com.google.gson.JsonObject;
+import com.hydra.studios.service.account.mailbox.AccountMailbox;
+import com.hydra.studios.service.bet.expiry.BetExpiryWheel;
+import com.hydra.studios.service.bet.settlement.BetSettlementService;
+import com.hydra.studios.service.cluster.ClusterLease;
+import com.hydra.studios.ws.controller.AccController;
+import com.hydra.studios.service.binance.pipeline.MarketDataPipeline;
+import com.hydra.studios.service.binance.source.MarketDataSource;
+import com.hydra.studios.service.klines.KlineCache;
+import com.hydra.studios.service.klines.KlineHistoryService;
+import com.hydra.studios.service.klines.KlineWriter;
+import com.hydra.studios.service.price.PriceStaleness;
+import com.hydra.studios.service.price.archive.TickArchive;
+import com.hydra.studios.ws.broker.BrokerStatus;
+import com.hydra.studios.ws.channel.ChannelExecutors;
+import com.hydra.studios.ws.controller.KlineController;
+import com.hydra.studios.ws.session.StompSessions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class MetricsService {
+
+    @Autowired
+    private BetExpiryWheel betExpiryWheel;
+
+    @Autowired
+    private BetSettlementService betSettlementService;
+
+    @Autowired
+    private AccountMailbox accountMailbox;
+
+    @Autowired
+    private MarketDataPipeline marketDataPipeline;
+
+    @Autowired
+    private MarketDataSource marketDataSource;
+
+    @Autowired
+    private KlineController klineController;
+
+    @Autowired
+    private KlineWriter klineWriter;
+
+    @Autowired
+    private KlineCache klineCache;
+
+    @Autowired
+    private KlineHistoryService klineHistoryService;
+
+    @Autowired
+    private TickArchive tickArchive;
+
+    @Autowired
+    private PriceStaleness priceStaleness;
+
+    @Autowired
+    private BrokerStatus brokerStatus;
+
+    @Autowired
+    private ClusterLease clusterLease;
+
+    @Autowired
+    private AccController accController;
+
+    @Autowired
+    private ChannelExecutors channelExecutors;
+
+    @Autowired
+    private StompSessions stompSessions;
+
+    public JsonObject getMetrics() {
+        var json = new JsonObject();
+
+        var settlement = new JsonObject();
+        settlement.addProperty("openBets", betExpiryWheel.size());
+        settlement.addProperty("betsPerSecond", betSettlementService.getBetsPerSecond());
+        settlement.addProperty("settledTotal", betSettlementService.getSettledTotal().get());
+        settlement.addProperty("lastBatchSize", betSettlementService.getLastBatchSize());
+        settlement.addProperty("lastBatchMillis", betSettlementService.getLastBatchMillis());
+        settlement.addProperty("pendingCredits", betSettlementService.getPendingCredits());
+        settlement.addProperty("unconfirmedBatches", betSettlementService.getUnconfirmedBatches());
+        json.add("settlement", settlement);
+
+        json.add("mailbox", accountMailbox.getStats());
+        json.add("marketData", marketDataPipeline.getStats());
+        json.add("marketSource", marketDataSource.getStats());
+        json.add("priceStaleness", priceStaleness.getStats());
+        json.add("klinePublisher", klineController.getStats());
+        json.add("broker", brokerStatus.getStats());
+        json.add("cluster", clusterLease.getStats());
+        json.add("stompChannels", channelExecutors.getStats());
+        json.add("privateUpdates", accController.getStats());
+        json.add("stompSessions", stompSessions.getStats());
+        json.add("klineWriter", klineWriter.getStats());
+        var klineCacheStats = klineCache.getStats();
+        klineCacheStats.addProperty("storeReads", klineHistoryService.getStoreReads());
+        json.add("klineCache", klineCacheStats);
+        json.add("tickArchive", tickArchive.getStats());
+
+        return json;
+    }
+}
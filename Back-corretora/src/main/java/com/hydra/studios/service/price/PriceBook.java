@@ -0,0 +1,153 @@
+package com.hydra.studios.service.price;
+
+import com.hydra.studios.model.price.PriceTick;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Last price per symbol, stored in primitive slots indexed by a fixed symbol table.
+ * Each slot is guarded by a sequence lock so readers always get a price and its event
+ * time from the same update, without locks or allocation.
+ */
+@Component
+public class PriceBook {
+
+    // seq, price bits, event time; padded to 64 bytes so symbols do not share a cache line
+    private static final int STRIDE = 8;
+    private static final int SEQ = 0;
+    private static final int PRICE = 1;
+    private static final int EVENT_TIME = 2;
+
+    private volatile Book book = new Book(Map.of(), new String[0]);
+
+    /**
+     * Adds symbols to the table. Symbols already present keep their index and price, and are
+     * never dropped, so an index read by a handler stays valid across calls.
+     */
+    public synchronized void init(Collection<String> symbols) {
+        var previous = book;
+        var index = new HashMap<String, Integer>(previous.index);
+        for (var symbol : symbols) {
+            index.putIfAbsent(symbol.toUpperCase().intern(), index.size());
+        }
+
+        var names = new String[index.size()];
+        index.forEach((symbol, i) -> names[i] = symbol);
+
+        var next = new Book(Map.copyOf(index), names);
+        var tick = new PriceTick();
+        for (var i = 0; i < names.length; i++) {
+            var old = previous.index.get(names[i]);
+            if (old != null && read(previous, old, tick)) {
+                write(next, i, tick.getPrice(), tick.getEventTime());
+            }
+        }
+
+        book = next;
+    }
+
+    public int indexOf(String symbol) {
+        var i = book.index.get(symbol);
+        return i != null ? i : -1;
+    }
+
+    public int size() {
+        return book.symbols.length;
+    }
+
+    public String symbolOf(int index) {
+        return book.symbols[index];
+    }
+
+    /**
+     * Stores a new price for the symbol. Updates older than the current one are ignored,
+     * so the interleaved streams of the same pair never move the price backwards.
+     */
+    public void update(int index, double price, long eventTime) {
+        var current = book;
+        if (index < 0 || index >= current.symbols.length) {
+            return;
+        }
+        write(current, index, price, eventTime);
+    }
+
+    public void update(String symbol, double price, long eventTime) {
+        update(indexOf(symbol), price, eventTime);
+    }
+
+    /**
+     * @return {@code false} when the symbol is unknown or has not received a price yet
+     */
+    public boolean read(int index, PriceTick into) {
+        var current = book;
+        if (index < 0 || index >= current.symbols.length) {
+            return false;
+        }
+        return read(current, index, into);
+    }
+
+    public PriceTick get(String symbol) {
+        var tick = new PriceTick();
+        return read(indexOf(symbol), tick) ? tick : null;
+    }
+
+    private static void write(Book book, int index, double price, long eventTime) {
+        var data = book.data;
+        var base = index * STRIDE;
+
+        long seq;
+        do {
+            seq = data.get(base + SEQ);
+        } while ((seq & 1) != 0 || !data.compareAndSet(base + SEQ, seq, seq + 1));
+
+        if (eventTime >= data.get(base + EVENT_TIME)) {
+            data.set(base + PRICE, Double.doubleToRawLongBits(price));
+            data.set(base + EVENT_TIME, eventTime);
+        }
+
+        data.set(base + SEQ, seq + 2);
+    }
+
+    private static boolean read(Book book, int index, PriceTick into) {
+        var data = book.data;
+        var base = index * STRIDE;
+
+        while (true) {
+            var before = data.get(base + SEQ);
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            var price = data.get(base + PRICE);
+            var eventTime = data.get(base + EVENT_TIME);
+
+            if (data.get(base + SEQ) == before) {
+                if (eventTime == 0) {
+                    return false;
+                }
+                into.setPrice(Double.longBitsToDouble(price));
+                into.setEventTime(eventTime);
+                into.setSequence(before >>> 1);
+                return true;
+            }
+        }
+    }
+
+    private static class Book {
+
+        private final Map<String, Integer> index;
+        private final String[] symbols;
+        private final AtomicLongArray data;
+
+        private Book(Map<String, Integer> index, String[] symbols) {
+            this.index = index;
+            this.symbols = symbols;
+            this.data = new AtomicLongArray(symbols.length * STRIDE);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.hydra.studios.service.price;
+
+import com.hydra.studios.model.price.PriceTick;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Recent ticks per symbol in fixed-size rings of primitive arrays, so a bet can be
+ * settled with the price that was valid at its {@code finishIn} even if settlement
+ * runs late. Symbols share the index of the {@link PriceBook}.
+ */
+@Component
+public class PriceHistory {
+
+    @Autowired
+    private PriceBook priceBook;
+
+    private final int capacity;
+
+    private volatile Ring[] rings = new Ring[0];
+
+    public PriceHistory(@Value("${price.history.capacity:4096}") int capacity) {
+        this.capacity = Math.max(16, capacity);
+    }
+
+    /**
+     * Allocates one ring per symbol of the current {@link PriceBook} table. Rings of symbols
+     * already known are kept, since the book never moves a symbol to another index.
+     */
+    public synchronized void init() {
+        var current = rings;
+        var next = Arrays.copyOf(current, Math.max(current.length, priceBook.size()));
+        for (var i = current.length; i < next.length; i++) {
+            next[i] = new Ring(capacity);
+        }
+        rings = next;
+    }
+
+    public void record(int index, double price, long eventTime) {
+        var ring = ring(index);
+        if (ring != null) {
+            ring.add(eventTime, price);
+        }
+    }
+
+    public void record(String symbol, double price, long eventTime) {
+        record(priceBook.indexOf(symbol), price, eventTime);
+    }
+
+    /**
+     * Finds the last tick at or before {@code epochMillis}.
+     *
+     * @return {@code false} when the symbol is unknown or the time is older than the retained window
+     */
+    public boolean priceAt(int index, long epochMillis, PriceTick into) {
+        var ring = ring(index);
+        return ring != null && ring.at(epochMillis, into);
+    }
+
+    public boolean priceAt(String symbol, long epochMillis, PriceTick into) {
+        return priceAt(priceBook.indexOf(symbol), epochMillis, into);
+    }
+
+    public PriceTick priceAt(String symbol, long epochMillis) {
+        var tick = new PriceTick();
+        return priceAt(symbol, epochMillis, tick) ? tick : null;
+    }
+
+    /**
+     * Event time of the newest tick received for the symbol, or {@code 0} if none.
+     */
+    public long latestTime(int index) {
+        var ring = ring(index);
+        return ring != null ? ring.latest() : 0;
+    }
+
+    public long latestTime(String symbol) {
+        return latestTime(priceBook.indexOf(symbol));
+    }
+
+    private Ring ring(int index) {
+        var current = rings;
+        return index >= 0 && index < current.length ? current[index] : null;
+    }
+
+    private static class Ring {
+
+        private final long[] times;
+        private final double[] prices;
+
+        private int start;
+        private int count;
+        private long written;
+
+        private Ring(int capacity) {
+            this.times = new long[capacity];
+            this.prices = new double[capacity];
+        }
+
+        private synchronized void add(long time, double price) {
+            if (count > 0) {
+                var last = physical(count - 1);
+                if (time < times[last]) {
+                    return;
+                }
+                if (time == times[last]) {
+                    prices[last] = price;
+                    return;
+                }
+            }
+
+            int slot;
+            if (count < times.length) {
+                slot = physical(count);
+                count++;
+            } else {
+                slot = start;
+                start = (start + 1) % times.length;
+            }
+
+            times[slot] = time;
+            prices[slot] = price;
+            written++;
+        }
+
+        private synchronized boolean at(long time, PriceTick into) {
+            if (count == 0 || time < times[start]) {
+                return false;
+            }
+
+            // Maior posição lógica com times <= time
+            int low = 0, high = count - 1;
+            while (low < high) {
+                var mid = (low + high + 1) >>> 1;
+                if (times[physical(mid)] <= time) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+
+            var slot = physical(low);
+            into.setPrice(prices[slot]);
+            into.setEventTime(times[slot]);
+            into.setSequence(written - count + low + 1);
+            return true;
+        }
+
+        private synchronized long latest() {
+            return count > 0 ? times[physical(count - 1)] : 0;
+        }
+
+        private int physical(int logical) {
+            return (start + logical) % times.length;
+        }
+    }
+}
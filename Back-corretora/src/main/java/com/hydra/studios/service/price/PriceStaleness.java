@@ -0,0 +1,82 @@
+package com.hydra.studios.service.price;
+
+import com.google.gson.JsonObject;
+import com.hydra.studios.model.price.PriceTick;
+import com.hydra.studios.service.binance.source.MarketClock;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells whether the live price of a pair can still be trusted. A pair is stale when its last tick
+ * in the {@link PriceBook} is older than {@code market.stale-after-ms}, which happens while the
+ * upstream socket is down or reconnecting.
+ */
+@Component
+public class PriceStaleness {
+
+    @Autowired
+    private PriceBook priceBook;
+
+    @Autowired
+    private MarketClock marketClock;
+
+    @Getter
+    @Value("${market.stale-after-ms:15000}")
+    private long staleAfterMillis;
+
+    private final ThreadLocal<PriceTick> scratch = ThreadLocal.withInitial(PriceTick::new);
+
+    /**
+     * Age of the last tick of the symbol in millis, or -1 when the symbol never had a price.
+     * The tick is read into {@code into}, which the caller owns and may reuse.
+     */
+    public long ageMillis(int index, long now, PriceTick into) {
+        return priceBook.read(index, into) ? Math.max(0, now - into.getEventTime()) : -1;
+    }
+
+    public long ageMillis(String symbol, long now) {
+        return ageMillis(priceBook.indexOf(symbol), now, scratch.get());
+    }
+
+    /**
+     * Staleness check for hot paths that already resolved the {@link PriceBook} index.
+     */
+    public boolean isStale(int index, PriceTick into) {
+        var age = ageMillis(index, marketClock.now(), into);
+        return age < 0 || age > staleAfterMillis;
+    }
+
+    public boolean isStale(String symbol) {
+        return isStale(priceBook.indexOf(symbol), scratch.get());
+    }
+
+    public JsonObject getStats() {
+        var now = marketClock.now();
+        var tick = new PriceTick();
+        var pairs = new JsonObject();
+        var stale = 0;
+        var maxAge = 0L;
+
+        for (int i = 0; i < priceBook.size(); i++) {
+            if (!priceBook.read(i, tick)) {
+                continue;
+            }
+
+            var age = Math.max(0, now - tick.getEventTime());
+            if (age > staleAfterMillis) {
+                stale++;
+            }
+            maxAge = Math.max(maxAge, age);
+            pairs.addProperty(priceBook.symbolOf(i), age);
+        }
+
+        var json = new JsonObject();
+        json.addProperty("staleAfterMillis", staleAfterMillis);
+        json.addProperty("stalePairs", stale);
+        json.addProperty("maxAgeMillis", maxAge);
+        json.add("ageMillis", pairs);
+        return json;
+    }
+}
@@ -0,0 +1,294 @@
+package com.hydra.studios.service.price.archive;
+
+import com.google.gson.JsonObject;
+import com.hydra.studios.model.price.PriceTick;
+import com.hydra.studios.service.binance.pipeline.KlineEvent;
+import com.hydra.studios.service.binance.pipeline.KlineEventHandler;
+import com.hydra.studios.service.binance.stream.KlineAggregator;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Append-only archive of every 1m price update received from Binance, one memory-mapped
+ * file per UTC day. Written from its own pipeline consumer, so it never slows ingest;
+ * read in place for settlement audits and for {@code priceAt} lookups older than the
+ * {@code PriceHistory} window.
+ * <p>
+ * A day file starts at {@code tick.archive.initial-records-per-day} and doubles when full, up to
+ * {@code tick.archive.max-records-per-day}. Files older than {@code tick.archive.retention-days}
+ * are deleted. Updates older than the last archived one by more than the allowed skew (REST
+ * backfill after a reconnect) are not archived, since lookups rely on the file being in time order.
+ */
+@Component
+public class TickArchive implements KlineEventHandler {
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final int MAX_OPEN_READERS = 8;
+
+    private static final Pattern FILE_NAME = Pattern.compile("ticks-(\\d{4}-\\d{2}-\\d{2})\\.(bin|symbols)");
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long initialRecordsPerDay;
+    private final long maxRecordsPerDay;
+    private final long retentionDays;
+
+    // Só a thread do consumidor troca o arquivo corrente
+    private volatile TickArchiveFile current;
+    private long failedDay = Long.MIN_VALUE;
+    private long lastEventTime = Long.MIN_VALUE;
+
+    private final Map<Long, TickArchiveFile> readers = new ConcurrentHashMap<>();
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong outOfOrder = new AtomicLong();
+    private final AtomicLong purged = new AtomicLong();
+
+    public TickArchive(@Value("${tick.archive.enabled:true}") boolean enabled,
+            @Value("${tick.archive.dir:./data/ticks}") String directory,
+            @Value("${tick.archive.initial-records-per-day:1048576}") long initialRecordsPerDay,
+            @Value("${tick.archive.max-records-per-day:16777216}") long maxRecordsPerDay,
+            @Value("${tick.archive.retention-days:30}") long retentionDays,
+            @Value("${market.source:binance}") String source) {
+        // Em replay os ticks são sintéticos: o arquivo continua legível, mas não grava nada
+        this.enabled = enabled && !"replay".equals(source);
+        this.directory = Path.of(directory);
+        this.maxRecordsPerDay = Math.max(1024, maxRecordsPerDay);
+        this.initialRecordsPerDay = Math.min(this.maxRecordsPerDay, Math.max(1024, initialRecordsPerDay));
+        this.retentionDays = retentionDays;
+    }
+
+    @Override
+    public String getName() {
+        return "archive";
+    }
+
+    @Override
+    public void onEvent(KlineEvent event) {
+        if (!enabled || !KlineAggregator.BASE_INTERVAL.equals(event.getInterval())) {
+            return;
+        }
+
+        // Backfill após reconexão reentrega candles antigos; fora de ordem quebrariam a busca binária
+        var eventTime = event.getEventTime();
+        if (eventTime + TickArchiveFile.MAX_SKEW_MILLIS < lastEventTime) {
+            outOfOrder.incrementAndGet();
+            return;
+        }
+
+        var file = fileFor(Math.floorDiv(eventTime, DAY_MILLIS));
+        if (file == null) {
+            dropped.incrementAndGet();
+            return;
+        }
+
+        try {
+            var symbol = file.register(event.getSymbol());
+            if (!file.append(symbol, eventTime, event.getClose(), event.getVolume())) {
+                file = grow(file);
+                if (file == null || !file.append(symbol, eventTime, event.getClose(), event.getVolume())) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+            }
+            recorded.incrementAndGet();
+            lastEventTime = Math.max(lastEventTime, eventTime);
+        } catch (IOException e) {
+            errors.incrementAndGet();
+            System.out.println("Failed to archive tick for " + event.getSymbol() + ": " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedRateString = "${tick.archive.sync-ms:1000}")
+    public void sync() {
+        var file = current;
+        if (file != null) {
+            file.force();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        sync();
+    }
+
+    /**
+     * Deletes the day files older than {@code tick.archive.retention-days}; {@code 0} keeps them forever.
+     */
+    @Scheduled(fixedRateString = "${tick.archive.purge-ms:3600000}")
+    public void purge() {
+        if (!enabled || retentionDays <= 0 || !Files.isDirectory(directory)) {
+            return;
+        }
+
+        var oldest = Math.floorDiv(System.currentTimeMillis(), DAY_MILLIS) - retentionDays;
+
+        try (var files = Files.list(directory)) {
+            for (var path : (Iterable<Path>) files::iterator) {
+                var matcher = FILE_NAME.matcher(path.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+
+                var day = LocalDate.parse(matcher.group(1)).toEpochDay();
+                if (day >= oldest) {
+                    continue;
+                }
+
+                readers.remove(day);
+                Files.deleteIfExists(path);
+                purged.incrementAndGet();
+            }
+        } catch (IOException | RuntimeException e) {
+            errors.incrementAndGet();
+            System.out.println("Failed to purge tick archive " + directory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Last archived price of {@code symbol} at or before {@code epochMillis}, looking into
+     * the previous day when the time is right after midnight.
+     */
+    public boolean priceAt(String symbol, long epochMillis, PriceTick into) {
+        var day = Math.floorDiv(epochMillis, DAY_MILLIS);
+
+        for (var d = day; d >= day - 1; d--) {
+            var file = reader(d);
+            if (file != null && file.lastAtOrBefore(symbol, epochMillis, (eventTime, price) -> {
+                into.setPrice(price);
+                into.setEventTime(eventTime);
+                into.setSequence(0);
+            })) {
+                return true;
+            }
+            if (epochMillis - d * DAY_MILLIS > TickArchiveFile.MAX_LOOKBACK_MILLIS) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    public PriceTick priceAt(String symbol, long epochMillis) {
+        var tick = new PriceTick();
+        return priceAt(symbol, epochMillis, tick) ? tick : null;
+    }
+
+    /**
+     * Visits every archived tick with {@code from <= eventTime <= to}, optionally of one symbol only.
+     */
+    public void scan(long from, long to, String symbol, TickVisitor visitor) {
+        for (var day = Math.floorDiv(from, DAY_MILLIS); day <= Math.floorDiv(to, DAY_MILLIS); day++) {
+            var file = reader(day);
+            if (file != null && !file.scan(from, to, symbol, visitor)) {
+                return;
+            }
+        }
+    }
+
+    public JsonObject getStats() {
+        var json = new JsonObject();
+        var file = current;
+
+        json.addProperty("enabled", enabled);
+        json.addProperty("directory", directory.toAbsolutePath().toString());
+        json.addProperty("recorded", recorded.get());
+        json.addProperty("dropped", dropped.get());
+        json.addProperty("errors", errors.get());
+        json.addProperty("outOfOrder", outOfOrder.get());
+        json.addProperty("purgedFiles", purged.get());
+        json.addProperty("retentionDays", retentionDays);
+        json.addProperty("todayRecords", file != null ? file.count() : 0);
+        json.addProperty("todayCapacity", file != null ? file.getCapacity() : 0);
+        return json;
+    }
+
+    private TickArchiveFile fileFor(long day) {
+        var file = current;
+        if (file != null && file.getEpochDay() == day) {
+            return file;
+        }
+        if (file != null && day < file.getEpochDay()) {
+            // Evento atrasado da virada do dia: fica no arquivo novo
+            return file;
+        }
+        if (day == failedDay) {
+            return null;
+        }
+
+        try {
+            if (file != null) {
+                file.force();
+            }
+            current = TickArchiveFile.openForWrite(directory, day, initialRecordsPerDay);
+            readers.remove(day);
+            // Reabrindo o arquivo do dia após um restart: a ordem continua a partir do último registro
+            lastEventTime = Math.max(lastEventTime, current.lastEventTime());
+            return current;
+        } catch (IOException e) {
+            failedDay = day;
+            errors.incrementAndGet();
+            System.out.println("Failed to open tick archive for day " + day + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Remaps the full day file at twice its capacity; {@code null} once it reached the maximum.
+     */
+    private TickArchiveFile grow(TickArchiveFile file) {
+        if (file.getCapacity() >= maxRecordsPerDay) {
+            return null;
+        }
+
+        try {
+            file.force();
+            current = TickArchiveFile.openForWrite(directory, file.getEpochDay(),
+                    Math.min(maxRecordsPerDay, file.getCapacity() * 2));
+            return current;
+        } catch (IOException e) {
+            errors.incrementAndGet();
+            System.out.println("Failed to grow tick archive for day " + file.getEpochDay() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private TickArchiveFile reader(long day) {
+        var file = current;
+        if (file != null && file.getEpochDay() == day) {
+            return file;
+        }
+
+        var cached = readers.get(day);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            var opened = TickArchiveFile.openForRead(directory, day);
+            if (opened != null) {
+                if (readers.size() >= MAX_OPEN_READERS) {
+                    readers.clear();
+                }
+                readers.put(day, opened);
+            }
+            return opened;
+        } catch (IOException e) {
+            System.out.println("Failed to read tick archive for day " + day + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
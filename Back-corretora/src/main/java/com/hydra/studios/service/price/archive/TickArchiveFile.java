@@ -0,0 +1,318 @@
+package com.hydra.studios.service.price.archive;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * One day of ticks: {@code ticks-yyyy-MM-dd.bin}, memory-mapped, plus the symbol table of
+ * the file in {@code ticks-yyyy-MM-dd.symbols} (one symbol per line, line number = index).
+ * <pre>
+ * header (64 bytes)  magic int, version int, record size int, unused int, count long, epoch day long
+ * record (32 bytes)  symbol int, unused int, event time long, price double, volume double
+ * </pre>
+ * Records are appended in arrival order by a single writer; the count is published with
+ * release semantics after each record, so readers never see a partially written one.
+ */
+final class TickArchiveFile {
+
+    static final int MAGIC = 0x5449434B;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 32;
+
+    private static final int COUNT_OFFSET = 16;
+    private static final int DAY_OFFSET = 24;
+
+    // Eventos de streams diferentes chegam levemente fora de ordem
+    static final long MAX_SKEW_MILLIS = 5_000;
+    static final long MAX_LOOKBACK_MILLIS = 60_000;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    private final long epochDay;
+    private final Path symbolsPath;
+    private final MappedByteBuffer buffer;
+    private final long capacity;
+    private final boolean writable;
+
+    private final List<String> symbols = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> symbolIndex = new ConcurrentHashMap<>();
+
+    private TickArchiveFile(long epochDay, Path symbolsPath, MappedByteBuffer buffer, boolean writable)
+            throws IOException {
+        this.epochDay = epochDay;
+        this.symbolsPath = symbolsPath;
+        this.buffer = buffer;
+        this.capacity = (buffer.capacity() - HEADER_SIZE) / RECORD_SIZE;
+        this.writable = writable;
+
+        loadSymbols();
+    }
+
+    static Path dataPath(Path directory, long epochDay) {
+        return directory.resolve("ticks-" + LocalDate.ofEpochDay(epochDay) + ".bin");
+    }
+
+    static TickArchiveFile openForWrite(Path directory, long epochDay, long maxRecords) throws IOException {
+        Files.createDirectories(directory);
+        var path = dataPath(directory, epochDay);
+
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            var fresh = channel.size() == 0;
+            // ByteBuffer é indexado por int: limita o arquivo a 2 GB
+            var records = Math.min(maxRecords, (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE);
+            var size = Math.max(channel.size(), HEADER_SIZE + records * RECORD_SIZE);
+
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (fresh) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(8, RECORD_SIZE);
+                buffer.putLong(DAY_OFFSET, epochDay);
+                LONGS.setRelease(buffer, COUNT_OFFSET, 0L);
+            } else {
+                validate(path, buffer);
+            }
+
+            return new TickArchiveFile(epochDay, symbolsPath(path), buffer, true);
+        }
+    }
+
+    /**
+     * @return {@code null} when no file exists for the day
+     */
+    static TickArchiveFile openForRead(Path directory, long epochDay) throws IOException {
+        var path = dataPath(directory, epochDay);
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            validate(path, buffer);
+
+            return new TickArchiveFile(epochDay, symbolsPath(path), buffer, false);
+        }
+    }
+
+    long getEpochDay() {
+        return epochDay;
+    }
+
+    long getCapacity() {
+        return capacity;
+    }
+
+    long count() {
+        return (long) LONGS.getAcquire(buffer, COUNT_OFFSET);
+    }
+
+    /**
+     * Index of the symbol in this file, registering it on first use. Writer thread only.
+     */
+    int register(String symbol) throws IOException {
+        var index = symbolIndex.get(symbol);
+        if (index != null) {
+            return index;
+        }
+
+        // Grava o símbolo antes de qualquer registro que o referencie
+        Files.writeString(symbolsPath, symbol + "\n", StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        index = symbols.size();
+        symbols.add(symbol);
+        symbolIndex.put(symbol, index);
+        return index;
+    }
+
+    /**
+     * Event time of the last record, or {@link Long#MIN_VALUE} when the file is empty.
+     */
+    long lastEventTime() {
+        var count = count();
+        return count > 0 ? buffer.getLong(position(count - 1) + 8) : Long.MIN_VALUE;
+    }
+
+    /**
+     * Appends a record. Writer thread only.
+     *
+     * @return {@code false} when the file is full
+     */
+    boolean append(int symbol, long eventTime, double price, double volume) {
+        var count = count();
+        if (count >= capacity) {
+            return false;
+        }
+
+        var position = position(count);
+        buffer.putInt(position, symbol);
+        buffer.putInt(position + 4, 0);
+        buffer.putLong(position + 8, eventTime);
+        buffer.putDouble(position + 16, price);
+        buffer.putDouble(position + 24, volume);
+
+        LONGS.setRelease(buffer, COUNT_OFFSET, count + 1);
+        return true;
+    }
+
+    void force() {
+        if (writable) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Last tick of {@code symbol} at or before {@code millis}, looking back at most
+     * {@link #MAX_LOOKBACK_MILLIS}.
+     *
+     * @return {@code false} when there is none
+     */
+    boolean lastAtOrBefore(String symbol, long millis, TickConsumer into) {
+        var index = indexOf(symbol);
+        if (index < 0) {
+            return false;
+        }
+
+        for (var i = upperBound(millis + MAX_SKEW_MILLIS) - 1; i >= 0; i--) {
+            var position = position(i);
+            var eventTime = buffer.getLong(position + 8);
+
+            if (eventTime < millis - MAX_LOOKBACK_MILLIS) {
+                return false;
+            }
+            if (buffer.getInt(position) == index && eventTime <= millis) {
+                into.accept(eventTime, buffer.getDouble(position + 16));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Visits the ticks with {@code from <= eventTime <= to} in file order.
+     *
+     * @return {@code false} if the visitor stopped the scan
+     */
+    boolean scan(long from, long to, String symbol, TickVisitor visitor) {
+        var only = symbol != null ? indexOf(symbol) : -1;
+        if (symbol != null && only < 0) {
+            return true;
+        }
+
+        var count = count();
+        for (var i = upperBound(from - MAX_SKEW_MILLIS - 1); i < count; i++) {
+            var position = position(i);
+            var eventTime = buffer.getLong(position + 8);
+
+            if (eventTime > to + MAX_SKEW_MILLIS) {
+                break;
+            }
+            if (eventTime < from || eventTime > to) {
+                continue;
+            }
+
+            var index = buffer.getInt(position);
+            if (only >= 0 && index != only) {
+                continue;
+            }
+            if (!visitor.visit(symbolOf(index), eventTime, buffer.getDouble(position + 16),
+                    buffer.getDouble(position + 24))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Primeiro registro com eventTime > millis, assumindo ordem aproximada por tempo
+    private long upperBound(long millis) {
+        long low = 0;
+        long high = count();
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            if (buffer.getLong(position(mid) + 8) <= millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int indexOf(String symbol) {
+        var index = symbolIndex.get(symbol);
+        if (index == null && !writable) {
+            // Arquivo do dia ainda sendo escrito por outra instância: relê a tabela
+            reloadSymbols();
+            index = symbolIndex.get(symbol);
+        }
+        return index != null ? index : -1;
+    }
+
+    private String symbolOf(int index) {
+        if (index >= symbols.size() && !writable) {
+            reloadSymbols();
+        }
+        return index < symbols.size() ? symbols.get(index) : null;
+    }
+
+    private static int position(long record) {
+        return (int) (HEADER_SIZE + record * RECORD_SIZE);
+    }
+
+    // Acrescenta as linhas ainda não lidas; índices existentes nunca mudam
+    private synchronized void loadSymbols() throws IOException {
+        if (!Files.exists(symbolsPath)) {
+            return;
+        }
+
+        var lines = Files.readAllLines(symbolsPath, StandardCharsets.UTF_8);
+        for (var i = symbols.size(); i < lines.size(); i++) {
+            symbolIndex.putIfAbsent(lines.get(i), i);
+            symbols.add(lines.get(i));
+        }
+    }
+
+    private void reloadSymbols() {
+        try {
+            loadSymbols();
+        } catch (IOException e) {
+            System.out.println("Failed to reload tick archive symbols " + symbolsPath + ": " + e.getMessage());
+        }
+    }
+
+    private static Path symbolsPath(Path dataPath) {
+        var name = dataPath.getFileName().toString();
+        return dataPath.resolveSibling(name.substring(0, name.length() - ".bin".length()) + ".symbols");
+    }
+
+    private static void validate(Path path, MappedByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != RECORD_SIZE) {
+            throw new IOException("Not a tick archive file: " + path);
+        }
+    }
+
+    @FunctionalInterface
+    interface TickConsumer {
+
+        void accept(long eventTime, double price);
+    }
+}
@@ -0,0 +1,13 @@
+package com.hydra.studios.service.price.archive;
+
+/**
+ * Receives archived ticks straight from the mapped file, without materializing records.
+ */
+@FunctionalInterface
+public interface TickVisitor {
+
+    /**
+     * @return {@code false} to stop the scan
+     */
+    boolean visit(String symbol, long eventTime, double price, double volume);
+}
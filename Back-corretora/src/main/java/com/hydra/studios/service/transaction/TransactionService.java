@@ -10,6 +10,11 @@ import com.hydra.studios.model.transaction.status.TransactionStatus;
 import com.hydra.studios.model.transaction.type.TransactionType;
 import com.hydra.studios.repository.transaction.TransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -25,6 +30,9 @@ public class TransactionService {
     @Autowired
     private VeoPayGateway veoPayGateway;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     public JsonObject createTransaction(Account account, double amount, double bonus) {
         var transaction = Transaction.builder()
                 .id(UUID.randomUUID().toString())
@@ -78,6 +86,18 @@ public class TransactionService {
         return transactionRepository.findAllByAccountId(accountId);
     }
 
+    /**
+     * Moves the transaction from {@code from} to {@code to} in one conditional write and returns it as stored,
+     * or {@code null} when it is no longer in {@code from} (another callback already handled it).
+     */
+    public Transaction transition(String id, TransactionStatus from, TransactionStatus to) {
+        var query = Query.query(Criteria.where("_id").is(id).and("status").is(from));
+        var update = new Update().set("status", to).set("updateAt", System.currentTimeMillis());
+
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+                Transaction.class);
+    }
+
     public void save(Transaction transaction) {
         transactionRepository.save(transaction);
     }
@@ -0,0 +1,203 @@
+package com.hydra.studios.service.wallet;
+
+import com.hydra.studios.model.account.Account;
+import com.hydra.studios.model.account.wallet.AccountWallet;
+import com.hydra.studios.model.account.wallet.WalletDelta;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies wallet changes as atomic updates on {@code wallet.*} instead of saving the whole
+ * {@link Account}. Every method returns only the updated wallet, or {@code null} when the
+ * account does not exist or does not have enough funds.
+ * <p>
+ * Changes that carry operation ids are idempotent: the ids are pushed to a bounded
+ * {@code walletOperations} list in the same update, which only matches while none of them is there.
+ */
+@Service
+public class WalletLedgerService {
+
+    private static final String OPERATIONS = "walletOperations";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${wallet.operations.keep:512}")
+    private int keepOperations;
+
+    /**
+     * Applies the change and returns the wallet after it. When every operation of the change was
+     * already applied the update is skipped and the current wallet is returned.
+     */
+    public AccountWallet apply(String accountId, WalletDelta delta) {
+        if (delta.isEmpty()) {
+            return getWallet(accountId);
+        }
+
+        if (delta.getOperations().isEmpty()) {
+            return modify(byId(accountId), toUpdate(delta));
+        }
+
+        return modifyOnce(accountId, toUpdate(delta), delta.getOperations());
+    }
+
+    /**
+     * Applies one change per account and returns the wallets after the {@code $inc}, keyed by account id.
+     */
+    public Map<String, AccountWallet> applyAll(Map<String, WalletDelta> deltas) {
+        var wallets = new LinkedHashMap<String, AccountWallet>();
+
+        for (var entry : deltas.entrySet()) {
+            if (entry.getValue().isEmpty()) continue;
+
+            var wallet = apply(entry.getKey(), entry.getValue());
+            if (wallet != null) {
+                wallets.put(entry.getKey(), wallet);
+            }
+        }
+
+        return wallets;
+    }
+
+    /**
+     * Debits {@code amount} from a single wallet field only if it holds at least that much.
+     */
+    public AccountWallet debit(String accountId, String field, double amount) {
+        var query = byId(accountId);
+        query.addCriteria(Criteria.where("wallet." + field).gte(amount));
+
+        return modify(query, new Update().inc("wallet." + field, -amount));
+    }
+
+    /**
+     * Debits a bet stake. Demo bets use the demo wallet; real bets consume bonus first,
+     * then deposit and then balance, all in one server-side update guarded by the total.
+     * What was taken from each field is added to {@code taken}, so the stake can be refunded exactly.
+     */
+    public AccountWallet debitBet(String accountId, double amount, boolean demo, WalletDelta taken) {
+        if (demo) {
+            var wallet = debit(accountId, "demo", amount);
+            if (wallet != null) {
+                taken.addDemo(amount);
+            }
+            return wallet;
+        }
+
+        var query = byId(accountId);
+        query.addCriteria(Criteria.expr(() -> new Document("$gte", List.of(
+                new Document("$add", List.of("$wallet.bonus", "$wallet.deposit", "$wallet.balance")), amount))));
+
+        AggregationOperation bonusUsed = context -> new Document("$set", new Document()
+                .append("_bonusUsed", new Document("$min", List.of(amount, "$wallet.bonus"))));
+        AggregationOperation depositUsed = context -> new Document("$set", new Document()
+                .append("_depositUsed", new Document("$min", List.of(
+                        new Document("$subtract", List.of(amount, "$_bonusUsed")), "$wallet.deposit"))));
+        AggregationOperation debit = context -> new Document("$set", new Document()
+                .append("wallet.bonus", new Document("$subtract", List.of("$wallet.bonus", "$_bonusUsed")))
+                .append("wallet.deposit", new Document("$subtract", List.of("$wallet.deposit", "$_depositUsed")))
+                .append("wallet.balance", new Document("$subtract", List.of("$wallet.balance",
+                        new Document("$subtract", List.of(amount,
+                                new Document("$add", List.of("$_bonusUsed", "$_depositUsed"))))))));
+        AggregationOperation cleanup = context -> new Document("$unset", List.of("_bonusUsed", "_depositUsed"));
+
+        var update = AggregationUpdate.from(List.of(bonusUsed, depositUsed, debit, cleanup));
+
+        // Devolve o documento anterior para saber quanto saiu de cada campo
+        var account = mongoTemplate.findAndModify(query, update, Account.class);
+        if (account == null) {
+            return null;
+        }
+
+        var wallet = account.getWallet();
+        var fromBonus = Math.min(amount, wallet.getBonus());
+        var fromDeposit = Math.min(amount - fromBonus, wallet.getDeposit());
+        var fromBalance = amount - fromBonus - fromDeposit;
+        taken.addBonus(fromBonus).addDeposit(fromDeposit).addBalance(fromBalance);
+
+        wallet.setBonus(wallet.getBonus() - fromBonus);
+        wallet.setDeposit(wallet.getDeposit() - fromDeposit);
+        wallet.setBalance(wallet.getBalance() - fromBalance);
+        return wallet;
+    }
+
+    /**
+     * Credits an approved deposit: adds to balance and replaces the bonus granted with it.
+     * The transaction id is the operation id, so a retried or concurrent callback credits it only once.
+     */
+    public AccountWallet deposit(String accountId, double amount, double bonus, String transactionId) {
+        return modifyOnce(accountId, new Update().inc("wallet.balance", amount).set("wallet.bonus", bonus),
+                List.of(transactionId));
+    }
+
+    /**
+     * Overwrites wallet fields with absolute values (admin adjustments), keyed by field name.
+     * Only those fields are written; the rest of the wallet and the operation ids are untouched.
+     */
+    public AccountWallet set(String accountId, Map<String, Double> values) {
+        var update = new Update();
+        values.forEach((field, value) -> update.set("wallet." + field, value));
+
+        return modify(byId(accountId), update);
+    }
+
+    public AccountWallet getWallet(String accountId) {
+        var account = mongoTemplate.findOne(withWallet(byId(accountId)), Account.class);
+        return account != null ? account.getWallet() : null;
+    }
+
+    /**
+     * Runs the update only while none of the operation ids is in {@code walletOperations}, pushing them
+     * in the same write. Returns the current wallet when they were all applied before.
+     */
+    private AccountWallet modifyOnce(String accountId, Update update, Collection<String> operations) {
+        var query = byId(accountId);
+        query.addCriteria(Criteria.where(OPERATIONS).nin(operations));
+
+        update.push(OPERATIONS).slice(-keepOperations).each(operations.toArray());
+
+        var wallet = modify(query, update);
+        return wallet != null ? wallet : getWallet(accountId);
+    }
+
+    private AccountWallet modify(Query query, Update update) {
+        var account = mongoTemplate.findAndModify(query, update, returnNew(), Account.class);
+        return account != null ? account.getWallet() : null;
+    }
+
+    private Update toUpdate(WalletDelta delta) {
+        var update = new Update();
+        if (delta.getDemo() != 0) update.inc("wallet.demo", delta.getDemo());
+        if (delta.getDeposit() != 0) update.inc("wallet.deposit", delta.getDeposit());
+        if (delta.getBalance() != 0) update.inc("wallet.balance", delta.getBalance());
+        if (delta.getAffiliate() != 0) update.inc("wallet.affiliate", delta.getAffiliate());
+        if (delta.getBonus() != 0) update.inc("wallet.bonus", delta.getBonus());
+        return update;
+    }
+
+    private Query byId(String accountId) {
+        return withWallet(Query.query(Criteria.where("_id").is(accountId)));
+    }
+
+    private Query withWallet(Query query) {
+        query.fields().include("wallet");
+        return query;
+    }
+
+    private FindAndModifyOptions returnNew() {
+        return FindAndModifyOptions.options().returnNew(true);
+    }
+}
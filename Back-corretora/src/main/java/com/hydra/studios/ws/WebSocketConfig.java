@@ -1,7 +1,11 @@
 package com.hydra.studios.ws;
 
+import com.hydra.studios.ws.broker.BrokerStatus;
+import com.hydra.studios.ws.channel.ChannelExecutors;
 import com.hydra.studios.ws.interceptor.JwtAuthInterceptor;
+import com.hydra.studios.ws.transport.NativeHandshakeHandler;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
@@ -15,19 +19,83 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Autowired
     private JwtAuthInterceptor jwtAuthInterceptor;
 
+    @Autowired
+    private BrokerStatus brokerStatus;
+
+    @Autowired
+    private ChannelExecutors channelExecutors;
+
+    @Autowired
+    private NativeHandshakeHandler nativeHandshakeHandler;
+
+    @Value("${ws.transport.send-time-limit-ms:10000}")
+    private int sendTimeLimitMillis;
+
+    @Value("${ws.transport.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${ws.transport.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${ws.channel.preserve-publish-order:true}")
+    private boolean preservePublishOrder;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        if (brokerStatus.isRelay()) {
+            var relay = brokerStatus.getRelay();
+
+            // Tópicos por conta passam pelo broker externo e chegam ao cliente em qualquer nó
+            config.enableStompBrokerRelay(BrokerStatus.CLUSTER_PREFIXES)
+                    .setRelayHost(relay.getHost())
+                    .setRelayPort(relay.getPort())
+                    .setVirtualHost(relay.getVirtualHost().isEmpty() ? null : relay.getVirtualHost())
+                    .setClientLogin(relay.getLogin())
+                    .setClientPasscode(relay.getPasscode())
+                    .setSystemLogin(relay.getLogin())
+                    .setSystemPasscode(relay.getPasscode())
+                    .setSystemHeartbeatSendInterval(relay.getHeartbeatMillis())
+                    .setSystemHeartbeatReceiveInterval(relay.getHeartbeatMillis())
+                    // Destinos /user de sessões em outro nó: o registro de usuários é compartilhado pelo broker
+                    .setUserDestinationBroadcast(BrokerStatus.USER_DESTINATION_BROADCAST)
+                    .setUserRegistryBroadcast(BrokerStatus.USER_REGISTRY_BROADCAST);
+
+            // Klines ficam no broker local: cada nó tem o próprio feed da Binance
+            config.enableSimpleBroker(BrokerStatus.LOCAL_PREFIXES);
+        } else {
+            config.enableSimpleBroker("/topic", "/queue");
+        }
+        config.setUserDestinationPrefix("/user");
         config.setApplicationDestinationPrefixes("/app");
+        config.configureBrokerChannel().taskExecutor(channelExecutors.getBroker());
+        // Com vários threads de saída, mantém a ordem das mensagens de cada sessão
+        config.setPreservePublishOrder(preservePublishOrder);
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(channelExecutors.getInbound());
         registration.interceptors(jwtAuthInterceptor);
     }
 
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(channelExecutors.getOutbound());
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Cliente lento que passa destes limites tem a sessão encerrada, sem segurar os demais
+        registration.setSendTimeLimit(sendTimeLimitMillis)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // WebSocket puro, sem o framing do SockJS e com permessage-deflate; é o endpoint preferido
+        registry.addEndpoint("/ws-native").setAllowedOriginPatterns("*").setHandshakeHandler(nativeHandshakeHandler);
+        // SockJS fica só como fallback para redes que bloqueiam WebSocket
         registry.addEndpoint("/ws").setAllowedOriginPatterns("*").withSockJS();
     }
 }
@@ -0,0 +1,96 @@
+package com.hydra.studios.ws.broker;
+
+import com.google.gson.JsonObject;
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * STOMP broker mode of this node, picked by {@code ws.broker.mode}.
+ * <p>
+ * {@code simple} keeps every topic in the in-JVM broker, so all clients must be on one node.
+ * {@code relay} sends the per-account destinations ({@link #CLUSTER_PREFIXES}) through an
+ * external STOMP broker (RabbitMQ, ActiveMQ), so bets and wallet updates published by any node
+ * reach a client connected to any other. User destinations are resolved across nodes through
+ * the user registry, which every node broadcasts on {@link #USER_REGISTRY_BROADCAST}. Market
+ * data topics ({@link #LOCAL_PREFIXES}) stay in the local broker, since every node runs its own
+ * market data feed and would otherwise publish each candle N times.
+ */
+@Component
+public class BrokerStatus {
+
+    // Mensagens de usuário sem sessão neste nó, e a troca do registro de usuários entre nós
+    public static final String USER_DESTINATION_BROADCAST = "/topic/unresolved-user";
+    public static final String USER_REGISTRY_BROADCAST = "/topic/simp-user-registry";
+
+    public static final String[] CLUSTER_PREFIXES = {"/topic/account", "/topic/bets", "/queue",
+            USER_DESTINATION_BROADCAST, USER_REGISTRY_BROADCAST};
+    public static final String[] LOCAL_PREFIXES = {"/topic/klines"};
+
+    private final String mode;
+
+    @Getter
+    private final Relay relay;
+
+    private volatile boolean available;
+    private final AtomicLong outages = new AtomicLong();
+
+    public BrokerStatus(@Value("${ws.broker.mode:simple}") String mode,
+            @Value("${ws.broker.relay.host:localhost}") String host,
+            @Value("${ws.broker.relay.port:61613}") int port,
+            @Value("${ws.broker.relay.virtual-host:}") String virtualHost,
+            @Value("${ws.broker.relay.login:guest}") String login,
+            @Value("${ws.broker.relay.passcode:guest}") String passcode,
+            @Value("${ws.broker.relay.heartbeat-ms:10000}") long heartbeatMillis) {
+        this.mode = mode.trim().toLowerCase();
+        this.relay = Relay.builder()
+                .host(host)
+                .port(port)
+                .virtualHost(virtualHost)
+                .login(login)
+                .passcode(passcode)
+                .heartbeatMillis(heartbeatMillis)
+                .build();
+    }
+
+    public boolean isRelay() {
+        return mode.equals("relay");
+    }
+
+    @EventListener
+    public void onAvailability(BrokerAvailabilityEvent event) {
+        if (available && !event.isBrokerAvailable()) {
+            outages.incrementAndGet();
+            System.out.println("STOMP broker unavailable, cluster topics are not delivered until it reconnects");
+        }
+        available = event.isBrokerAvailable();
+    }
+
+    public JsonObject getStats() {
+        var json = new JsonObject();
+        json.addProperty("mode", isRelay() ? "relay" : "simple");
+        json.addProperty("available", available);
+        json.addProperty("outages", outages.get());
+        if (isRelay()) {
+            json.addProperty("relay", relay.getHost() + ":" + relay.getPort());
+        }
+        return json;
+    }
+
+    @Getter
+    @Builder
+    public static class Relay {
+
+        private final String host;
+        private final int port;
+        private final String virtualHost;
+        private final String login;
+        private final String passcode;
+        private final long heartbeatMillis;
+    }
+}
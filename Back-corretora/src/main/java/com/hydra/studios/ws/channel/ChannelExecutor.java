@@ -0,0 +1,88 @@
+package com.hydra.studios.ws.channel;
+
+import com.google.gson.JsonObject;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded executor of one STOMP channel. Every task records how long it waited in the queue
+ * and how long it ran; a full queue rejects the message instead of growing without limit, so a
+ * burst on one channel cannot take the heap or the other channels down with it.
+ */
+public class ChannelExecutor extends ThreadPoolTaskExecutor {
+
+    private final String channel;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder runNanos = new LongAdder();
+
+    // Máximos desde a última leitura das métricas
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+
+    public ChannelExecutor(String channel, int threads, int queueCapacity, boolean virtualThreads) {
+        this.channel = channel;
+
+        setThreadNamePrefix(channel + "-");
+        setCorePoolSize(threads);
+        setMaxPoolSize(threads);
+        setQueueCapacity(queueCapacity);
+        setVirtualThreads(virtualThreads);
+        setTaskDecorator(this::measure);
+        setRejectedExecutionHandler((task, executor) -> {
+            rejected.increment();
+            throw new RejectedExecutionException(channel + " queue is full (" + queueCapacity + ")");
+        });
+    }
+
+    private Runnable measure(Runnable task) {
+        var submitted = System.nanoTime();
+        return () -> {
+            var start = System.nanoTime();
+            record(waitNanos, maxWaitNanos, start - submitted);
+            try {
+                task.run();
+            } finally {
+                record(runNanos, maxRunNanos, System.nanoTime() - start);
+                completed.increment();
+            }
+        };
+    }
+
+    private static void record(LongAdder total, AtomicLong max, long nanos) {
+        total.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public JsonObject getStats() {
+        var count = completed.sum();
+
+        var json = new JsonObject();
+        json.addProperty("threads", getPoolSize());
+        json.addProperty("active", getActiveCount());
+        json.addProperty("queued", getQueueSize());
+        json.addProperty("queueCapacity", getQueueCapacity());
+        json.addProperty("completed", count);
+        json.addProperty("rejected", rejected.sum());
+        json.addProperty("avgWaitMillis", count > 0 ? millis(waitNanos.sum() / count) : 0);
+        json.addProperty("maxWaitMillis", millis(maxWaitNanos.getAndSet(0)));
+        json.addProperty("avgRunMillis", count > 0 ? millis(runNanos.sum() / count) : 0);
+        json.addProperty("maxRunMillis", millis(maxRunNanos.getAndSet(0)));
+        return json;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return channel;
+    }
+}
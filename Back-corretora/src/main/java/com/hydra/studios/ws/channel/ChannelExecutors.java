@@ -0,0 +1,74 @@
+package com.hydra.studios.ws.channel;
+
+import com.google.gson.JsonObject;
+import com.hydra.studios.ws.transport.NativeHandshakeHandler;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+
+/**
+ * Executors of the STOMP channels, sized from {@code ws.channel.*}: inbound runs the
+ * {@code /app} handlers, outbound writes to client sockets, broker delivers publishes to the
+ * broker. The broker channel defaults to one thread: more would let two publishes of the same
+ * caller reach the broker out of order. Slow clients are handled by the transport limits in
+ * {@code ws.transport.*}; a session over the send time or buffer limit is closed by Spring and
+ * counted here.
+ */
+@Getter
+@Component
+public class ChannelExecutors {
+
+    private final ChannelExecutor inbound;
+    private final ChannelExecutor outbound;
+    private final ChannelExecutor broker;
+
+    @Lazy
+    @Autowired
+    private WebSocketMessageBrokerStats webSocketMessageBrokerStats;
+
+    @Autowired
+    private NativeHandshakeHandler nativeHandshakeHandler;
+
+    public ChannelExecutors(@Value("${ws.channel.inbound.threads:8}") int inboundThreads,
+            @Value("${ws.channel.inbound.queue:10000}") int inboundQueue,
+            @Value("${ws.channel.outbound.threads:8}") int outboundThreads,
+            @Value("${ws.channel.outbound.queue:50000}") int outboundQueue,
+            @Value("${ws.channel.broker.threads:1}") int brokerThreads,
+            @Value("${ws.channel.broker.queue:50000}") int brokerQueue,
+            @Value("${ws.channel.virtual-threads:false}") boolean virtualThreads) {
+        var virtual = virtualThreads && Runtime.version().feature() >= 21;
+        if (virtualThreads && !virtual) {
+            System.out.println("ws.channel.virtual-threads needs Java 21+, using platform threads");
+        }
+
+        this.inbound = new ChannelExecutor("ws-inbound", inboundThreads, inboundQueue, virtual);
+        this.outbound = new ChannelExecutor("ws-outbound", outboundThreads, outboundQueue, virtual);
+        this.broker = new ChannelExecutor("ws-broker", brokerThreads, brokerQueue, virtual);
+    }
+
+    public JsonObject getStats() {
+        var json = new JsonObject();
+        json.add("inbound", inbound.getStats());
+        json.add("outbound", outbound.getStats());
+        json.add("broker", broker.getStats());
+
+        var sessions = webSocketMessageBrokerStats.getWebSocketSessionStats();
+        if (sessions != null) {
+            var sessionStats = new JsonObject();
+            sessionStats.addProperty("open", sessions.getWebSocketSessions() + sessions.getHttpStreamingSessions()
+                    + sessions.getHttpPollingSessions());
+            sessionStats.addProperty("total", sessions.getTotalSessions());
+            sessionStats.addProperty("slowConsumerClosed", sessions.getLimitExceededSessions());
+            sessionStats.addProperty("noMessagesClosed", sessions.getNoMessagesReceivedSessions());
+            sessionStats.addProperty("transportErrors", sessions.getTransportErrorSessions());
+            sessionStats.addProperty("sockJsStreaming", sessions.getHttpStreamingSessions());
+            sessionStats.addProperty("sockJsPolling", sessions.getHttpPollingSessions());
+            json.add("sessions", sessionStats);
+        }
+        json.add("nativeEndpoint", nativeHandshakeHandler.getStats());
+        return json;
+    }
+}
@@ -1,29 +1,91 @@
 package com.hydra.studios.ws.controller;
 
+import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.hydra.studios.App;
 import com.hydra.studios.model.account.Account;
+import com.hydra.studios.model.account.wallet.AccountWallet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Private updates of an account. By default they go to the user destinations
+ * {@code /user/queue/account} and {@code /user/queue/bets}, resolved through the user registry
+ * (keyed by account id, the STOMP principal name) to that account's sessions only.
+ * {@code ws.private.destinations=topic} keeps the old {@code /topic/account/{id}} and
+ * {@code /topic/bets/{id}} topics, and {@code both} sends to both while clients migrate.
+ */
 @Controller
 public class AccController {
 
+    public static final String ACCOUNT_QUEUE = "/queue/account";
+    public static final String BETS_QUEUE = "/queue/bets";
+
     private final SimpMessagingTemplate messagingTemplate;
 
-    public AccController(SimpMessagingTemplate messagingTemplate) {
+    private final boolean userDestinations;
+    private final boolean topicDestinations;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong deliveryFailures = new AtomicLong();
+
+    public AccController(SimpMessagingTemplate messagingTemplate,
+            @Value("${ws.private.destinations:user}") String privateDestinations) {
         this.messagingTemplate = messagingTemplate;
+
+        var mode = privateDestinations.trim().toLowerCase();
+        this.userDestinations = !mode.equals("topic");
+        this.topicDestinations = mode.equals("topic") || mode.equals("both");
     }
-    
+
     public void publish(String accountId, Account acc) {
         var json = JsonParser.parseString(App.getGson().toJson(acc)).getAsJsonObject();
 
         json.remove("password");
 
-        messagingTemplate.convertAndSend("/topic/account/" + accountId, json.toString());
+        send(accountId, ACCOUNT_QUEUE, "/topic/account/", json.toString());
+    }
+
+    public void publishWallet(String accountId, AccountWallet wallet) {
+        var json = new JsonObject();
+
+        json.addProperty("id", accountId);
+        json.add("wallet", App.getGson().toJsonTree(wallet));
+
+        send(accountId, ACCOUNT_QUEUE, "/topic/account/", json.toString());
     }
 
     public void publishBet(String accountId, String message) {
-        messagingTemplate.convertAndSend("/topic/bets/" + accountId, message);
+        send(accountId, BETS_QUEUE, "/topic/bets/", message);
+    }
+
+    public JsonObject getStats() {
+        var json = new JsonObject();
+        json.addProperty("sent", sent.get());
+        json.addProperty("deliveryFailures", deliveryFailures.get());
+        return json;
+    }
+
+    // Com o executor do canal cheio o envio lança exceção; quem publica já gravou o estado
+    // e não pode falhar por causa da entrega
+    private void send(String accountId, String queue, String topic, String payload) {
+        try {
+            if (userDestinations) {
+                messagingTemplate.convertAndSendToUser(accountId, queue, payload);
+            }
+            if (topicDestinations) {
+                messagingTemplate.convertAndSend(topic + accountId, payload);
+            }
+            sent.incrementAndGet();
+        } catch (MessagingException e) {
+            if (deliveryFailures.incrementAndGet() % 1000 == 1) {
+                System.out.println("Failed to deliver update to account " + accountId + " (" + deliveryFailures.get()
+                        + " failures so far): " + e.getMessage());
+            }
+        }
     }
 }
@@ -2,55 +2,56 @@ package com.hydra.studios.ws.controller;
 
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import com.hydra.studios.component.jwt.JWTComponent;
-import com.hydra.studios.service.account.AccountService;
+import com.hydra.studios.service.account.mailbox.AccountMailbox;
 import com.hydra.studios.service.bet.BetService;
 import com.hydra.studios.service.exchange.ExchangeService;
+import com.hydra.studios.service.price.PriceStaleness;
+import com.hydra.studios.ws.session.StompPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 @Controller
 public class BetController {
 
     @Autowired
-    private JWTComponent jwtComponent;
+    private ExchangeService exchangeService;
 
     @Autowired
-    private AccountService accountService;
+    private BetService betService;
 
     @Autowired
-    private ExchangeService exchangeService;
+    private PriceStaleness priceStaleness;
 
     @Autowired
-    private BetService betService;
-
-    private HashMap<String, Long> cooldowns = new HashMap<>();
+    private AccountMailbox accountMailbox;
 
-    private final SimpMessagingTemplate messagingTemplate;
+    @Autowired
+    private AccController accController;
 
-    public BetController(SimpMessagingTemplate messagingTemplate) {
-        this.messagingTemplate = messagingTemplate;
-    }
+    private final Map<String, Long> cooldowns = new ConcurrentHashMap<>();
 
     @MessageMapping("/bet")
-    public void handle(@Payload String string) {
-        var message = JsonParser.parseString(string).getAsJsonObject();
+    public void handle(@Payload String string, StompPrincipal user) {
+        if (user == null) {
+            return;
+        }
 
-        var token = message.get("token").getAsString();
-        var username = jwtComponent.extractUsername(token);
-        var user = accountService.getAccount(username);
+        var message = JsonParser.parseString(string).getAsJsonObject();
+        accountMailbox.submit(user.getAccountId(), "bet", () -> placeBet(user, message));
+    }
 
+    private void placeBet(StompPrincipal user, JsonObject message) {
         if (!message.has("pair") || !message.has("bet") || !message.has("interval") || !message.has("arrow")) {
             var object = new JsonObject();
             object.addProperty("status", "error");
             object.addProperty("message", "Invalid message format");
-            messagingTemplate.convertAndSend("/topic/bets/" + user.getId().toString(), object.toString());
+            accController.publishBet(user.getAccountId(), object.toString());
             return;
         }
 
@@ -71,15 +72,7 @@ public class BetController {
         if (!interval.equals("1m") && !interval.equals("5m") && !interval.equals("15m")) {
             object.addProperty("status", "error");
             object.addProperty("message", "Invalid interval (" + interval + ") only 1m, 5m and 15m are allowed");
-            messagingTemplate.convertAndSend("/topic/bets/" + user.getId().toString(), object.toString());
-            return;
-        }
-
-        if (user == null) {
-            object.addProperty("status", "error");
-            object.addProperty("message", "User not found");
-            // Nota: Se user for null, não temos o ID para a rota personalizada,
-            // então não enviamos nada ou enviamos para um log de erro.
+            accController.publishBet(user.getAccountId(), object.toString());
             return;
         }
 
@@ -87,37 +80,35 @@ public class BetController {
             object.addProperty("status", "error");
             object.addProperty("message", "You are on cooldown, please wait "
                     + ((cooldowns.get(user.getEmail()) - System.currentTimeMillis()) / 1000) + " seconds");
-            messagingTemplate.convertAndSend("/topic/bets/" + user.getId().toString(), object.toString());
+            accController.publishBet(user.getAccountId(), object.toString());
             return;
         }
 
         cooldowns.put(user.getEmail(), System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(2));
 
-        var balanceTotal = (demo ? user.getWallet().getDemo()
-                : user.getWallet().getBalance() + user.getWallet().getDeposit() + user.getWallet().getBonus());
+        var exchange = exchangeService.findByExchange(pair);
 
-        if (bet > balanceTotal) {
+        if (exchange == null) {
             object.addProperty("status", "error");
-            object.addProperty("message", "Insufficient balance");
-            messagingTemplate.convertAndSend("/topic/bets/" + user.getId().toString(), object.toString());
+            object.addProperty("message", "Exchange pair not found");
+            accController.publishBet(user.getAccountId(), object.toString());
             return;
         }
 
-        var exchange = exchangeService.findByExchange(pair);
-
-        if (exchange == null) {
+        if (priceStaleness.isStale(pair)) {
             object.addProperty("status", "error");
-            object.addProperty("message", "Exchange pair not found");
-            messagingTemplate.convertAndSend("/topic/bets/" + user.getId().toString(), object.toString());
+            object.addProperty("message", "Price feed for this pair is temporarily unavailable");
+            accController.publishBet(user.getAccountId(), object.toString());
             return;
         }
 
-        var save = betService.createBet(user, pair, bet, interval, betArrow, demo);
+        // O saldo é conferido no débito atômico da carteira, sem ler a conta antes
+        var save = betService.createBet(user.getAccountId(), pair, bet, interval, betArrow, demo);
 
         if (save == null) {
             object.addProperty("status", "error");
-            object.addProperty("message", "Failed to create bet");
-            messagingTemplate.convertAndSend("/topic/bets/" + user.getId().toString(), object.toString());
+            object.addProperty("message", "Insufficient balance");
+            accController.publishBet(user.getAccountId(), object.toString());
             return;
         }
 
@@ -131,36 +122,41 @@ public class BetController {
         betResponse.addProperty("createdAt", save.getCreatedAt());
         betResponse.addProperty("finishIn", save.getFinishIn());
         betResponse.addProperty("demo", save.isDemo());
-        messagingTemplate.convertAndSend("/topic/bets/" + user.getId().toString(), betResponse.toString());
+        accController.publishBet(user.getAccountId(), betResponse.toString());
     }
 
     @MessageMapping("/cashout")
-    public void handleCashout(@Payload String string) {
+    public void handleCashout(@Payload String string, StompPrincipal user) {
+        if (user == null) {
+            return;
+        }
+
         var message = JsonParser.parseString(string).getAsJsonObject();
-        var token = message.get("token").getAsString();
-        var username = jwtComponent.extractUsername(token);
-        var user = accountService.getAccount(username);
+        accountMailbox.submit(user.getAccountId(), "cashout", () -> cashout(user, message));
+    }
+
+    private void cashout(StompPrincipal user, JsonObject message) {
         var object = new JsonObject();
 
         if (!message.has("betId")) {
             object.addProperty("status", "error");
             object.addProperty("message", "Invalid message format: betId missing");
-            messagingTemplate.convertAndSend("/topic/bets/" + user.getId().toString(), object.toString());
+            accController.publishBet(user.getAccountId(), object.toString());
             return;
         }
 
         var betId = message.get("betId").getAsString();
-        var bet = betService.closeBetCashout(betId);
+        var bet = betService.closeBetCashout(user.getAccountId(), betId);
 
         if (bet == null) {
             object.addProperty("status", "error");
             object.addProperty("message", "Bet not found or already closed");
-            messagingTemplate.convertAndSend("/topic/bets/" + user.getId().toString(), object.toString());
+            accController.publishBet(user.getAccountId(), object.toString());
             return;
         }
 
         object.addProperty("status", "ok");
         object.addProperty("message", "Cashout processed successfully");
-        messagingTemplate.convertAndSend("/topic/bets/" + user.getId().toString(), object.toString());
+        accController.publishBet(user.getAccountId(), object.toString());
     }
 }
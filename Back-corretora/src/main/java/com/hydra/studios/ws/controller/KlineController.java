@@ -1,19 +1,102 @@
 package com.hydra.studios.ws.controller;
 
+import com.google.gson.JsonObject;
+import com.hydra.studios.model.klines.Kline;
+import com.hydra.studios.ws.message.KlineMessageEncoder;
+import com.hydra.studios.ws.subscription.TopicSubscriptionRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Controller;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 @Controller
 public class KlineController {
 
     private final SimpMessagingTemplate messagingTemplate;
 
+    @Autowired
+    private TopicSubscriptionRegistry subscriptionRegistry;
+
+    // Estado por tópico: última vela pendente e a última vela fechada já enviada
+    private final Map<String, Topic> topics = new ConcurrentHashMap<>();
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
     public KlineController(SimpMessagingTemplate messagingTemplate) {
         this.messagingTemplate = messagingTemplate;
     }
-    
-    public void publishKline(String pair, String interval, Object klineData) {
-        messagingTemplate.convertAndSend("/topic/klines/" + pair + "/" + interval, klineData);
+
+    /**
+     * Queues the candle for its topic, replacing any candle not yet sent. Closed candles
+     * are sent right away so charts always get the final values of a period. Sends of a topic
+     * are serialized, and an in-progress candle is never sent after the closed one of its period.
+     */
+    public void publishKline(String pair, String interval, Kline kline, boolean closed) {
+        received.incrementAndGet();
+
+        var destination = "/topic/klines/" + pair + "/" + interval;
+
+        if (!subscriptionRegistry.hasSubscribers(destination)) {
+            topics.remove(destination);
+            skipped.incrementAndGet();
+            return;
+        }
+
+        var topic = topics.computeIfAbsent(destination, d -> new Topic());
+        synchronized (topic) {
+            if (kline.getOpenTime() <= topic.closedOpenTime) {
+                return;
+            }
+
+            if (closed) {
+                topic.pending = null;
+                topic.closedOpenTime = kline.getOpenTime();
+                send(destination, kline);
+                return;
+            }
+
+            topic.pending = kline;
+        }
+    }
+
+    @Scheduled(fixedRateString = "${kline.publish.interval-ms:250}")
+    public void flush() {
+        for (var entry : topics.entrySet()) {
+            var topic = entry.getValue();
+            synchronized (topic) {
+                var kline = topic.pending;
+                topic.pending = null;
+                if (kline != null && kline.getOpenTime() > topic.closedOpenTime) {
+                    send(entry.getKey(), kline);
+                }
+            }
+        }
+    }
+
+    public JsonObject getStats() {
+        var json = new JsonObject();
+        json.addProperty("received", received.get());
+        json.addProperty("sent", sent.get());
+        json.addProperty("skippedNoSubscribers", skipped.get());
+        json.addProperty("pendingTopics", topics.values().stream().filter(topic -> topic.pending != null).count());
+        return json;
     }
 
+    private void send(String destination, Kline kline) {
+        sent.incrementAndGet();
+        var payload = KlineMessageEncoder.encode(kline);
+        messagingTemplate.send(destination, KlineMessageEncoder.toMessage(destination, payload));
+    }
+
+    private static class Topic {
+
+        private Kline pending;
+        private long closedOpenTime = Long.MIN_VALUE;
+    }
 }
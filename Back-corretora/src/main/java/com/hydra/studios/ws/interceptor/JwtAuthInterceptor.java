@@ -2,104 +2,124 @@ package com.hydra.studios.ws.interceptor;
 
 import com.hydra.studios.component.jwt.JWTComponent;
 import com.hydra.studios.service.account.AccountService;
+import com.hydra.studios.ws.session.StompPrincipal;
+import com.hydra.studios.ws.session.StompSessions;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.stereotype.Component;
 
-import java.security.Principal;
-import java.util.List;
-
+/**
+ * Authenticates the STOMP session once, at CONNECT: the JWT is verified and the account read a
+ * single time, and the resulting {@link StompPrincipal} is kept as the session user. SUBSCRIBE
+ * and SEND frames are checked against it with no token parsing or database access.
+ */
 @Component
 public class JwtAuthInterceptor implements ChannelInterceptor {
 
+    public static final String PRINCIPAL_ATTRIBUTE = "stompPrincipal";
+
+    private static final String[] ACCOUNT_TOPICS = {"/topic/account/", "/topic/bets/"};
+
     @Autowired
     private JWTComponent jwtComponent;
 
     @Autowired
     private AccountService accountService;
 
+    @Autowired
+    private StompSessions stompSessions;
+
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
-        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
-
-        if (accessor.getCommand() != null) {
-            if (StompCommand.CONNECT.equals(accessor.getCommand())) {
-                String token = accessor.getFirstNativeHeader("Authorization");
-
-                if (token == null || !token.startsWith("Bearer ")) {
-                    throw new IllegalArgumentException("Authorization header ausente ou inválido");
-                }
-
-                token = token.substring(7);
-                String username = jwtComponent.extractUsername(token);
-
-                if (!jwtComponent.validateToken(token, username)) {
-                    throw new IllegalArgumentException("Token JWT inválido");
-                }
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
 
-                UsernamePasswordAuthenticationToken auth =
-                        new UsernamePasswordAuthenticationToken(username, null, List.of());
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            var principal = authenticate(accessor.getFirstNativeHeader("Authorization"));
 
-                accessor.setUser(auth);
+            accessor.setUser(principal);
+            if (accessor.getSessionAttributes() != null) {
+                accessor.getSessionAttributes().put(PRINCIPAL_ATTRIBUTE, principal);
             }
-            if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
-                String destination = accessor.getDestination();
-
-                if (destination != null && destination.startsWith("/topic/account/")) {
-                    String accountId = destination.replace("/topic/account/", "");
+            stompSessions.register(accessor.getSessionId(), principal);
+            return message;
+        }
 
-                    String token = accessor.getFirstNativeHeader("Authorization");
-                    if (token == null || !token.startsWith("Bearer ")) {
-                        throw new IllegalArgumentException("Authorization header ausente ou inválido");
-                    }
+        if (StompCommand.SUBSCRIBE.equals(accessor.getCommand()) || StompCommand.SEND.equals(accessor.getCommand())) {
+            var principal = principal(accessor);
 
-                    token = token.substring(7);
-                    String username = jwtComponent.extractUsername(token);
+            if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+                checkDestination(principal, accessor.getDestination());
+            }
+        }
 
-                    var account = accountService.getAccount(username);
+        return message;
+    }
 
-                    if (account == null) {
-                        throw new IllegalArgumentException("Usuário não encontrado");
-                    }
+    private StompPrincipal authenticate(String token) {
+        if (token == null || !token.startsWith("Bearer ")) {
+            stompSessions.rejected();
+            throw new IllegalArgumentException("Authorization header ausente ou inválido");
+        }
 
-                    if (!account.getId().equals(accountId)) {
-                        throw new IllegalArgumentException("Usuário não autorizado para esse canal");
-                    }
-                }
+        Claims claims;
+        try {
+            claims = jwtComponent.extractClaim(token.substring(7), c -> c);
+        } catch (JwtException | IllegalArgumentException e) {
+            stompSessions.rejected();
+            throw new IllegalArgumentException("Token JWT inválido");
+        }
 
-                if (destination != null && destination.startsWith("/topic/bets/")) {
-                    String accountId = destination.replace("/topic/bets/", "");
+        var account = accountService.getAccount(claims.getSubject());
+        if (account == null) {
+            stompSessions.rejected();
+            throw new IllegalArgumentException("Usuário não encontrado");
+        }
 
-                    String token = accessor.getFirstNativeHeader("Authorization");
-                    if (token == null || !token.startsWith("Bearer ")) {
-                        throw new IllegalArgumentException("Authorization header ausente ou inválido");
-                    }
+        return StompPrincipal.builder()
+                .accountId(account.getId())
+                .email(account.getEmail())
+                .role(account.getRole())
+                .expiresAt(claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE)
+                .build();
+    }
 
-                    token = token.substring(7);
-                    String username = jwtComponent.extractUsername(token);
+    private StompPrincipal principal(StompHeaderAccessor accessor) {
+        var attributes = accessor.getSessionAttributes();
+        var principal = attributes != null ? (StompPrincipal) attributes.get(PRINCIPAL_ATTRIBUTE) : null;
 
-                    var account = accountService.getAccount(username);
+        if (principal == null) {
+            throw new IllegalArgumentException("Sessão não autenticada");
+        }
+        if (principal.isExpired(System.currentTimeMillis())) {
+            throw new IllegalArgumentException("Token expirado");
+        }
+        return principal;
+    }
 
-                    if (account == null) {
-                        throw new IllegalArgumentException("Usuário não encontrado");
-                    }
+    private void checkDestination(StompPrincipal principal, String destination) {
+        if (destination == null) {
+            return;
+        }
 
-                    System.out.println("Account ID (route): " + accountId);
-                    System.out.println("Account ID (" + account.getId() + ") equals (" + accountId + "): " + account.getId().equals(accountId));
+        // Filas privadas só pelo prefixo /user, que o Spring resolve para as sessões do próprio usuário
+        if (destination.startsWith("/queue/")) {
+            throw new IllegalArgumentException("Usuário não autorizado para esse canal");
+        }
 
-                    if (!account.getId().equals(accountId)) {
-                        throw new IllegalArgumentException("Usuário não autorizado para esse canal");
-                    }
-                }
+        for (var topic : ACCOUNT_TOPICS) {
+            if (destination.startsWith(topic) && !destination.substring(topic.length()).equals(principal.getAccountId())) {
+                throw new IllegalArgumentException("Usuário não autorizado para esse canal");
             }
         }
-
-        return message;
     }
-
 }
@@ -0,0 +1,49 @@
+package com.hydra.studios.ws.message;
+
+import com.hydra.studios.model.klines.Kline;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializes a candle once into a JSON {@code byte[]} message that the broker hands to
+ * every subscriber as-is, instead of running the message converter on each send.
+ * The JSON has the same fields the Jackson converter used to produce.
+ */
+public final class KlineMessageEncoder {
+
+    private KlineMessageEncoder() {
+    }
+
+    public static byte[] encode(Kline kline) {
+        var json = new StringBuilder(192)
+                .append("{\"id\":").append(kline.getId() != null ? "\"" + kline.getId() + "\"" : "null")
+                .append(",\"pair\":\"").append(kline.getPair())
+                .append("\",\"interval\":\"").append(kline.getInterval())
+                .append("\",\"openTime\":").append(kline.getOpenTime())
+                .append(",\"open\":").append(kline.getOpen())
+                .append(",\"high\":").append(kline.getHigh())
+                .append(",\"low\":").append(kline.getLow())
+                .append(",\"close\":").append(kline.getClose())
+                .append(",\"closeTime\":").append(kline.getCloseTime())
+                .append('}');
+
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builds a message with mutable headers so the messaging template sends it without copying.
+     */
+    public static Message<byte[]> toMessage(String destination, byte[] payload) {
+        var accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,31 @@
+package com.hydra.studios.ws.session;
+
+import com.hydra.studios.model.account.role.AccountRole;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.security.Principal;
+
+/**
+ * Identity of a STOMP session, resolved once at CONNECT from the JWT and the account. Later
+ * frames use it as is, without verifying the token again or reading the account. The name is
+ * the account id.
+ */
+@Getter
+@Builder
+public class StompPrincipal implements Principal {
+
+    private final String accountId;
+    private final String email;
+    private final AccountRole role;
+    private final long expiresAt;
+
+    @Override
+    public String getName() {
+        return accountId;
+    }
+
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+}
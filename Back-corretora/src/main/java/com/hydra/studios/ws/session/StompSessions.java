@@ -0,0 +1,86 @@
+package com.hydra.studios.ws.session;
+
+import com.google.gson.JsonObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Authenticated STOMP sessions of this node. Sessions whose token expired are sent an ERROR
+ * frame, which makes Spring close the socket; the client reconnects with a fresh token.
+ */
+@Component
+public class StompSessions {
+
+    @Lazy
+    @Autowired
+    @Qualifier("clientOutboundChannel")
+    private MessageChannel clientOutboundChannel;
+
+    @Lazy
+    @Autowired
+    private SimpUserRegistry simpUserRegistry;
+
+    private final Map<String, StompPrincipal> sessions = new ConcurrentHashMap<>();
+
+    private final AtomicLong connected = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public void register(String sessionId, StompPrincipal principal) {
+        sessions.put(sessionId, principal);
+        connected.incrementAndGet();
+    }
+
+    public void rejected() {
+        rejected.incrementAndGet();
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+    }
+
+    @Scheduled(fixedRateString = "${ws.session.expiry-check-ms:5000}")
+    public void expire() {
+        var now = System.currentTimeMillis();
+        sessions.forEach((sessionId, principal) -> {
+            if (principal.isExpired(now) && sessions.remove(sessionId, principal)) {
+                expired.incrementAndGet();
+                close(sessionId, "Token expirado");
+            }
+        });
+    }
+
+    private void close(String sessionId, String reason) {
+        var accessor = StompHeaderAccessor.create(StompCommand.ERROR);
+        accessor.setSessionId(sessionId);
+        accessor.setMessage(reason);
+        accessor.setLeaveMutable(true);
+        clientOutboundChannel.send(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    public JsonObject getStats() {
+        var json = new JsonObject();
+        json.addProperty("authenticated", sessions.size());
+        json.addProperty("connected", connected.get());
+        json.addProperty("expired", expired.get());
+        json.addProperty("rejected", rejected.get());
+        // Registro de destinos /user, por id da conta (no modo relay, somando todos os nós)
+        json.addProperty("users", simpUserRegistry.getUserCount());
+        return json;
+    }
+}
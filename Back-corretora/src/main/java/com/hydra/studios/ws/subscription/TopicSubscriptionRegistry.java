@@ -0,0 +1,73 @@
+package com.hydra.studios.ws.subscription;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts STOMP subscriptions per destination so publishers can skip topics nobody listens to.
+ */
+@Component
+public class TopicSubscriptionRegistry {
+
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Integer> destinations = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        var accessor = StompHeaderAccessor.wrap(event.getMessage());
+        var destination = accessor.getDestination();
+        if (accessor.getSessionId() == null || accessor.getSubscriptionId() == null || destination == null) {
+            return;
+        }
+
+        var previous = sessions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), destination);
+        if (previous != null) {
+            decrement(previous);
+        }
+        // merge/computeIfPresent são atômicos por chave: um incremento nunca cai numa contagem já removida
+        destinations.merge(destination, 1, Integer::sum);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        var accessor = StompHeaderAccessor.wrap(event.getMessage());
+        var subscriptions = accessor.getSessionId() != null ? sessions.get(accessor.getSessionId()) : null;
+        if (subscriptions == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+
+        var destination = subscriptions.remove(accessor.getSubscriptionId());
+        if (destination != null) {
+            decrement(destination);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        var subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::decrement);
+        }
+    }
+
+    public boolean hasSubscribers(String destination) {
+        var count = destinations.get(destination);
+        return count != null && count > 0;
+    }
+
+    public int countSubscribers(String destination) {
+        return destinations.getOrDefault(destination, 0);
+    }
+
+    private void decrement(String destination) {
+        destinations.computeIfPresent(destination, (d, count) -> count > 1 ? count - 1 : null);
+    }
+}
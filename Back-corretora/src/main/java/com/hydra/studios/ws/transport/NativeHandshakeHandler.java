@@ -0,0 +1,52 @@
+package com.hydra.studios.ws.transport;
+
+import com.google.gson.JsonObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Handshake of the plain {@code /ws-native} endpoint. The container negotiates
+ * {@code permessage-deflate} with browsers that offer it; {@code ws.native.compression=false}
+ * strips it, e.g. when CPU matters more than bandwidth. Counts handshakes and how many ended
+ * up compressed.
+ */
+@Component
+public class NativeHandshakeHandler extends DefaultHandshakeHandler {
+
+    public static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    @Value("${ws.native.compression:true}")
+    private boolean compression;
+
+    private final AtomicLong handshakes = new AtomicLong();
+    private final AtomicLong compressed = new AtomicLong();
+
+    @Override
+    protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+            List<WebSocketExtension> requested, List<WebSocketExtension> supported) {
+        var accepted = super.filterRequestedExtensions(request, requested, supported);
+        if (!compression) {
+            accepted = accepted.stream().filter(e -> !PERMESSAGE_DEFLATE.equals(e.getName())).toList();
+        }
+
+        handshakes.incrementAndGet();
+        if (accepted.stream().anyMatch(e -> PERMESSAGE_DEFLATE.equals(e.getName()))) {
+            compressed.incrementAndGet();
+        }
+        return accepted;
+    }
+
+    public JsonObject getStats() {
+        var json = new JsonObject();
+        json.addProperty("compression", compression);
+        json.addProperty("handshakes", handshakes.get());
+        json.addProperty("compressed", compressed.get());
+        return json;
+    }
+}
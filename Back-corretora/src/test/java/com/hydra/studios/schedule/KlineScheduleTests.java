@@ -0,0 +1,185 @@
+package com.hydra.studios.schedule;
+
+import com.hydra.studios.model.bet.Bet;
+import com.hydra.studios.model.price.PriceTick;
+import com.hydra.studios.service.bet.BetService;
+import com.hydra.studios.service.bet.settlement.BetSettlementService;
+import com.hydra.studios.service.binance.source.MarketClock;
+import com.hydra.studios.service.cluster.ClusterLease;
+import com.hydra.studios.service.price.PriceBook;
+import com.hydra.studios.service.price.PriceHistory;
+import com.hydra.studios.service.price.PriceStaleness;
+import com.hydra.studios.service.price.archive.TickArchive;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KlineScheduleTests {
+
+	private static final long FINISH = 1_700_000_060_000L;
+
+	@Mock
+	private BetService betService;
+
+	@Mock
+	private BetSettlementService betSettlementService;
+
+	@Mock
+	private TickArchive tickArchive;
+
+	@Mock
+	private ClusterLease clusterLease;
+
+	@InjectMocks
+	private KlineSchedule schedule;
+
+	private final PriceBook priceBook = new PriceBook();
+
+	private final PriceHistory priceHistory = new PriceHistory(64);
+
+	private final PriceStaleness priceStaleness = new PriceStaleness();
+
+	private final MarketClock marketClock = new MarketClock();
+
+	private final Bet bet = Bet.builder().id("bet-1").accountId("acc-1").pair("BTCUSDT").finishIn(FINISH).build();
+
+	@BeforeEach
+	void setUp() {
+		priceBook.init(List.of("BTCUSDT"));
+		ReflectionTestUtils.setField(priceHistory, "priceBook", priceBook);
+		priceHistory.init();
+
+		ReflectionTestUtils.setField(priceStaleness, "priceBook", priceBook);
+		ReflectionTestUtils.setField(priceStaleness, "marketClock", marketClock);
+		ReflectionTestUtils.setField(priceStaleness, "staleAfterMillis", 15_000L);
+
+		ReflectionTestUtils.setField(schedule, "priceBook", priceBook);
+		ReflectionTestUtils.setField(schedule, "priceHistory", priceHistory);
+		ReflectionTestUtils.setField(schedule, "priceStaleness", priceStaleness);
+		ReflectionTestUtils.setField(schedule, "marketClock", marketClock);
+		ReflectionTestUtils.setField(schedule, "graceMillis", 2_000L);
+		ReflectionTestUtils.setField(schedule, "staleWaitMillis", 60_000L);
+		ReflectionTestUtils.setField(schedule, "maxTickGapMillis", 5_000L);
+		ReflectionTestUtils.setField(schedule, "retryMillis", 1_000L);
+		ReflectionTestUtils.setField(schedule, "voidAfterMillis", 600_000L);
+
+		when(clusterLease.isOwner()).thenReturn(true);
+	}
+
+	@Test
+	void settlesAtPriceValidAtFinishIn() {
+		tick(64_000, FINISH - 800);
+		tick(64_500, FINISH + 300);
+		at(FINISH + 400);
+
+		schedule.closeBets();
+
+		var prices = settledPrices();
+		assertEquals(64_000, prices.get("bet-1").getPrice());
+		assertEquals(FINISH - 800, prices.get("bet-1").getEventTime());
+	}
+
+	@Test
+	void waitsForTickAfterFinishInDuringGrace() {
+		tick(64_000, FINISH - 800);
+		at(FINISH + 1_000);
+
+		schedule.closeBets();
+
+		verify(betService).reschedule(bet);
+		verify(betSettlementService, never()).settle(anyList(), anyMap());
+	}
+
+	@Test
+	void waitsLongerWhileFeedIsStale() {
+		tick(64_000, FINISH - 30_000);
+		at(FINISH + 30_000);
+
+		schedule.closeBets();
+
+		verify(betService).reschedule(bet);
+		verify(betSettlementService, never()).settle(anyList(), anyMap());
+	}
+
+	@Test
+	void holdsBetWhenLastTickIsTooFarFromFinishIn() {
+		// Feed caiu antes do vencimento e voltou depois: o último tick antes da queda não serve
+		tick(64_000, FINISH - 30_000);
+		tick(64_900, FINISH + 90_000);
+		at(FINISH + 90_000);
+
+		schedule.closeBets();
+
+		verify(betService).hold(bet, FINISH + 91_000);
+		verify(betSettlementService, never()).settle(anyList(), anyMap());
+	}
+
+	@Test
+	void usesArchivedTickCloseToFinishIn() {
+		tick(64_000, FINISH - 30_000);
+		tick(64_900, FINISH + 90_000);
+		at(FINISH + 90_000);
+		when(tickArchive.priceAt("BTCUSDT", FINISH)).thenReturn(new PriceTick(64_200, FINISH - 500, 0));
+
+		schedule.closeBets();
+
+		assertEquals(64_200, settledPrices().get("bet-1").getPrice());
+	}
+
+	@Test
+	void voidsBetWithoutClosingPriceAfterTimeout() {
+		tick(64_000, FINISH - 30_000);
+		tick(64_900, FINISH + 600_000);
+		at(FINISH + 600_000);
+
+		schedule.closeBets();
+
+		verify(betSettlementService).voidBets(List.of(bet));
+		verify(betSettlementService, never()).settle(anyList(), anyMap());
+	}
+
+	@Test
+	void onlyLeaseOwnerSettles() {
+		when(clusterLease.isOwner()).thenReturn(false);
+
+		schedule.closeBets();
+
+		verify(betService, never()).getBetsByFinishIn(anyLong());
+	}
+
+	private void tick(double price, long eventTime) {
+		priceBook.update("BTCUSDT", price, eventTime);
+		priceHistory.record("BTCUSDT", price, eventTime);
+	}
+
+	// Fixa o relógio do mercado e entrega o bet vencido
+	private void at(long now) {
+		marketClock.follow(now, System.nanoTime(), 0);
+		when(betService.getBetsByFinishIn(now)).thenReturn(List.of(bet));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, PriceTick> settledPrices() {
+		var prices = ArgumentCaptor.forClass(Map.class);
+		verify(betSettlementService).settle(any(), prices.capture());
+		return prices.getValue();
+	}
+}
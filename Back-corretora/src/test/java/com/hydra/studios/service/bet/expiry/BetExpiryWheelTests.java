@@ -0,0 +1,86 @@
+package com.hydra.studios.service.bet.expiry;
+
+import com.hydra.studios.model.bet.Bet;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BetExpiryWheelTests {
+
+	private static final long BASE = 1_700_000_000_000L;
+
+	private final BetExpiryWheel wheel = new BetExpiryWheel(100);
+
+	@Test
+	void pollsOnlyDueBets() {
+		wheel.schedule(bet("a", BASE + 50));
+		wheel.schedule(bet("b", BASE + 250));
+		wheel.schedule(bet("c", BASE + 1_000));
+
+		assertEquals(List.of(), ids(wheel.pollDue(BASE)));
+		assertEquals(List.of("a"), ids(wheel.pollDue(BASE + 50)));
+		assertEquals(List.of("b"), ids(wheel.pollDue(BASE + 999)));
+		assertEquals(1, wheel.size());
+	}
+
+	@Test
+	void keepsBetsOfCurrentBucketThatAreNotDueYet() {
+		wheel.schedule(bet("a", BASE + 110));
+		wheel.schedule(bet("b", BASE + 190));
+
+		// Mesmo bucket de 100 ms: só o que já venceu sai
+		assertEquals(List.of("a"), ids(wheel.pollDue(BASE + 150)));
+		assertEquals(List.of("b"), ids(wheel.pollDue(BASE + 190)));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void pollsOverdueBetsOnce() {
+		wheel.schedule(bet("a", BASE));
+		wheel.schedule(bet("b", BASE + 20));
+
+		assertEquals(List.of("a", "b"), ids(wheel.pollDue(BASE + 60_000)));
+		assertEquals(List.of(), ids(wheel.pollDue(BASE + 60_000)));
+	}
+
+	@Test
+	void cancelledBetIsNeverPolled() {
+		wheel.schedule(bet("a", BASE));
+
+		assertTrue(wheel.cancel("a"));
+		assertFalse(wheel.cancel("a"));
+		assertEquals(List.of(), ids(wheel.pollDue(BASE + 1_000)));
+	}
+
+	@Test
+	void heldBetWaitsForRetryTime() {
+		var bet = bet("a", BASE);
+		wheel.schedule(bet, BASE + 1_250);
+
+		assertEquals(List.of(), ids(wheel.pollDue(BASE + 1_210)));
+		assertEquals(List.of("a"), ids(wheel.pollDue(BASE + 1_250)));
+	}
+
+	@Test
+	void scheduleIfAbsentKeepsExistingSchedule() {
+		var bet = bet("a", BASE);
+		wheel.schedule(bet, BASE + 5_000);
+
+		assertFalse(wheel.scheduleIfAbsent(bet));
+		assertEquals(List.of(), ids(wheel.pollDue(BASE + 100)));
+		assertTrue(wheel.scheduleIfAbsent(bet("b", BASE)));
+		assertEquals(List.of("b"), ids(wheel.pollDue(BASE + 100)));
+	}
+
+	private static List<String> ids(List<Bet> bets) {
+		return bets.stream().map(Bet::getId).toList();
+	}
+
+	private static Bet bet(String id, long finishIn) {
+		return Bet.builder().id(id).finishIn(finishIn).build();
+	}
+}
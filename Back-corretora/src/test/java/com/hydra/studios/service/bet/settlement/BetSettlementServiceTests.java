@@ -0,0 +1,219 @@
+package com.hydra.studios.service.bet.settlement;
+
+import com.hydra.studios.model.account.Account;
+import com.hydra.studios.model.account.wallet.AccountWallet;
+import com.hydra.studios.model.account.wallet.WalletDelta;
+import com.hydra.studios.model.bet.Bet;
+import com.hydra.studios.model.bet.arrow.BetArrow;
+import com.hydra.studios.model.bet.status.BetStatus;
+import com.hydra.studios.model.price.PriceTick;
+import com.hydra.studios.service.account.AccountService;
+import com.hydra.studios.service.system.SystemService;
+import com.hydra.studios.service.wallet.WalletLedgerService;
+import com.hydra.studios.ws.controller.AccController;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BetSettlementServiceTests {
+
+	@Mock
+	private MongoTemplate mongoTemplate;
+
+	@Mock
+	private AccountService accountService;
+
+	@Mock
+	private SystemService systemService;
+
+	@Mock
+	private WalletLedgerService walletLedgerService;
+
+	@Mock
+	private AccController accController;
+
+	@InjectMocks
+	private BetSettlementService settlementService;
+
+	// Coleção de bets simulada: id do bet -> settlementId do lote que o finalizou
+	private final Map<String, String> finishedBy = new HashMap<>();
+
+	private final List<String[]> writes = new ArrayList<>();
+
+	// Quantos updates a próxima escrita aplica antes de falhar; -1 aplica todos
+	private int failAfter = -1;
+
+	private int failedReads;
+
+	@BeforeEach
+	void setUp() {
+		var bulk = mock(BulkOperations.class, invocation -> {
+			switch (invocation.getMethod().getName()) {
+				case "updateOne" -> {
+					var query = invocation.<Query>getArgument(0).getQueryObject();
+					var set = invocation.<UpdateDefinition>getArgument(1).getUpdateObject().get("$set", Document.class);
+					writes.add(new String[] { query.getString("_id"), set.getString("settlementId") });
+				}
+				case "execute" -> {
+					return execute();
+				}
+			}
+			return invocation.getMock();
+		});
+
+		lenient().when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), any(Class.class))).thenReturn(bulk);
+		lenient().when(mongoTemplate.find(any(Query.class), eq(Bet.class))).thenAnswer(invocation -> {
+			if (failedReads > 0) {
+				failedReads--;
+				throw new IllegalStateException("read timed out");
+			}
+
+			var settlementId = invocation.<Query>getArgument(0).getQueryObject().getString("settlementId");
+			return finishedBy.entrySet().stream().filter(entry -> entry.getValue().equals(settlementId))
+					.map(entry -> Bet.builder().id(entry.getKey()).build()).toList();
+		});
+		lenient().when(accountService.getAccountsByIds(anyCollection())).thenReturn(List.of(
+				account("acc-1"), account("acc-2")));
+	}
+
+	@Test
+	void creditsWinningBetOnce() {
+		var settled = settlementService.settle(List.of(bet("bet-1", "acc-1")), prices(110, "bet-1"));
+
+		assertEquals(1, settled.size());
+		assertEquals(BetStatus.WIN, settled.get(0).getStatus());
+
+		var deltas = credited();
+		assertEquals(18.0, deltas.get("acc-1").getBalance(), 1e-9);
+		assertTrue(deltas.get("acc-1").getOperations().contains("bet-1"));
+	}
+
+	@Test
+	void settlingTwiceCreditsOnlyOnce() {
+		settlementService.settle(List.of(bet("bet-1", "acc-1")), prices(110, "bet-1"));
+
+		// Mesmo bet liquidado de novo (outro nó, nova tentativa): o guard finished:false não casa
+		var again = settlementService.settle(List.of(bet("bet-1", "acc-1")), prices(110, "bet-1"));
+
+		assertTrue(again.isEmpty());
+		verify(walletLedgerService, times(1)).applyAll(anyMap());
+	}
+
+	@Test
+	void creditsBetsWrittenBeforePartialFailure() {
+		failAfter = 1;
+
+		var settled = settlementService.settle(List.of(bet("bet-1", "acc-1"), bet("bet-2", "acc-2")),
+				prices(110, "bet-1", "bet-2"));
+
+		assertEquals(List.of("bet-1"), settled.stream().map(Bet::getId).toList());
+		assertEquals(List.of("acc-1"), List.copyOf(credited().keySet()));
+		assertFalse(finishedBy.containsKey("bet-2"));
+	}
+
+	@Test
+	void paysUnconfirmedBatchOnRetry() {
+		failedReads = 1;
+
+		var settled = settlementService.settle(List.of(bet("bet-1", "acc-1")), prices(110, "bet-1"));
+
+		assertTrue(settled.isEmpty());
+		assertEquals(1, settlementService.getUnconfirmedBatches());
+		verify(walletLedgerService, never()).applyAll(anyMap());
+
+		settlementService.retryUnconfirmed();
+
+		assertEquals(0, settlementService.getUnconfirmedBatches());
+		assertEquals(18.0, credited().get("acc-1").getBalance(), 1e-9);
+	}
+
+	@Test
+	void voidRefundsStakeToItsFields() {
+		var bet = bet("bet-1", "acc-1");
+		bet.setStakeBonus(2);
+		bet.setStakeDeposit(3);
+
+		var voided = settlementService.voidBets(List.of(bet));
+
+		assertEquals(BetStatus.VOID, voided.get(0).getStatus());
+		var delta = credited().get("acc-1");
+		assertEquals(2, delta.getBonus(), 1e-9);
+		assertEquals(3, delta.getDeposit(), 1e-9);
+		assertEquals(5, delta.getBalance(), 1e-9);
+	}
+
+	private Object execute() {
+		var applied = 0;
+		for (var write : writes) {
+			if (failAfter >= 0 && applied == failAfter) {
+				writes.clear();
+				throw mock(BulkOperationException.class);
+			}
+			finishedBy.putIfAbsent(write[0], write[1]);
+			applied++;
+		}
+		writes.clear();
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, WalletDelta> credited() {
+		var deltas = ArgumentCaptor.forClass(Map.class);
+		verify(walletLedgerService).applyAll(deltas.capture());
+		return deltas.getValue();
+	}
+
+	private static Map<String, PriceTick> prices(double price, String... betIds) {
+		var prices = new HashMap<String, PriceTick>();
+		for (var betId : betIds) {
+			prices.put(betId, new PriceTick(price, 1_700_000_060_000L, 1));
+		}
+		return prices;
+	}
+
+	private static Bet bet(String id, String accountId) {
+		return Bet.builder()
+				.id(id)
+				.accountId(accountId)
+				.pair("BTCUSDT")
+				.interval("1m")
+				.arrow(BetArrow.UP)
+				.bet(10)
+				.starredPrice(100)
+				.finishIn(1_700_000_060_000L)
+				.build();
+	}
+
+	private static Account account(String id) {
+		return Account.builder().id(id).firstName("Test").lastName("User").wallet(new AccountWallet()).build();
+	}
+}
@@ -0,0 +1,129 @@
+package com.hydra.studios.service.binance.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KlineAggregatorTests {
+
+	private static final long MINUTE = 60_000L;
+
+	// Início de um bucket de 5m e de 15m
+	private static final long BASE = 1_700_000_100_000L;
+
+	private final KlineAggregator aggregator = new KlineAggregator("5m,15m");
+
+	private final KlineFrame scratch = new KlineFrame();
+
+	private final List<Candle> emitted = new ArrayList<>();
+
+	@Test
+	void rollsFiveClosedMinutesIntoOneCandle() {
+		roll(0, 100, 104, 99, 103, 1, true);
+		roll(1, 103, 106, 102, 105, 2, true);
+		roll(2, 105, 105, 97, 98, 3, true);
+		roll(3, 98, 101, 98, 100, 4, true);
+		roll(4, 100, 102, 99, 101, 5, true);
+
+		var candle = last("5m");
+		assertEquals(BASE, candle.openTime());
+		assertEquals(BASE + 5 * MINUTE - 1, candle.closeTime());
+		assertEquals(100, candle.open());
+		assertEquals(106, candle.high());
+		assertEquals(97, candle.low());
+		assertEquals(101, candle.close());
+		assertEquals(15, candle.volume());
+		assertTrue(candle.closed());
+
+		// O 15m segue aberto
+		assertFalse(last("15m").closed());
+		assertEquals(4, emitted.stream().filter(c -> c.interval().equals("5m") && !c.closed()).count());
+	}
+
+	@Test
+	void countsVolumeOfMinuteInProgressOnce() {
+		roll(0, 100, 101, 99, 100, 4, true);
+		roll(1, 100, 101, 100, 101, 1, false);
+		roll(1, 100, 102, 100, 102, 3, false);
+
+		var candle = last("5m");
+		assertEquals(7, candle.volume());
+		assertEquals(102, candle.high());
+		assertFalse(candle.closed());
+	}
+
+	@Test
+	void closesBucketWhenNextOneStartsWithoutFinalMinute() {
+		roll(3, 100, 101, 99, 100, 1, true);
+		roll(4, 100, 105, 100, 104, 2, false);
+		emitted.clear();
+
+		roll(5, 104, 104, 103, 103, 1, false);
+
+		var closed = emitted.stream().filter(c -> c.interval().equals("5m")).toList();
+		assertEquals(2, closed.size());
+		assertEquals(BASE, closed.get(0).openTime());
+		assertTrue(closed.get(0).closed());
+		assertEquals(104, closed.get(0).close());
+		assertEquals(BASE + 5 * MINUTE, closed.get(1).openTime());
+		assertFalse(closed.get(1).closed());
+	}
+
+	@Test
+	void ignoresOlderBucketsAndOtherIntervals() {
+		roll(5, 100, 101, 99, 100, 1, false);
+		emitted.clear();
+
+		roll(4, 90, 91, 89, 90, 1, true);
+
+		var frame = new KlineFrame();
+		frame.set("BTCUSDT", "5m", BASE, BASE, BASE + 5 * MINUTE - 1, 1, 1, 1, 1, 1, true);
+		aggregator.roll(frame, scratch, f -> emitted.add(Candle.of(f)));
+
+		// Nenhum 5m: o minuto 4 é de um bucket já passado e o frame de 5m não é a base
+		assertTrue(emitted.stream().noneMatch(c -> c.interval().equals("5m")));
+	}
+
+	@Test
+	void parsesPeriods() {
+		assertEquals(5 * MINUTE, KlineAggregator.periodOf("5m"));
+		assertEquals(4 * 60 * MINUTE, KlineAggregator.periodOf("4h"));
+		assertEquals(24 * 60 * MINUTE, KlineAggregator.periodOf("1d"));
+		assertThrows(IllegalArgumentException.class, () -> KlineAggregator.periodOf("1w"));
+		assertEquals(List.of("1m", "5m", "15m"), aggregator.getIntervals());
+	}
+
+	private void roll(int minute, double open, double high, double low, double close, double volume,
+			boolean closed) {
+		var openTime = BASE + minute * MINUTE;
+		var frame = new KlineFrame();
+		frame.set("BTCUSDT", "1m", openTime + 30_000, openTime, openTime + MINUTE - 1, open, high, low, close,
+				volume, closed);
+		aggregator.roll(frame, scratch, f -> emitted.add(Candle.of(f)));
+	}
+
+	private Candle last(String interval) {
+		Candle found = null;
+		for (var candle : emitted) {
+			if (candle.interval().equals(interval)) {
+				found = candle;
+			}
+		}
+		return found;
+	}
+
+	private record Candle(String interval, long openTime, long closeTime, double open, double high, double low,
+			double close, double volume, boolean closed) {
+
+		private static Candle of(KlineFrame frame) {
+			return new Candle(frame.interval, frame.openTime, frame.closeTime, frame.open, frame.high, frame.low,
+					frame.close, frame.volume, frame.closed);
+		}
+	}
+}
@@ -0,0 +1,176 @@
+package com.hydra.studios.service.klines;
+
+import com.hydra.studios.model.klines.Kline;
+import com.hydra.studios.model.klines.KlineHistory;
+import com.hydra.studios.service.binance.pipeline.KlineEvent;
+import com.hydra.studios.service.binance.stream.KlineAggregator;
+import com.hydra.studios.service.klines.codec.KlineBinaryCodec;
+import com.hydra.studios.service.klines.codec.KlineFormat;
+import com.hydra.studios.service.klines.store.KlineStore;
+import com.hydra.studios.service.price.PriceBook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KlineCacheTests {
+
+	private static final long MINUTE = 60_000L;
+
+	private static final long BASE = 1_700_000_040_000L;
+
+	@Mock
+	private KlineStore klineStore;
+
+	private final KlineCache cache = new KlineCache(5);
+
+	private final KlineHistoryService historyService = new KlineHistoryService();
+
+	@BeforeEach
+	void setUp() {
+		var priceBook = new PriceBook();
+		priceBook.init(List.of("BTCUSDT"));
+
+		ReflectionTestUtils.setField(cache, "klineStore", klineStore);
+		ReflectionTestUtils.setField(cache, "priceBook", priceBook);
+		ReflectionTestUtils.setField(cache, "klineAggregator", new KlineAggregator("5m"));
+
+		ReflectionTestUtils.setField(historyService, "klineCache", cache);
+		ReflectionTestUtils.setField(historyService, "klineStore", klineStore);
+		ReflectionTestUtils.setField(historyService, "maxLimit", 1000);
+	}
+
+	@Test
+	void snapshotIsRenderedOnceUntilCandleCloses() {
+		when(klineStore.latest("BTCUSDT", "1m", 5)).thenReturn(stored(0, 1, 2));
+
+		var first = cache.snapshot("BTCUSDT", "1m", KlineFormat.CANDLES);
+		assertSame(first, cache.snapshot("BTCUSDT", "1m", KlineFormat.CANDLES));
+		assertArrayEquals(new long[] { at(2), at(1), at(0) }, openTimes(first));
+
+		cache.onEvent(event(3, false));
+		assertSame(first, cache.snapshot("BTCUSDT", "1m", KlineFormat.CANDLES));
+
+		cache.onEvent(event(3, true));
+		var next = cache.snapshot("BTCUSDT", "1m", KlineFormat.CANDLES);
+		assertNotEquals(first.getEtag(), next.getEtag());
+		assertArrayEquals(new long[] { at(3), at(2), at(1), at(0) }, openTimes(next));
+	}
+
+	@Test
+	void rangeIsServedNewestFirstWithinLimit() {
+		when(klineStore.latest("BTCUSDT", "1m", 5)).thenReturn(stored(0, 1, 2, 3, 4));
+		cache.snapshot("BTCUSDT", "1m", KlineFormat.JSON);
+
+		var history = cache.range("BTCUSDT", "1m", at(1), at(3), 2, KlineFormat.CANDLES);
+
+		assertArrayEquals(new long[] { at(3), at(2) }, openTimes(history));
+	}
+
+	@Test
+	void rangeOlderThanFullRingIsLeftToStore() {
+		when(klineStore.latest("BTCUSDT", "1m", 5)).thenReturn(stored(5, 6, 7, 8, 9));
+		cache.snapshot("BTCUSDT", "1m", KlineFormat.JSON);
+
+		// O anel está cheio: velas antes de at(5) podem existir só no banco
+		assertNull(cache.range("BTCUSDT", "1m", at(0), at(9), 10, KlineFormat.JSON));
+		assertArrayEquals(new long[] { at(9), at(8), at(7), at(6), at(5) },
+				openTimes(cache.range("BTCUSDT", "1m", at(0), at(9), 5, KlineFormat.CANDLES)));
+	}
+
+	@Test
+	void shortHistoryIsCompleteInMemory() {
+		when(klineStore.latest("BTCUSDT", "1m", 5)).thenReturn(stored(0, 1));
+		cache.snapshot("BTCUSDT", "1m", KlineFormat.JSON);
+
+		var history = historyService.range("BTCUSDT", "1m", null, null, 100, KlineFormat.CANDLES);
+
+		assertArrayEquals(new long[] { at(1), at(0) }, openTimes(history));
+		assertEquals(0, historyService.getStoreReads());
+		verify(klineStore, never()).range(any(), any(), anyLong(), anyLong(), anyInt(), any());
+	}
+
+	@Test
+	void cacheMissReadsStoreWithClampedLimit() {
+		doAnswer(invocation -> {
+			Consumer<Kline> consumer = invocation.getArgument(5);
+			stored(0, 1).forEach(consumer);
+			return null;
+		}).when(klineStore).range(eq("ETHUSDT"), eq("1m"), eq(Long.MIN_VALUE), eq(at(1)), eq(1000), any());
+
+		var history = historyService.range("ETHUSDT", "1m", null, at(1), 50_000, KlineFormat.CANDLES);
+
+		assertArrayEquals(new long[] { at(1), at(0) }, openTimes(history));
+		assertEquals(1, historyService.getStoreReads());
+	}
+
+	private static long at(int minute) {
+		return BASE + minute * MINUTE;
+	}
+
+	// Velas do banco em ordem crescente de minuto, devolvidas da mais recente para a mais antiga
+	private static List<Kline> stored(int... minutes) {
+		var klines = new ArrayList<Kline>();
+		for (var i = minutes.length - 1; i >= 0; i--) {
+			klines.add(kline(minutes[i]));
+		}
+		return klines;
+	}
+
+	private static Kline kline(int minute) {
+		return Kline.builder()
+				.pair("BTCUSDT")
+				.interval("1m")
+				.openTime(at(minute))
+				.closeTime(at(minute) + MINUTE - 1)
+				.open(100 + minute)
+				.high(101 + minute)
+				.low(99 + minute)
+				.close(100.5 + minute)
+				.build();
+	}
+
+	private static KlineEvent event(int minute, boolean closed) {
+		var event = mock(KlineEvent.class);
+		when(event.isClosed()).thenReturn(closed);
+		if (closed) {
+			when(event.getSymbol()).thenReturn("BTCUSDT");
+			when(event.getInterval()).thenReturn("1m");
+			when(event.getOpenTime()).thenReturn(at(minute));
+			when(event.getCloseTime()).thenReturn(at(minute) + MINUTE - 1);
+			when(event.getOpen()).thenReturn(100.0 + minute);
+			when(event.getHigh()).thenReturn(101.0 + minute);
+			when(event.getLow()).thenReturn(99.0 + minute);
+			when(event.getClose()).thenReturn(100.5 + minute);
+		}
+		return event;
+	}
+
+	private static long[] openTimes(KlineHistory history) {
+		var columns = KlineBinaryCodec.decode(history.getBody());
+		return Arrays.copyOf(columns.getOpenTime(), columns.getSize());
+	}
+}
@@ -0,0 +1,121 @@
+package com.hydra.studios.service.klines.codec;
+
+import com.hydra.studios.App;
+import com.hydra.studios.controller.response.ResponseModal;
+import com.hydra.studios.model.klines.Kline;
+import com.hydra.studios.model.klines.KlineColumns;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding cost of a 500-candle history response: the columnar {@link KlineBinaryCodec}, the
+ * {@link KlineJsonEncoder} used for JSON clients, and the Gson {@code ResponseModal} rendering
+ * the endpoint used before. Run {@code main} from the test classpath; payload sizes are printed
+ * before the run and the GC profiler reports bytes per response as {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KlineBinaryCodecBenchmark {
+
+	private static final long MINUTE = 60_000L;
+
+	private KlineColumns columns;
+
+	private List<Kline> klines;
+
+	@Setup
+	public void setup() {
+		columns = series(500);
+		klines = new ArrayList<>(columns.getSize());
+
+		for (var i = 0; i < columns.getSize(); i++) {
+			var openTime = columns.getOpenTime()[i];
+			klines.add(Kline.builder()
+					.id(Kline.idOf(columns.getPair(), columns.getInterval(), openTime))
+					.pair(columns.getPair())
+					.interval(columns.getInterval())
+					.openTime(openTime)
+					.open(columns.getOpen()[i])
+					.high(columns.getHigh()[i])
+					.low(columns.getLow()[i])
+					.close(columns.getClose()[i])
+					.closeTime(columns.getCloseTime()[i])
+					.build());
+		}
+	}
+
+	@Benchmark
+	public byte[] binary() {
+		return KlineBinaryCodec.encode(columns);
+	}
+
+	@Benchmark
+	public byte[] json() {
+		return KlineJsonEncoder.encode(columns);
+	}
+
+	@Benchmark
+	public byte[] gson() {
+		// Resposta do endpoint antes do cache de snapshots
+		return App.getGson().toJson(ResponseModal.builder().status(true).data(klines).build())
+				.getBytes(StandardCharsets.UTF_8);
+	}
+
+	// Mesma série sintética de BTCUSDT 1m usada nos testes do codec
+	static KlineColumns series(int size) {
+		var columns = new KlineColumns("BTCUSDT", "1m", size);
+		var random = new Random(42);
+		var price = 64_250.12;
+		var openTime = 1_700_000_040_000L;
+
+		for (var i = 0; i < size; i++) {
+			var open = price;
+			var close = round(open + (random.nextDouble() - 0.5) * 40);
+			var high = round(Math.max(open, close) + random.nextDouble() * 10);
+			var low = round(Math.min(open, close) - random.nextDouble() * 10);
+			columns.add(openTime, openTime + MINUTE - 1, open, high, low, close);
+
+			price = close;
+			openTime -= MINUTE;
+		}
+		return columns;
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 100) / 100.0;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		var state = new KlineBinaryCodecBenchmark();
+		state.setup();
+		System.out.println("Payload bytes: binary=" + state.binary().length + " json=" + state.json().length
+				+ " gson=" + state.gson().length);
+
+		new Runner(new OptionsBuilder()
+				.include(KlineBinaryCodecBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
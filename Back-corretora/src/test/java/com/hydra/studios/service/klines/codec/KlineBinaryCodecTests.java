@@ -0,0 +1,145 @@
+package com.hydra.studios.service.klines.codec;
+
+import com.hydra.studios.model.klines.KlineColumns;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KlineBinaryCodecTests {
+
+	private static final long MINUTE = 60_000L;
+
+	@Test
+	void roundTripsEmptySeries() {
+		var decoded = KlineBinaryCodec.decode(KlineBinaryCodec.encode(new KlineColumns("BTCUSDT", "1m", 0)));
+
+		assertEquals("BTCUSDT", decoded.getPair());
+		assertEquals("1m", decoded.getInterval());
+		assertEquals(0, decoded.getSize());
+	}
+
+	@Test
+	void roundTripsSingleCandle() {
+		var columns = new KlineColumns("ETHUSDT", "5m", 1);
+		columns.add(1_700_000_000_000L, 1_700_000_299_999L, 2012.34, 2015.5, 2010.01, 2014.99);
+
+		assertRoundTrip(columns);
+	}
+
+	@Test
+	void roundTripsNewestFirstSeries() {
+		var columns = new KlineColumns("BTCUSDT", "1m", 500);
+		var random = new Random(42);
+		var price = 64_250.12;
+		var openTime = 1_700_000_040_000L;
+
+		for (var i = 0; i < 500; i++) {
+			var open = price;
+			var close = round(open + (random.nextDouble() - 0.5) * 40, 2);
+			var high = round(Math.max(open, close) + random.nextDouble() * 10, 2);
+			var low = round(Math.min(open, close) - random.nextDouble() * 10, 2);
+			columns.add(openTime, openTime + MINUTE - 1, open, high, low, close);
+
+			price = close;
+			openTime -= MINUTE;
+		}
+
+		assertRoundTrip(columns);
+	}
+
+	@Test
+	void roundTripsGapsAndIrregularSpacing() {
+		var columns = new KlineColumns("SOLUSDT", "1h", 4);
+		columns.add(0L, 3_599_999L, 1, 2, 0.5, 1.5);
+		columns.add(3_600_000L, 7_199_999L, 1.5, 1.5, 1.5, 1.5);
+		columns.add(36_000_000L, 39_599_999L, 0.00000001, 0.00000002, 0.00000001, 0.00000002);
+		columns.add(10_800_000L, 14_399_999L, 150.123456, 151, 149.9, 150.5);
+
+		assertRoundTrip(columns);
+	}
+
+	@Test
+	void keepsEightDecimalPrices() {
+		var columns = new KlineColumns("SHIBUSDT", "1m", 2);
+		columns.add(MINUTE, 2 * MINUTE - 1, 0.00001234, 0.00001299, 0.00001201, 0.00001250);
+		columns.add(0, MINUTE - 1, 0.00001250, 0.00001260, 0.00001240, 0.00001234);
+
+		assertEquals(8, KlineBinaryCodec.scaleOf(columns));
+		assertRoundTrip(columns);
+	}
+
+	@Test
+	void usesTheSmallestScale() {
+		var columns = new KlineColumns("BTCUSDT", "1m", 2);
+		columns.add(0, MINUTE - 1, 100, 101.5, 99.25, 100.1);
+
+		assertEquals(2, KlineBinaryCodec.scaleOf(columns));
+	}
+
+	@Test
+	void isSmallerThanJson() {
+		var columns = new KlineColumns("BTCUSDT", "1m", 500);
+		var openTime = 1_700_000_040_000L;
+		for (var i = 0; i < 500; i++) {
+			columns.add(openTime - i * MINUTE, openTime - i * MINUTE + MINUTE - 1, 64_000.01 + i, 64_010.5 + i,
+					63_990.25 + i, 64_005.75 + i);
+		}
+
+		var binary = KlineBinaryCodec.encode(columns);
+		var json = KlineJsonEncoder.encode(columns);
+
+		assertTrue(binary.length * 5 < json.length, "binary " + binary.length + " bytes vs json " + json.length);
+	}
+
+	@Test
+	void rejectsForeignPayloads() {
+		assertThrows(IllegalArgumentException.class, () -> KlineBinaryCodec.decode(new byte[] { '{', '"' }));
+		assertThrows(IllegalArgumentException.class, () -> KlineBinaryCodec.decode(new byte[] { 'K', 'C', 9 }));
+	}
+
+	@Test
+	void rejectsTruncatedPayloads() {
+		var columns = new KlineColumns("BTCUSDT", "1m", 1);
+		columns.add(0, MINUTE - 1, 1, 2, 0.5, 1.5);
+		var encoded = KlineBinaryCodec.encode(columns);
+
+		for (var length = 0; length < encoded.length; length++) {
+			var truncated = Arrays.copyOf(encoded, length);
+			assertThrows(IllegalArgumentException.class, () -> KlineBinaryCodec.decode(truncated));
+		}
+	}
+
+	private static void assertRoundTrip(KlineColumns expected) {
+		var actual = KlineBinaryCodec.decode(KlineBinaryCodec.encode(expected));
+		var size = expected.getSize();
+
+		assertEquals(expected.getPair(), actual.getPair());
+		assertEquals(expected.getInterval(), actual.getInterval());
+		assertEquals(size, actual.getSize());
+		assertArrayEquals(slice(expected.getOpenTime(), size), slice(actual.getOpenTime(), size));
+		assertArrayEquals(slice(expected.getCloseTime(), size), slice(actual.getCloseTime(), size));
+		assertArrayEquals(slice(expected.getOpen(), size), slice(actual.getOpen(), size));
+		assertArrayEquals(slice(expected.getHigh(), size), slice(actual.getHigh(), size));
+		assertArrayEquals(slice(expected.getLow(), size), slice(actual.getLow(), size));
+		assertArrayEquals(slice(expected.getClose(), size), slice(actual.getClose(), size));
+	}
+
+	private static long[] slice(long[] values, int size) {
+		return Arrays.copyOf(values, size);
+	}
+
+	private static double[] slice(double[] values, int size) {
+		return Arrays.copyOf(values, size);
+	}
+
+	private static double round(double value, int scale) {
+		var factor = Math.pow(10, scale);
+		return Math.round(value * factor) / factor;
+	}
+}
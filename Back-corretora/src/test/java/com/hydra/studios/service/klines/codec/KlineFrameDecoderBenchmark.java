@@ -0,0 +1,106 @@
+package com.hydra.studios.service.klines.codec;
+
+import com.google.gson.JsonParser;
+import com.hydra.studios.model.klines.Kline;
+import com.hydra.studios.service.binance.stream.KlineFrame;
+import com.hydra.studios.service.binance.stream.KlineFrameDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding cost of one combined-stream kline frame: the streaming {@link KlineFrameDecoder}
+ * against the previous JsonObject tree walk that built a {@link Kline} per frame.
+ * Run {@code main} from the test classpath; the GC profiler reports bytes per frame as
+ * {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KlineFrameDecoderBenchmark {
+
+	// Frames gravados do stream combinado, com todos os campos que a Binance envia
+	private static final String[] FRAMES = {
+			"{\"stream\":\"btcusdt@kline_1m\",\"data\":{\"e\":\"kline\",\"E\":1700000012345,\"s\":\"BTCUSDT\","
+					+ "\"k\":{\"t\":1700000000000,\"T\":1700000059999,\"s\":\"BTCUSDT\",\"i\":\"1m\",\"f\":3301250101,"
+					+ "\"L\":3301250912,\"o\":\"64250.12000000\",\"c\":\"64260.50000000\",\"h\":\"64270.00000000\","
+					+ "\"l\":\"64240.01000000\",\"v\":\"12.34500000\",\"n\":812,\"x\":false,\"q\":\"793215.10642310\","
+					+ "\"V\":\"6.10200000\",\"Q\":\"392077.51963400\",\"B\":\"0\"}}}",
+			"{\"stream\":\"ethusdt@kline_1m\",\"data\":{\"e\":\"kline\",\"E\":1700000012402,\"s\":\"ETHUSDT\","
+					+ "\"k\":{\"t\":1700000000000,\"T\":1700000059999,\"s\":\"ETHUSDT\",\"i\":\"1m\",\"f\":1208812001,"
+					+ "\"L\":1208812455,\"o\":\"3120.45000000\",\"c\":\"3121.02000000\",\"h\":\"3122.10000000\","
+					+ "\"l\":\"3119.88000000\",\"v\":\"402.11830000\",\"n\":455,\"x\":false,\"q\":\"1254871.22019100\","
+					+ "\"V\":\"210.50020000\",\"Q\":\"656901.44301200\",\"B\":\"0\"}}}",
+			"{\"stream\":\"solusdt@kline_1m\",\"data\":{\"e\":\"kline\",\"E\":1700000060001,\"s\":\"SOLUSDT\","
+					+ "\"k\":{\"t\":1700000000000,\"T\":1700000059999,\"s\":\"SOLUSDT\",\"i\":\"1m\",\"f\":901220344,"
+					+ "\"L\":901220980,\"o\":\"142.31000000\",\"c\":\"142.17000000\",\"h\":\"142.40000000\","
+					+ "\"l\":\"142.09000000\",\"v\":\"8821.45000000\",\"n\":637,\"x\":true,\"q\":\"1254522.90110000\","
+					+ "\"V\":\"4120.11000000\",\"Q\":\"585944.21870000\",\"B\":\"0\"}}}",
+			"{\"stream\":\"dogeusdt@kline_1m\",\"data\":{\"e\":\"kline\",\"E\":1700000013377,\"s\":\"DOGEUSDT\","
+					+ "\"k\":{\"t\":1700000000000,\"T\":1700000059999,\"s\":\"DOGEUSDT\",\"i\":\"1m\",\"f\":502210012,"
+					+ "\"L\":502210102,\"o\":\"0.16211000\",\"c\":\"0.16208000\",\"h\":\"0.16215000\","
+					+ "\"l\":\"0.16201000\",\"v\":\"1520331.00000000\",\"n\":90,\"x\":false,\"q\":\"246411.00350000\","
+					+ "\"V\":\"700112.00000000\",\"Q\":\"113472.11000000\",\"B\":\"0\"}}}"
+	};
+
+	private final KlineFrame frame = new KlineFrame();
+
+	private int next;
+
+	@Benchmark
+	public KlineFrame streaming() {
+		KlineFrameDecoder.decode(nextFrame(), frame);
+		return frame;
+	}
+
+	@Benchmark
+	public void jsonTree(Blackhole blackhole) {
+		// Caminho anterior do listener do socket
+		var json = JsonParser.parseString(nextFrame()).getAsJsonObject();
+		var data = json.getAsJsonObject("data");
+		var klineData = data.getAsJsonObject("k");
+
+		var kline = Kline.builder()
+				.pair(data.get("s").getAsString())
+				.interval("1m")
+				.openTime(klineData.get("t").getAsLong())
+				.open(klineData.get("o").getAsDouble())
+				.high(klineData.get("h").getAsDouble())
+				.low(klineData.get("l").getAsDouble())
+				.close(klineData.get("c").getAsDouble())
+				.closeTime(klineData.get("T").getAsLong())
+				.build();
+
+		blackhole.consume(kline);
+		blackhole.consume(data.get("E").getAsLong());
+	}
+
+	private String nextFrame() {
+		var text = FRAMES[next];
+		next = (next + 1) % FRAMES.length;
+		return text;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(KlineFrameDecoderBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,107 @@
+package com.hydra.studios.service.klines.codec;
+
+import com.hydra.studios.service.binance.stream.KlineFrame;
+import com.hydra.studios.service.binance.stream.KlineFrameDecoder;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KlineFrameDecoderTests {
+
+	private static final String FRAME = "{\"stream\":\"btcusdt@kline_1m\",\"data\":{\"e\":\"kline\",\"E\":1700000012345,"
+			+ "\"s\":\"BTCUSDT\",\"k\":{\"t\":1700000000000,\"T\":1700000059999,\"s\":\"BTCUSDT\",\"i\":\"1m\","
+			+ "\"f\":100,\"L\":200,\"o\":\"64250.12\",\"c\":\"64260.50\",\"h\":\"64270.00\",\"l\":\"64240.01\","
+			+ "\"v\":\"12.345\",\"n\":101,\"x\":false,\"q\":\"793000.1\",\"V\":\"6.1\",\"Q\":\"392000.5\",\"B\":\"0\"}}}";
+
+	@Test
+	void decodesKlineFrame() {
+		var frame = new KlineFrame();
+
+		assertTrue(KlineFrameDecoder.decode(FRAME, frame));
+		assertKline(frame);
+		assertFalse(frame.isClosed());
+	}
+
+	@Test
+	void decodesReorderedFields() {
+		var text = "{\"data\":{\"k\":{\"x\":true,\"c\":\"64260.50\",\"v\":\"12.345\",\"l\":\"64240.01\","
+				+ "\"h\":\"64270.00\",\"o\":\"64250.12\",\"i\":\"1m\",\"T\":1700000059999,\"t\":1700000000000},"
+				+ "\"s\":\"BTCUSDT\",\"E\":1700000012345,\"e\":\"kline\"},\"stream\":\"btcusdt@kline_1m\"}";
+		var frame = new KlineFrame();
+
+		assertTrue(KlineFrameDecoder.decode(text, frame));
+		assertKline(frame);
+		assertTrue(frame.isClosed());
+	}
+
+	@Test
+	void decodesNumbersSentAsStringsOrNumbers() {
+		var text = "{\"data\":{\"E\":\"1700000012345\",\"s\":\"BTCUSDT\",\"k\":{\"t\":\"1700000000000\","
+				+ "\"T\":1700000059999,\"i\":\"1m\",\"o\":64250.12,\"h\":\"64270\",\"l\":6.424001E4,"
+				+ "\"c\":\"64260.50\",\"v\":12.345,\"x\":false}}}";
+		var frame = new KlineFrame();
+
+		assertTrue(KlineFrameDecoder.decode(text, frame));
+		assertKline(frame);
+	}
+
+	@Test
+	void skipsUnknownAndNestedFields() {
+		var text = "{\"meta\":{\"a\":[1,{\"b\":null}],\"c\":\"x\"},\"data\":{\"extra\":[[1,2],{\"k\":{\"t\":1}}],"
+				+ "\"E\":1700000012345,\"s\":\"BTCUSDT\",\"k\":{\"t\":1700000000000,\"T\":1700000059999,"
+				+ "\"i\":\"1m\",\"o\":\"64250.12\",\"h\":\"64270.00\",\"l\":\"64240.01\",\"c\":\"64260.50\","
+				+ "\"v\":\"12.345\",\"x\":false,\"nested\":{\"deep\":{\"t\":5}},\"list\":[\"o\",\"c\"]}},\"tail\":true}";
+		var frame = new KlineFrame();
+
+		assertTrue(KlineFrameDecoder.decode(text, frame));
+		assertKline(frame);
+	}
+
+	@Test
+	void rejectsSubscribeAck() {
+		var frame = new KlineFrame();
+		KlineFrameDecoder.decode(FRAME, frame);
+
+		assertFalse(KlineFrameDecoder.decode("{\"result\":null,\"id\":1}", frame));
+		assertNull(frame.getSymbol());
+		assertEquals(0, frame.getOpenTime());
+	}
+
+	@Test
+	void rejectsNonKlinePayloads() {
+		var frame = new KlineFrame();
+
+		assertFalse(KlineFrameDecoder.decode("{\"stream\":\"btcusdt@trade\",\"data\":{\"e\":\"trade\",\"E\":1,"
+				+ "\"s\":\"BTCUSDT\",\"p\":\"64250.12\"}}", frame));
+		assertFalse(KlineFrameDecoder.decode("{\"data\":[1,2,3]}", frame));
+		assertFalse(KlineFrameDecoder.decode("{}", frame));
+	}
+
+	@Test
+	void rejectsMalformedInput() {
+		var frame = new KlineFrame();
+
+		assertFalse(KlineFrameDecoder.decode("", frame));
+		assertFalse(KlineFrameDecoder.decode("[]", frame));
+		assertFalse(KlineFrameDecoder.decode("not json", frame));
+		assertFalse(KlineFrameDecoder.decode(FRAME.substring(0, FRAME.length() / 2), frame));
+		assertFalse(KlineFrameDecoder.decode(FRAME.replace("\"t\":1700000000000", "\"t\":\"abc\""), frame));
+		assertFalse(KlineFrameDecoder.decode(FRAME.replace("\"x\":false", "\"x\":{}"), frame));
+	}
+
+	private static void assertKline(KlineFrame frame) {
+		assertEquals("BTCUSDT", frame.getSymbol());
+		assertEquals("1m", frame.getInterval());
+		assertEquals(1_700_000_012_345L, frame.getEventTime());
+		assertEquals(1_700_000_000_000L, frame.getOpenTime());
+		assertEquals(1_700_000_059_999L, frame.getCloseTime());
+		assertEquals(64250.12, frame.getOpen());
+		assertEquals(64270.00, frame.getHigh());
+		assertEquals(64240.01, frame.getLow());
+		assertEquals(64260.50, frame.getClose());
+		assertEquals(12.345, frame.getVolume());
+	}
+}
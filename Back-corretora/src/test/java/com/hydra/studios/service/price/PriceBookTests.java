@@ -0,0 +1,99 @@
+package com.hydra.studios.service.price;
+
+import com.hydra.studios.model.price.PriceTick;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PriceBookTests {
+
+	@Test
+	void unknownOrEmptySymbolHasNoPrice() {
+		var book = new PriceBook();
+		book.init(List.of("btcusdt"));
+
+		assertEquals(-1, book.indexOf("ETHUSDT"));
+		assertFalse(book.read(-1, new PriceTick()));
+		assertFalse(book.read(book.indexOf("BTCUSDT"), new PriceTick()));
+		assertNull(book.get("ETHUSDT"));
+	}
+
+	@Test
+	void ignoresOlderUpdates() {
+		var book = new PriceBook();
+		book.init(List.of("BTCUSDT"));
+
+		book.update("BTCUSDT", 64_000, 2_000);
+		book.update("BTCUSDT", 63_000, 1_000);
+
+		var tick = book.get("BTCUSDT");
+		assertEquals(64_000, tick.getPrice());
+		assertEquals(2_000, tick.getEventTime());
+	}
+
+	@Test
+	void initKeepsIndexesAndPrices() {
+		var book = new PriceBook();
+		book.init(List.of("BTCUSDT", "ETHUSDT"));
+		var btc = book.indexOf("BTCUSDT");
+		book.update(btc, 64_000, 1_000);
+
+		book.init(List.of("SOLUSDT", "BTCUSDT"));
+
+		assertEquals(btc, book.indexOf("BTCUSDT"));
+		assertEquals(3, book.size());
+		assertEquals("SOLUSDT", book.symbolOf(book.indexOf("SOLUSDT")));
+		assertEquals(64_000, book.get("BTCUSDT").getPrice());
+	}
+
+	@Test
+	void readersNeverSeeTornUpdates() throws InterruptedException {
+		var book = new PriceBook();
+		book.init(List.of("BTCUSDT"));
+		var index = book.indexOf("BTCUSDT");
+		book.update(index, 1, 1);
+
+		var running = new AtomicBoolean(true);
+		var torn = new AtomicReference<String>();
+
+		// O preço é sempre igual ao horário; um leitor que misture duas escritas vê os dois diferentes
+		var writer = new Thread(() -> {
+			for (long time = 2; running.get(); time++) {
+				book.update(index, time, time);
+			}
+		});
+		var readers = new Thread[2];
+		for (var i = 0; i < readers.length; i++) {
+			readers[i] = new Thread(() -> {
+				var tick = new PriceTick();
+				var last = 0L;
+				for (var n = 0; n < 2_000_000 && torn.get() == null; n++) {
+					if (!book.read(index, tick)) {
+						torn.set("no price");
+					} else if (tick.getPrice() != tick.getEventTime() || tick.getEventTime() < last) {
+						torn.set(tick.getPrice() + " at " + tick.getEventTime() + " after " + last);
+					}
+					last = tick.getEventTime();
+				}
+			});
+		}
+
+		writer.start();
+		for (var reader : readers) {
+			reader.start();
+		}
+		for (var reader : readers) {
+			reader.join();
+		}
+		running.set(false);
+		writer.join();
+
+		assertNull(torn.get());
+	}
+}
@@ -0,0 +1,79 @@
+package com.hydra.studios.service.price;
+
+import com.hydra.studios.model.price.PriceTick;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceHistoryTests {
+
+	private static final long BASE = 1_700_000_000_000L;
+
+	private final PriceBook priceBook = new PriceBook();
+
+	private final PriceHistory history = new PriceHistory(16);
+
+	@BeforeEach
+	void setUp() {
+		priceBook.init(List.of("BTCUSDT"));
+		ReflectionTestUtils.setField(history, "priceBook", priceBook);
+		history.init();
+	}
+
+	@Test
+	void returnsLastTickAtOrBeforeTime() {
+		history.record("BTCUSDT", 100, BASE);
+		history.record("BTCUSDT", 101, BASE + 1_000);
+		history.record("BTCUSDT", 102, BASE + 2_000);
+
+		assertEquals(100, history.priceAt("BTCUSDT", BASE + 999).getPrice());
+		assertEquals(101, history.priceAt("BTCUSDT", BASE + 1_000).getPrice());
+
+		// Depois do último tick vale o último preço conhecido
+		var tick = history.priceAt("BTCUSDT", BASE + 60_000);
+		assertEquals(102, tick.getPrice());
+		assertEquals(BASE + 2_000, tick.getEventTime());
+	}
+
+	@Test
+	void noPriceBeforeFirstTickOrForUnknownSymbol() {
+		history.record("BTCUSDT", 100, BASE);
+
+		assertNull(history.priceAt("BTCUSDT", BASE - 1));
+		assertNull(history.priceAt("ETHUSDT", BASE));
+		assertEquals(0, history.latestTime("ETHUSDT"));
+	}
+
+	@Test
+	void dropsTicksOlderThanTheWindow() {
+		for (var i = 0; i < 20; i++) {
+			history.record("BTCUSDT", 100 + i, BASE + i * 1_000L);
+		}
+
+		// Capacidade 16: os quatro primeiros ticks já saíram do anel
+		assertNull(history.priceAt("BTCUSDT", BASE + 3_500));
+		assertEquals(104, history.priceAt("BTCUSDT", BASE + 4_000).getPrice());
+		assertEquals(BASE + 19_000, history.latestTime("BTCUSDT"));
+	}
+
+	@Test
+	void ignoresOutOfOrderTicksAndKeepsLastOfSameTime() {
+		history.record("BTCUSDT", 100, BASE + 1_000);
+		history.record("BTCUSDT", 90, BASE);
+		history.record("BTCUSDT", 101, BASE + 1_000);
+
+		assertNull(history.priceAt("BTCUSDT", BASE + 500));
+
+		var tick = new PriceTick();
+		assertTrue(history.priceAt("BTCUSDT", BASE + 1_000, tick));
+		assertEquals(101, tick.getPrice());
+		assertFalse(history.priceAt(-1, BASE, tick));
+	}
+}
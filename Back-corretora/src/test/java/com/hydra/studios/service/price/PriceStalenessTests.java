@@ -0,0 +1,68 @@
+package com.hydra.studios.service.price;
+
+import com.hydra.studios.model.price.PriceTick;
+import com.hydra.studios.service.binance.source.MarketClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceStalenessTests {
+
+	private static final long BASE = 1_700_000_000_000L;
+
+	private final PriceBook priceBook = new PriceBook();
+
+	private final MarketClock marketClock = new MarketClock();
+
+	private final PriceStaleness staleness = new PriceStaleness();
+
+	@BeforeEach
+	void setUp() {
+		priceBook.init(List.of("BTCUSDT", "ETHUSDT"));
+		ReflectionTestUtils.setField(staleness, "priceBook", priceBook);
+		ReflectionTestUtils.setField(staleness, "marketClock", marketClock);
+		ReflectionTestUtils.setField(staleness, "staleAfterMillis", 15_000L);
+
+		// Relógio parado em BASE: uma reprodução sem ritmo segue só os eventos entregues
+		marketClock.follow(BASE, System.nanoTime(), 0);
+	}
+
+	@Test
+	void symbolWithoutPriceIsStale() {
+		assertTrue(staleness.isStale("BTCUSDT"));
+		assertTrue(staleness.isStale("DOGEUSDT"));
+		assertEquals(-1, staleness.ageMillis("BTCUSDT", BASE));
+	}
+
+	@Test
+	void staleOnlyAfterThreshold() {
+		priceBook.update("BTCUSDT", 64_000, BASE - 15_000);
+		priceBook.update("ETHUSDT", 3_100, BASE - 15_001);
+
+		assertFalse(staleness.isStale("BTCUSDT"));
+		assertTrue(staleness.isStale(priceBook.indexOf("ETHUSDT"), new PriceTick()));
+	}
+
+	@Test
+	void ageFollowsTheMarketClock() {
+		priceBook.update("BTCUSDT", 64_000, BASE);
+
+		marketClock.advance(BASE + 20_000);
+		assertTrue(staleness.isStale("BTCUSDT"));
+
+		// Tick reproduzido no mesmo horário do relógio volta a valer
+		priceBook.update("BTCUSDT", 64_100, BASE + 20_000);
+		assertFalse(staleness.isStale("BTCUSDT"));
+
+		var stats = staleness.getStats();
+		assertEquals(0, stats.get("stalePairs").getAsInt());
+		assertEquals(0, stats.getAsJsonObject("ageMillis").get("BTCUSDT").getAsLong());
+		assertFalse(stats.getAsJsonObject("ageMillis").has("ETHUSDT"));
+	}
+}
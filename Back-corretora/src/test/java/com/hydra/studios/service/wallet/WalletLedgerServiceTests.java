@@ -0,0 +1,160 @@
+package com.hydra.studios.service.wallet;
+
+import com.hydra.studios.model.account.Account;
+import com.hydra.studios.model.account.wallet.AccountWallet;
+import com.hydra.studios.model.account.wallet.WalletDelta;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WalletLedgerServiceTests {
+
+	@Mock
+	private MongoTemplate mongoTemplate;
+
+	@InjectMocks
+	private WalletLedgerService ledger;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(ledger, "keepOperations", 512);
+	}
+
+	@Test
+	void creditsNewOperationOnceWithItsId() {
+		var credited = wallet(0, 0, 150);
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+				any(FindAndModifyOptions.class), eq(Account.class))).thenReturn(account(credited));
+
+		var wallet = ledger.apply("acc-1", new WalletDelta().addBalance(50).addOperation("bet-1"));
+
+		assertSame(credited, wallet);
+
+		var query = ArgumentCaptor.forClass(Query.class);
+		var update = ArgumentCaptor.forClass(UpdateDefinition.class);
+		verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class),
+				eq(Account.class));
+
+		// O update só casa enquanto o id não está na lista e o grava na mesma escrita
+		assertIterableEquals(List.of("bet-1"), notIn(query.getValue()));
+		assertEquals(new Document("wallet.balance", 50.0), update.getValue().getUpdateObject().get("$inc"));
+		assertTrue(update.getValue().getUpdateObject().get("$push", Document.class).containsKey("walletOperations"));
+		verify(mongoTemplate, never()).findOne(any(Query.class), eq(Account.class));
+	}
+
+	@Test
+	void returnsCurrentWalletForDuplicateOperation() {
+		var current = wallet(0, 0, 150);
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+				any(FindAndModifyOptions.class), eq(Account.class))).thenReturn(null);
+		when(mongoTemplate.findOne(any(Query.class), eq(Account.class))).thenReturn(account(current));
+
+		var wallet = ledger.apply("acc-1", new WalletDelta().addBalance(50).addOperation("bet-1"));
+
+		// O guard não casou: nada é creditado de novo e o saldo atual é devolvido
+		assertSame(current, wallet);
+		verify(mongoTemplate).findAndModify(any(Query.class), any(UpdateDefinition.class),
+				any(FindAndModifyOptions.class), eq(Account.class));
+	}
+
+	@Test
+	void depositUsesTransactionIdAsOperation() {
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+				any(FindAndModifyOptions.class), eq(Account.class))).thenReturn(null);
+		when(mongoTemplate.findOne(any(Query.class), eq(Account.class))).thenReturn(account(wallet(0, 0, 100)));
+
+		ledger.deposit("acc-1", 100, 20, "tx-1");
+
+		var query = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate).findAndModify(query.capture(), any(UpdateDefinition.class),
+				any(FindAndModifyOptions.class), eq(Account.class));
+		assertIterableEquals(List.of("tx-1"), notIn(query.getValue()));
+	}
+
+	@Test
+	void debitBetWithInsufficientFundsTakesNothing() {
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), eq(Account.class)))
+				.thenReturn(null);
+		var taken = new WalletDelta();
+
+		assertNull(ledger.debitBet("acc-1", 100, false, taken));
+		assertTrue(taken.isEmpty());
+
+		var query = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate).findAndModify(query.capture(), any(UpdateDefinition.class), eq(Account.class));
+		assertTrue(query.getValue().getQueryObject().containsKey("$expr"));
+	}
+
+	@Test
+	void demoDebitWithInsufficientFundsTakesNothing() {
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+				any(FindAndModifyOptions.class), eq(Account.class))).thenReturn(null);
+		var taken = new WalletDelta();
+
+		assertNull(ledger.debitBet("acc-1", 100, true, taken));
+		assertTrue(taken.isEmpty());
+
+		var query = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate).findAndModify(query.capture(), any(UpdateDefinition.class),
+				any(FindAndModifyOptions.class), eq(Account.class));
+		assertEquals(new Document("$gte", 100.0), query.getValue().getQueryObject().get("wallet.demo"));
+	}
+
+	@Test
+	void debitBetTakesBonusThenDepositThenBalance() {
+		// findAndModify devolve o documento anterior ao débito
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), eq(Account.class)))
+				.thenReturn(account(wallet(3, 4, 10)));
+		var taken = new WalletDelta();
+
+		var wallet = ledger.debitBet("acc-1", 10, false, taken);
+
+		assertEquals(3, taken.getBonus());
+		assertEquals(4, taken.getDeposit());
+		assertEquals(3, taken.getBalance());
+		assertEquals(0, wallet.getBonus());
+		assertEquals(0, wallet.getDeposit());
+		assertEquals(7, wallet.getBalance());
+	}
+
+	private static Collection<?> notIn(Query query) {
+		return (Collection<?>) query.getQueryObject().get("walletOperations", Document.class).get("$nin");
+	}
+
+	private static AccountWallet wallet(double bonus, double deposit, double balance) {
+		var wallet = new AccountWallet();
+		wallet.setBonus(bonus);
+		wallet.setDeposit(deposit);
+		wallet.setBalance(balance);
+		return wallet;
+	}
+
+	private static Account account(AccountWallet wallet) {
+		return Account.builder().id("acc-1").wallet(wallet).build();
+	}
+}
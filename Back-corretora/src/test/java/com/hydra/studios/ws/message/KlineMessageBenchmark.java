@@ -0,0 +1,121 @@
+package com.hydra.studios.ws.message;
+
+import com.hydra.studios.model.klines.Kline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of publishing one candle update through a simple broker with {@code subscribers} sessions
+ * on the topic. {@code converted} is the previous {@code convertAndSend(destination, kline)} with
+ * the default STOMP converters; {@code preSerialized} is the {@link KlineMessageEncoder} path used
+ * by {@code KlineController}. Delivery to the sessions is a no-op, so the numbers cover conversion,
+ * broker routing and the per-session message copies. Run {@code main} from the test classpath; the
+ * GC profiler reports bytes per published tick as {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KlineMessageBenchmark {
+
+	private static final String DESTINATION = "/topic/klines/BTCUSDT/1m";
+
+	@Param({ "1", "100" })
+	private int subscribers;
+
+	private SimpleBrokerMessageHandler broker;
+
+	private SimpMessagingTemplate template;
+
+	private Kline kline;
+
+	@Setup
+	public void setup() {
+		// Canais síncronos: o envio percorre o broker inteiro na thread do benchmark
+		var clientInbound = new ExecutorSubscribableChannel();
+		var clientOutbound = new ExecutorSubscribableChannel();
+		var brokerChannel = new ExecutorSubscribableChannel();
+		clientOutbound.subscribe(message -> {
+		});
+
+		broker = new SimpleBrokerMessageHandler(clientInbound, clientOutbound, brokerChannel, List.of("/topic"));
+		broker.start();
+
+		for (var i = 0; i < subscribers; i++) {
+			var accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+			accessor.setSessionId("session-" + i);
+			accessor.setSubscriptionId("sub-0");
+			accessor.setDestination(DESTINATION);
+			broker.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+		}
+
+		// Conversores padrão do STOMP, já que o WebSocketConfig não os personaliza
+		template = new SimpMessagingTemplate(brokerChannel);
+		template.setMessageConverter(new CompositeMessageConverter(List.of(
+				new StringMessageConverter(), new ByteArrayMessageConverter(), new MappingJackson2MessageConverter())));
+
+		kline = Kline.builder()
+				.id(Kline.idOf("BTCUSDT", "1m", 1_700_000_040_000L))
+				.pair("BTCUSDT")
+				.interval("1m")
+				.openTime(1_700_000_040_000L)
+				.open(64_250.12)
+				.high(64_270.0)
+				.low(64_240.01)
+				.close(64_260.5)
+				.closeTime(1_700_000_099_999L)
+				.build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		broker.stop();
+	}
+
+	@Benchmark
+	public void converted() {
+		template.convertAndSend(DESTINATION, kline);
+	}
+
+	@Benchmark
+	public void preSerialized() {
+		var payload = KlineMessageEncoder.encode(kline);
+		template.send(DESTINATION, KlineMessageEncoder.toMessage(DESTINATION, payload));
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(KlineMessageBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
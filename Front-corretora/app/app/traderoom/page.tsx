@@ -280,7 +280,7 @@ export default function Home() {
   useEffect(() => {
     if (!accountId) return;
 
-    const destination = `/topic/bets/${accountId}`;
+    const destination = `/user/queue/bets`;
     const un = subscribe(destination, (msg) => {
       try {
         const payload = JSON.parse(msg.body);
@@ -511,7 +511,7 @@ export default function Home() {
   useEffect(() => {
     if (!accountId) return;
     try { unsubscribeBetsRef.current?.(); } catch { }
-    const destination = `/topic/bets/${accountId}`;
+    const destination = `/user/queue/bets`;
     const un = subscribe(destination, (msg) => {
       try {
         const payload = msg.body ? JSON.parse(msg.body) : null;
@@ -152,7 +152,7 @@ export function AccountProvider({ children }: { children: ReactNode }) {
     if (!id) return;
     if (subscribedIdRef.current === id) return;
 
-    const destination = `/topic/account/${id}`;
+    const destination = `/user/queue/account`;
     const handleMessage = async (msg: any) => {
       try {
         const payload = msg.body ? JSON.parse(msg.body) : null;
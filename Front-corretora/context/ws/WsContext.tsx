@@ -34,6 +34,23 @@ function resolveWsUrl(): string | null {
   }
 }
 
+// Endpoint WebSocket puro do backend (/ws-native), derivado da URL do SockJS (/ws)
+function resolveNativeUrl(wsUrl: string): string | null {
+  if (typeof window === 'undefined' || typeof WebSocket === 'undefined') return null;
+  try {
+    const url = new URL(wsUrl, window.location.href);
+    if (url.protocol === 'https:') url.protocol = 'wss:';
+    else if (url.protocol === 'http:') url.protocol = 'ws:';
+    url.pathname = url.pathname.replace(/\/ws\/?$/, '/ws-native');
+    return url.toString();
+  } catch {
+    return null;
+  }
+}
+
+// Falhas seguidas do WebSocket puro antes de cair para o SockJS
+const NATIVE_MAX_FAILURES = 2;
+
 type DestinationState = {
   callbacks: Set<MessageHandler>;
   subscription: StompSubscription | null;
@@ -45,6 +62,9 @@ export function WsProvider({ children }: { children: ReactNode }) {
   const clientRef = useRef<Client | null>(null);
   const tokenRef = useRef<string | null>(null);
   const destinationsRef = useRef<Map<string, DestinationState>>(new Map());
+  const nativeFailuresRef = useRef(0);
+  const usingNativeRef = useRef(false);
+  const openedRef = useRef(false);
 
   const ensureClient = useCallback(() => {
     const wsUrl = resolveWsUrl();
@@ -61,6 +81,8 @@ export function WsProvider({ children }: { children: ReactNode }) {
       debug: () => undefined,
       onConnect: (_frame: IFrame) => {
         setConnected(true);
+        openedRef.current = true;
+        if (usingNativeRef.current) nativeFailuresRef.current = 0;
         // (re)inscrever destinos existentes
         for (const [destination, state] of destinationsRef.current.entries()) {
           try {
@@ -84,13 +106,24 @@ export function WsProvider({ children }: { children: ReactNode }) {
       },
       onWebSocketClose: () => {
         setConnected(false);
+        if (usingNativeRef.current && !openedRef.current) nativeFailuresRef.current += 1;
         // não limpamos callbacks; reconexão cuidará de re-assinar
         for (const [, state] of destinationsRef.current.entries()) {
           state.subscription = null;
         }
       },
     });
-    client.webSocketFactory = () => new SockJS(wsUrl) as unknown as IStompSocket;
+    client.webSocketFactory = () => {
+      openedRef.current = false;
+      const nativeUrl = resolveNativeUrl(wsUrl);
+      usingNativeRef.current = !!nativeUrl && nativeFailuresRef.current < NATIVE_MAX_FAILURES;
+      if (usingNativeRef.current) {
+        const socket = new WebSocket(nativeUrl as string);
+        socket.binaryType = 'arraybuffer';
+        return socket as unknown as IStompSocket;
+      }
+      return new SockJS(wsUrl) as unknown as IStompSocket;
+    };
 
     clientRef.current = client;
     client.activate();
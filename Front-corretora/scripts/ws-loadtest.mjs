@@ -0,0 +1,203 @@
+#!/usr/bin/env node
+/**
+ * Load test for the STOMP endpoints: opens N clients on /ws-native (plain WebSocket with
+ * permessage-deflate) and/or /ws (SockJS), subscribes each one to the kline topics of the
+ * given pairs and reports messages/sec and bytes/sec per transport.
+ *
+ * Payload bytes are the STOMP bodies received; wire bytes are read from the TCP sockets of
+ * the process, so they include framing, SockJS envelopes and the effect of compression.
+ * Transports run one after the other, never at the same time.
+ *
+ * Usage (Node 22+, for the global WebSocket; on Node 20 run node --experimental-websocket):
+ *   LOADTEST_TOKEN=<jwt> npm run loadtest:ws -- --url http://localhost:8080 \
+ *     --transport both --clients 200 --pairs BTCUSDT,ETHUSDT --interval 1m --duration 60
+ *
+ * Results on localhost, backend fed by MARKET_SOURCE=replay (30 synthetic pairs, BTCUSDT and
+ * ETHUSDT updating twice per second), 2 pairs @ 1m, 5s warmup, 60s measured, Node 20:
+ *
+ *   transport  clients  failed  dropped  msg/s  payload B/s  wire B/s  wire B/msg
+ *   native          50       0        0  168.3      30406.3    4398.7        26.1
+ *   sockjs          50       0        0  178.3      32193.5    4538.5        25.4
+ *   native         200       0        0  686.7     124179.6   17549.4        25.6
+ *   sockjs         200       0        0  703.3     127255.9   17859.8        25.4
+ *
+ * Each kline body is ~181 bytes and arrives in ~26 bytes on the wire. Node's WebSocket offers
+ * permessage-deflate on both paths (the SockJS client used it as its websocket transport), so
+ * both transports were compressed and cost the same; the SockJS envelope is lost in the noise.
+ * The SockJS HTTP fallbacks (xhr-streaming, polling) were not measured.
+ */
+import net from 'node:net';
+import { Client } from '@stomp/stompjs';
+import SockJS from 'sockjs-client';
+
+const options = parseArgs(process.argv.slice(2), {
+  url: process.env.LOADTEST_URL ?? 'http://localhost:8080',
+  token: process.env.LOADTEST_TOKEN ?? '',
+  transport: 'both',
+  clients: '50',
+  pairs: 'BTCUSDT',
+  interval: '1m',
+  warmup: '5',
+  duration: '30',
+});
+
+const CONNECT_TIMEOUT = 15000;
+
+// Soma os bytes lidos de todos os sockets TCP abertos pelo processo
+const sockets = new Set();
+const connect = net.Socket.prototype.connect;
+net.Socket.prototype.connect = function (...args) {
+  sockets.add(this);
+  return connect.apply(this, args);
+};
+
+function wireBytes() {
+  let total = 0;
+  for (const socket of sockets) total += socket.bytesRead ?? 0;
+  return total;
+}
+
+function parseArgs(args, defaults) {
+  const parsed = { ...defaults };
+  for (let i = 0; i < args.length; i++) {
+    if (!args[i].startsWith('--')) continue;
+    parsed[args[i].slice(2)] = args[i + 1] ?? '';
+    i++;
+  }
+  return parsed;
+}
+
+function nativeUrl(base) {
+  const url = new URL(base);
+  url.protocol = url.protocol === 'https:' ? 'wss:' : 'ws:';
+  url.pathname = '/ws-native';
+  return url.toString();
+}
+
+function sockJsUrl(base) {
+  const url = new URL(base);
+  url.pathname = '/ws';
+  return url.toString();
+}
+
+function factoryFor(transport, stats) {
+  if (transport === 'native') {
+    if (typeof WebSocket === 'undefined') {
+      throw new Error('the native transport needs the global WebSocket of Node 22+');
+    }
+    return () => {
+      const socket = new WebSocket(nativeUrl(options.url), ['v12.stomp', 'v11.stomp', 'v10.stomp']);
+      socket.addEventListener('open', () => stats.extensions.add(socket.extensions || 'none'));
+      return socket;
+    };
+  }
+  // Sem timeout fixo o SockJS deriva o prazo do RTT do /info e desiste de conexões lentas na rajada
+  return () => new SockJS(sockJsUrl(options.url), null, { transports: ['websocket'], timeout: CONNECT_TIMEOUT });
+}
+
+function openClient(transport, topics, stats) {
+  return new Promise((resolve, reject) => {
+    const client = new Client({
+      webSocketFactory: factoryFor(transport, stats),
+      connectHeaders: { Authorization: `Bearer ${options.token}` },
+      reconnectDelay: 0,
+      heartbeatIncoming: 0,
+      heartbeatOutgoing: 0,
+      debug: () => {},
+    });
+
+    const fail = (error) => {
+      clearTimeout(timeout);
+      client.deactivate();
+      reject(error);
+    };
+    const timeout = setTimeout(() => fail(new Error('connect timeout')), CONNECT_TIMEOUT);
+
+    client.onConnect = () => {
+      clearTimeout(timeout);
+      for (const topic of topics) {
+        client.subscribe(topic, (message) => {
+          stats.messages++;
+          stats.payloadBytes += message.binaryBody?.length ?? 0;
+        });
+      }
+      resolve(client);
+    };
+    client.onStompError = (frame) => fail(new Error(frame.headers.message ?? 'STOMP error'));
+    client.onWebSocketClose = () => stats.closed++;
+
+    client.activate();
+  });
+}
+
+const sleep = (ms) => new Promise((resolve) => setTimeout(resolve, ms));
+
+async function run(transport) {
+  const topics = options.pairs.split(',').map((pair) => `/topic/klines/${pair.trim().toUpperCase()}/${options.interval}`);
+  const stats = { messages: 0, payloadBytes: 0, closed: 0, failed: 0, extensions: new Set() };
+
+  const clients = [];
+  const results = await Promise.allSettled(
+    Array.from({ length: Number(options.clients) }, () => openClient(transport, topics, stats)),
+  );
+  for (const result of results) {
+    if (result.status === 'fulfilled') clients.push(result.value);
+    else stats.failed++;
+  }
+  if (clients.length === 0) {
+    throw new Error(`no ${transport} client connected: ${results[0]?.reason?.message ?? 'unknown error'}`);
+  }
+
+  // Aquecimento: descarta as mensagens do início, que trazem o estado inicial e rajadas de conexão
+  await sleep(Number(options.warmup) * 1000);
+
+  const start = { time: process.hrtime.bigint(), messages: stats.messages, payload: stats.payloadBytes, wire: wireBytes() };
+  await sleep(Number(options.duration) * 1000);
+  const seconds = Number(process.hrtime.bigint() - start.time) / 1e9;
+
+  const messages = stats.messages - start.messages;
+  const payload = stats.payloadBytes - start.payload;
+  const wire = wireBytes() - start.wire;
+  // Conexões derrubadas pelo servidor durante a medição
+  const dropped = stats.closed;
+
+  await Promise.all(clients.map((client) => client.deactivate()));
+
+  return {
+    transport,
+    clients: clients.length,
+    failed: stats.failed,
+    dropped,
+    extensions: [...stats.extensions].join(' | ') || '-',
+    messagesPerSec: round(messages / seconds),
+    payloadBytesPerSec: round(payload / seconds),
+    wireBytesPerSec: round(wire / seconds),
+    wireBytesPerMessage: messages > 0 ? round(wire / messages) : 0,
+  };
+}
+
+function round(value) {
+  return Math.round(value * 10) / 10;
+}
+
+async function main() {
+  if (!options.token) {
+    console.error('Set LOADTEST_TOKEN (or --token) to a valid JWT: CONNECT frames without one are rejected.');
+    process.exit(1);
+  }
+
+  const transports = options.transport === 'both' ? ['native', 'sockjs'] : [options.transport];
+  const rows = [];
+  for (const transport of transports) {
+    console.log(`Running ${transport}: ${options.clients} clients, ${options.pairs} @ ${options.interval}, ${options.duration}s`);
+    rows.push(await run(transport));
+  }
+
+  console.table(rows);
+  process.exit(0);
+}
+
+main().catch((error) => {
+  console.error(error.message);
+  process.exit(1);
+});